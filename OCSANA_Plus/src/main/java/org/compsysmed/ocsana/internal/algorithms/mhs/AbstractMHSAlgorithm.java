@@ -12,22 +12,230 @@ package org.compsysmed.ocsana.internal.algorithms.mhs;
 
 // Java imports
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 // Cytoscape imports
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.BoundedInteger;
+
 import org.cytoscape.model.CyNode;
 // OCSANA imports
 import org.compsysmed.ocsana.internal.algorithms.AbstractOCSANAAlgorithm;
 
 /**
  * Public abstract base class for all MHS algorithms.
+ * <p>
+ * Any MHS algorithm may be given a time budget. Once it runs out, the
+ * algorithm behaves as if canceled: the search stops shortly after
+ * and keeps the MHSes found so far. After each run, {@link
+ * #resultsComplete} tells whether the search finished, and {@link
+ * #fractionExplored} how much of it was done. {@link #certifyMHSes}
+ * checks whether a search found every MHS and can add those it
+ * missed.
  *
  * @param network  the CyNetwork to compute on
  **/
 
 public abstract class AbstractMHSAlgorithm
     extends AbstractOCSANAAlgorithm {
+    // Tunables for the time budget
+    @Tunable(description = "Bound search time",
+             gravity = 390,
+             tooltip="Stops the search when the time runs out and keeps the CIs found so far")
+    public Boolean useTimeBudget = false;
+
+    @Tunable(description = "Time budget (seconds)",
+             gravity = 391,
+             dependsOn = "useTimeBudget=true")
+    public BoundedInteger timeBudgetSeconds = new BoundedInteger(1, 3600, 604800, false, false);
+
+    // Tunables for certifying the results
+    @Tunable(description = "Verify that all CIs were found",
+             gravity = 392,
+             tooltip="Checks the CIs found against the paths without enumerating them again; needs an unbounded CI size")
+    public Boolean certifyResults = false;
+
+    @Tunable(description = "Add missing CIs",
+             gravity = 393,
+             dependsOn = "certifyResults=true",
+             tooltip="Finds the CIs missing from partial results one at a time")
+    public Boolean completeResults = false;
+
+    // Time (as from System.nanoTime()) at which the current run must
+    // stop, if timed
+    private volatile boolean timed = false;
+    private volatile long deadline;
+    private volatile boolean deadlineReached = false;
+
+    // How much of the last run was searched (null if not measured)
+    private volatile Double fractionExplored = null;
+
     public AbstractMHSAlgorithm () {}
 
+    /**
+     * Start the time budget of a run, if the tunables ask for one
+     * <p>
+     * Call this before each run. Like cancellation, the deadline
+     * stays in force until this is called again.
+     **/
+    public void startTimeBudget () {
+        timed = useTimeBudget;
+        if (timed) {
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeBudgetSeconds.getValue());
+        }
+
+        deadlineReached = false;
+        fractionExplored = null;
+    }
+
+    /**
+     * Start a run under the time budget of another algorithm, which
+     * passes its run to this one
+     *
+     * @param owner  the algorithm whose run this is
+     **/
+    void shareTimeBudget (AbstractMHSAlgorithm owner) {
+        timed = owner.timed;
+        deadline = owner.deadline;
+        deadlineReached = false;
+        fractionExplored = null;
+    }
+
+    /**
+     * Indicate whether the algorithm has been canceled by the user or
+     * its time budget has run out
+     **/
+    @Override
+    public Boolean isCanceled () {
+        if (super.isCanceled()) {
+            return true;
+        }
+
+        if (timed && (System.nanoTime() - deadline >= 0)) {
+            deadlineReached = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicate whether the time budget ran out during the last run
+     **/
+    public Boolean timeBudgetExpired () {
+        return deadlineReached;
+    }
+
+    /**
+     * Return the fraction of the search tree of the last run which was
+     * explored
+     * <p>
+     * For the SHD algorithms, this is the fraction of the branches at
+     * the root which were searched to the end; other algorithms
+     * measure their own progress. An algorithm which cannot measure
+     * its progress reports 1 for a finished run and 0 for a stopped
+     * one.
+     **/
+    public Double fractionExplored () {
+        Double fraction = fractionExplored;
+        if (fraction != null) {
+            return fraction;
+        }
+
+        return (deadlineReached || super.isCanceled()) ? 0.0 : 1.0;
+    }
+
+    /**
+     * Indicate whether the last run searched everything, so its
+     * results are complete (up to the size bound of the algorithm)
+     **/
+    public Boolean resultsComplete () {
+        return fractionExplored() >= 1.0;
+    }
+
+    /**
+     * Record how much of the search tree the current run explored.
+     *
+     * @param fraction  the fraction explored, between 0 and 1
+     **/
+    protected void setFractionExplored (double fraction) {
+        if ((fraction < 0) || (fraction > 1)) {
+            throw new IllegalArgumentException("Fraction explored must be between 0 and 1.");
+        }
+
+        fractionExplored = fraction;
+    }
+
+    /**
+     * Check whether some MHSes of a collection of sets are all of its
+     * MHSes, passing each missing MHS to a consumer
+     * <p>
+     * See {@link DualityChecker}. The check stops if the user cancels
+     * the algorithm, but not when its time budget runs out. It
+     * cannot be made for a search with a size bound, since the MHSes
+     * above the bound are missing by design.
+     *
+     * @param sets  the sets to hit
+     * @param MHSes  MHSes of the sets
+     * @param consumer  to receive the missing MHSes; returns false to
+     * stop
+     * @return true if the given MHSes, with those passed to the
+     * consumer, are all the MHSes of the sets
+     * @throws IllegalStateException if the search has a size bound
+     **/
+    public boolean certifyMHSes (Collection<Set<CyNode>> sets,
+                                 Collection<Set<CyNode>> MHSes,
+                                 MHSConsumer<? super Set<CyNode>> consumer) {
+        Objects.requireNonNull(sets, "Collection of sets cannot be null");
+        Objects.requireNonNull(MHSes, "Collection of MHSes cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+
+        if (boundsMHSSize()) {
+            throw new IllegalStateException("Cannot certify the MHSes of a search with a size bound.");
+        }
+
+        HypergraphOfSetsOfCyNodes H = new HypergraphOfSetsOfCyNodes(sets);
+
+        List<BitSet> found = new ArrayList<>(MHSes.size());
+        for (Set<CyNode> mhs: MHSes) {
+            found.add(H.getBitSetFromCyNodes(mhs));
+        }
+
+        return new DualityChecker(H).complete(found, mhs -> consumer.accept(H.getCyNodesFromBitSet(mhs)), super::isCanceled);
+    }
+
+    /**
+     * Indicate whether this algorithm keeps the hypergraph of its input
+     * sets off the heap
+     * <p>
+     * Callers should then pass the sets as a view which computes each
+     * set when it is reached, since the algorithm reads them only to
+     * write its own rows.
+     **/
+    public boolean storesHypergraphOffHeap () {
+        return false;
+    }
+
+    /**
+     * Indicate whether this algorithm finds only the MHSes up to a
+     * given size
+     * <p>
+     * NOTE: returns false by default, but can be overridden
+     **/
+    public boolean boundsMHSSize () {
+        return false;
+    }
+
+    /**
+     * Return the options which are set but have no effect with the
+     * other options chosen, each mapped to the option overriding it
+     * <p>
+     * NOTE: returns an empty map by default, but can be overridden
+     **/
+    public Map<String, String> ignoredOptions () {
+        return Collections.emptyMap();
+    }
+
     /**
      * Compute MHSes of a given collection of sets
      *
@@ -35,4 +243,26 @@ public abstract class AbstractMHSAlgorithm
      * @return the collection of MHSes of the input sets
      **/
     public abstract Collection<Set<CyNode>> MHSes (Collection<Set<CyNode>> sets);
+
+    /**
+     * Compute MHSes of the (already minimized) hypergraph of a
+     * collection of sets, as {@link #MHSes} does once it has built it
+     * <p>
+     * NOTE: computes the transversal hypergraph by default, but can
+     * be overridden
+     *
+     * @param H  the hypergraph of the sets
+     * @return the MHSes of H
+     **/
+    Collection<BitSet> transversalsOfNodeSets (HypergraphOfSetsOfCyNodes H) {
+        return transversalHypergraph(H);
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @return the hypergraph whose edges are the MHSes of H
+     **/
+    public abstract Hypergraph transversalHypergraph (HypergraphStore H);
 }
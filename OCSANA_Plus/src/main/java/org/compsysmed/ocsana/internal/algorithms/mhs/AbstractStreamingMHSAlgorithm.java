@@ -0,0 +1,237 @@
+/**
+ * Abstract base class for MHS algorithms which report results as they
+ * find them
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+
+// Cytoscape imports
+import org.cytoscape.model.CyNode;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.scoring.OCSANAScoringAlgorithm;
+
+import org.compsysmed.ocsana.internal.util.results.OCSANAScores;
+
+/**
+ * Public abstract base class for MHS algorithms which can pass each
+ * MHS to a consumer as soon as it is found.
+ * <p>
+ * A streaming search stops once the consumer returns false, once a
+ * given number of MHSes have been reported, or once the algorithm is
+ * canceled. All worker threads stop shortly after. The MHSes are
+ * reported in no particular order.
+ * <p>
+ * The same searches can keep only the k MHSes with the highest OCSANA
+ * scores, skipping branches which cannot produce one (see {@link
+ * TopKTransversals}). Subclasses which offer this as an option return
+ * k from {@link #topK}; once scores have been received, {@link
+ * #streamMHSes} then reports only those MHSes.
+ **/
+public abstract class AbstractStreamingMHSAlgorithm
+    extends AbstractMHSAlgorithm
+    implements OCSANAScoringAlgorithm.OCSANAScoresListener {
+    private OCSANAScores ocsanaScores;
+
+    public AbstractStreamingMHSAlgorithm () {}
+
+    @Override
+    public void receiveScores (OCSANAScores ocsanaScores) {
+        this.ocsanaScores = ocsanaScores;
+    }
+
+    /**
+     * Find MHSes of a given collection of sets, passing each to a
+     * consumer as it is found
+     *
+     * @param sets  the sets to hit
+     * @param consumer  to receive the MHSes; returns false to stop
+     * the search
+     * @param maxResults  number of MHSes after which to stop (0 for
+     * no bound)
+     * @return the number of MHSes passed to the consumer
+     **/
+    public long streamMHSes (Collection<Set<CyNode>> sets,
+                             MHSConsumer<? super Set<CyNode>> consumer,
+                             long maxResults) {
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+
+        if (findsTopMHSes()) {
+            long numReported = 0;
+            for (Set<CyNode> mhs: topMHSes(sets)) {
+                if ((maxResults > 0) && (numReported >= maxResults)) {
+                    break;
+                }
+
+                numReported++;
+                if (!consumer.accept(mhs)) {
+                    break;
+                }
+            }
+
+            return numReported;
+        }
+
+        HypergraphOfSetsOfCyNodes inputHypergraph
+            = new HypergraphOfSetsOfCyNodes(sets);
+
+        return streamTransversals(inputHypergraph, translated(inputHypergraph::getCyNodesFromBitSet, consumer), maxResults);
+    }
+
+    /**
+     * Find MHSes of a given hypergraph, passing each to a consumer as
+     * it is found
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param consumer  to receive the MHSes; returns false to stop
+     * the search
+     * @param maxResults  number of MHSes after which to stop (0 for
+     * no bound)
+     * @return the number of MHSes passed to the consumer
+     **/
+    public long streamTransversals (HypergraphStore H,
+                                    MHSConsumer<? super BitSet> consumer,
+                                    long maxResults) {
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        SearchControl control = new SearchControl(consumer, maxResults, this::isCanceled);
+        search(H, control);
+        setFractionExplored(control.fractionExplored());
+
+        return control.numReported();
+    }
+
+    /**
+     * Find the MHSes of a given collection of sets with the highest
+     * OCSANA scores
+     *
+     * @param sets  the sets to hit
+     * @param scores  the OCSANA scores of the nodes in the sets
+     * @param k  the number of MHSes to find
+     * @return the k MHSes with the highest scores (or all of them, if
+     * there are fewer), best first
+     **/
+    public List<Set<CyNode>> topMHSes (Collection<Set<CyNode>> sets,
+                                       OCSANAScores scores,
+                                       int k) {
+        HypergraphOfSetsOfScoredCyNodes inputHypergraph
+            = new HypergraphOfSetsOfScoredCyNodes(sets, scores);
+
+        List<Set<CyNode>> result = new ArrayList<>();
+        for (BitSet mhs: topTransversals(inputHypergraph, inputHypergraph::score, k)) {
+            result.add(inputHypergraph.getCyNodesFromBitSet(mhs));
+        }
+        return result;
+    }
+
+    /**
+     * Find the MHSes of a given hypergraph with the highest scores,
+     * where the score of a set is the sum of the scores of its
+     * vertices
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param vertexScore  the score of each vertex of H
+     * @param k  the number of MHSes to find
+     * @return the k MHSes with the highest scores (or all of them, if
+     * there are fewer), best first
+     **/
+    public List<BitSet> topTransversals (HypergraphStore H,
+                                         IntToDoubleFunction vertexScore,
+                                         int k) {
+        TopKTransversals topK = new TopKTransversals(H, vertexScore, k);
+        SearchControl control = new SearchControl(topK, this::isCanceled);
+        search(H, control);
+        setFractionExplored(control.fractionExplored());
+
+        return topK.results();
+    }
+
+    /**
+     * Return the number of best-scoring MHSes to find, or 0 to find
+     * them all
+     * <p>
+     * NOTE: returns 0 by default, but can be overridden
+     **/
+    int topK () {
+        return 0;
+    }
+
+    /**
+     * Indicate whether {@link AbstractMHSAlgorithm#MHSes} should find
+     * only the best-scoring MHSes
+     **/
+    boolean findsTopMHSes () {
+        return (topK() > 0) && (ocsanaScores != null);
+    }
+
+    /**
+     * Return the OCSANA scores of the vertices of a hypergraph, or
+     * null if no scores have been received or the vertices are not
+     * nodes
+     *
+     * @param H  the hypergraph
+     **/
+    IntToDoubleFunction ocsanaVertexScores (HypergraphStore H) {
+        if ((ocsanaScores == null) || !(H instanceof HypergraphOfSetsOfCyNodes)) {
+            return null;
+        }
+
+        HypergraphOfSetsOfCyNodes nodeHypergraph = (HypergraphOfSetsOfCyNodes) H;
+        return v -> ocsanaScores.OCSANA(nodeHypergraph.getCyNode(v));
+    }
+
+    /**
+     * Find the best-scoring MHSes of a given collection of sets
+     * under the received OCSANA scores
+     *
+     * @param sets  the sets to hit
+     **/
+    List<Set<CyNode>> topMHSes (Collection<Set<CyNode>> sets) {
+        Objects.requireNonNull(ocsanaScores, "OCSANA scores must be set before finding the best MHSes");
+        return topMHSes(sets, ocsanaScores, topK());
+    }
+
+    /**
+     * Return a consumer of MHSes as BitSets which passes them, and
+     * the completed sizes, to a consumer of MHSes as sets of nodes
+     *
+     * @param translate  converts an MHS to a set of nodes
+     * @param consumer  to receive the converted MHSes
+     **/
+    static MHSConsumer<BitSet> translated (Function<BitSet, Set<CyNode>> translate,
+                                           MHSConsumer<? super Set<CyNode>> consumer) {
+        return new MHSConsumer<BitSet>() {
+            @Override
+            public boolean accept (BitSet mhs) {
+                return consumer.accept(translate.apply(mhs));
+            }
+
+            @Override
+            public void sizeComplete (int size) {
+                consumer.sizeComplete(size);
+            }
+        };
+    }
+
+    /**
+     * Find MHSes of a given hypergraph, reporting each to a control
+     * and returning once it says to stop or the search is complete
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
+     **/
+    abstract void search (HypergraphStore H,
+                          SearchControl control);
+}
@@ -0,0 +1,275 @@
+/**
+ * MHS algorithm which chooses another algorithm based on the input
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+// Cytoscape imports
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.BoundedInteger;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.scoring.OCSANAScoringAlgorithm;
+
+import org.compsysmed.ocsana.internal.util.results.OCSANAScores;
+
+/**
+ * Automatic selection among the RS, Berge and greedy algorithms.
+ * <p>
+ * The input is profiled with {@link HypergraphProfile} and
+ * <ul>
+ * <li>the greedy heuristic is used if the user allows it, OCSANA
+ * scores are available and the estimated number of MHSes is at least
+ * {@link #GREEDY_MIN_TRANSVERSALS};</li>
+ * <li>Berge's algorithm is used if there are at most {@link
+ * #BERGE_MAX_EDGES} edges, since it then has few partial transversals
+ * and no thread setup;</li>
+ * <li>otherwise the RS algorithm is used, with the hypergraph reduced
+ * and split into components, on one thread if there are fewer than
+ * {@link #RS_MIN_EDGES_FOR_THREADS} edges and on all cores
+ * otherwise.</li>
+ * </ul>
+ * The chosen algorithm is given this algorithm's size bound.
+ **/
+public class AutoMHSAlgorithm
+    extends AbstractStreamingMHSAlgorithm
+    implements OCSANAScoringAlgorithm.OCSANAScoresListener {
+    private static final String NAME = "Automatic selection";
+    private static final String SHORTNAME = "AUTO";
+
+    static final int BERGE_MAX_EDGES = 16;
+    static final int RS_MIN_EDGES_FOR_THREADS = 256;
+    static final double GREEDY_MIN_TRANSVERSALS = 1e6;
+
+    private static final int ESTIMATE_SAMPLE_SIZE = 64;
+    private static final long ESTIMATE_SEED = 0L;
+
+    // Tunables for bounded-cardinality search
+    @Tunable(description = "Bound CI size",
+             gravity = 350,
+             tooltip="Unbounded search may take a very long time!")
+    public Boolean useMaxCardinality = true;
+
+    @Tunable(description = "Maximum CI size",
+             gravity = 351,
+             dependsOn = "useMaxCardinality=true")
+    public BoundedInteger maxCardinalityBInt = new BoundedInteger(1, 6, 20, false, false);
+
+    @Tunable(description = "Allow greedy heuristic",
+             gravity = 352,
+             tooltip="The greedy heuristic may not find every CI")
+    public Boolean allowGreedy = false;
+
+    // Candidate algorithms
+    private final RSAlgorithm rsAlgorithm = new RSAlgorithm();
+    private final BergeAlgorithm bergeAlgorithm = new BergeAlgorithm();
+    private final OCSANAGreedyAlgorithm greedyAlgorithm;
+
+    private boolean haveScores = false;
+    private AbstractMHSAlgorithm lastChoice = null;
+
+    public AutoMHSAlgorithm (CyNetwork network) {
+        super();
+        greedyAlgorithm = new OCSANAGreedyAlgorithm(network);
+    }
+
+    @Override
+    public void receiveScores (OCSANAScores ocsanaScores) {
+        super.receiveScores(ocsanaScores);
+        greedyAlgorithm.receiveScores(ocsanaScores);
+        haveScores = true;
+    }
+
+    // No docstring because the interface has one
+    @Override
+    public Collection<Set<CyNode>> MHSes (Collection<Set<CyNode>> sets) {
+        HypergraphOfSetsOfCyNodes inputHypergraph
+            = new HypergraphOfSetsOfCyNodes(sets);
+
+        AbstractMHSAlgorithm algorithm = chooseAlgorithm(new HypergraphProfile(inputHypergraph));
+        return inputHypergraph.viewCyNodeSetsOfBitSets(algorithm.transversalsOfNodeSets(inputHypergraph));
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph with the algorithm chosen
+     * for it.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     **/
+    @Override
+    public Hypergraph transversalHypergraph (HypergraphStore H) {
+        return chooseAlgorithm(new HypergraphProfile(H)).transversalHypergraph(H);
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public long streamMHSes (Collection<Set<CyNode>> sets,
+                             MHSConsumer<? super Set<CyNode>> consumer,
+                             long maxResults) {
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+
+        if (maxResults < 0) {
+            throw new IllegalArgumentException("Result bound cannot be negative.");
+        }
+
+        HypergraphOfSetsOfCyNodes inputHypergraph
+            = new HypergraphOfSetsOfCyNodes(sets);
+        AbstractMHSAlgorithm algorithm = chooseAlgorithm(new HypergraphProfile(inputHypergraph));
+
+        if (algorithm instanceof AbstractStreamingMHSAlgorithm) {
+            return ((AbstractStreamingMHSAlgorithm) algorithm).streamTransversals(inputHypergraph, translated(inputHypergraph::getCyNodesFromBitSet, consumer), maxResults);
+        }
+
+        // Pass on the results of an algorithm which cannot stream
+        long numReported = 0;
+        for (BitSet mhs: algorithm.transversalsOfNodeSets(inputHypergraph)) {
+            if (isCanceled() || ((maxResults > 0) && (numReported >= maxResults))) {
+                break;
+            }
+
+            numReported++;
+            if (!consumer.accept(inputHypergraph.getCyNodesFromBitSet(mhs))) {
+                break;
+            }
+        }
+
+        return numReported;
+    }
+
+    /**
+     * Find MHSes of a given hypergraph with the algorithm chosen for
+     * it, reporting each to a control.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
+     **/
+    @Override
+    void search (HypergraphStore H,
+                 SearchControl control) {
+        AbstractMHSAlgorithm algorithm = chooseAlgorithm(new HypergraphProfile(H));
+
+        if (algorithm instanceof AbstractStreamingMHSAlgorithm) {
+            ((AbstractStreamingMHSAlgorithm) algorithm).search(H, control);
+        } else {
+            control.reportAll(algorithm.transversalHypergraph(H));
+        }
+    }
+
+    /**
+     * Choose and configure an algorithm for a hypergraph.
+     *
+     * @param profile  the profile of the hypergraph
+     * @return the algorithm to run, with its tunables set
+     **/
+    public AbstractMHSAlgorithm chooseAlgorithm (HypergraphProfile profile) {
+        Objects.requireNonNull(profile, "Profile cannot be null");
+
+        if (allowGreedy && haveScores
+            && (profile.estimateNumTransversals(ESTIMATE_SAMPLE_SIZE, ESTIMATE_SEED) >= GREEDY_MIN_TRANSVERSALS)) {
+            greedyAlgorithm.useMaxCardinality = useMaxCardinality;
+            greedyAlgorithm.maxCardinalityBInt.setValue(maxCardinalityBInt.getValue());
+            lastChoice = greedyAlgorithm;
+        } else if (profile.numEdges() <= BERGE_MAX_EDGES) {
+            bergeAlgorithm.useMaxCardinality = useMaxCardinality;
+            bergeAlgorithm.maxCardinalityBInt.setValue(maxCardinalityBInt.getValue());
+            bergeAlgorithm.splitComponents = false;
+            lastChoice = bergeAlgorithm;
+        } else {
+            rsAlgorithm.useMaxCardinality = useMaxCardinality;
+            rsAlgorithm.maxCardinalityBInt.setValue(maxCardinalityBInt.getValue());
+            rsAlgorithm.configureThreads = profile.numEdges() < RS_MIN_EDGES_FOR_THREADS;
+            rsAlgorithm.numThreads.setValue(1);
+            rsAlgorithm.reduceHypergraph = true;
+            rsAlgorithm.splitComponents = profile.numComponents() > 1;
+            lastChoice = rsAlgorithm;
+        }
+
+        lastChoice.shareTimeBudget(this);
+        return lastChoice;
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public Boolean timeBudgetExpired () {
+        return super.timeBudgetExpired() || ((lastChoice != null) && lastChoice.timeBudgetExpired());
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public Double fractionExplored () {
+        if (lastChoice != null) {
+            return lastChoice.fractionExplored();
+        }
+
+        return super.fractionExplored();
+    }
+
+    @Override
+    public void cancel () {
+        super.cancel();
+        rsAlgorithm.cancel();
+        bergeAlgorithm.cancel();
+        greedyAlgorithm.cancel();
+    }
+
+    @Override
+    public void uncancel () {
+        super.uncancel();
+        rsAlgorithm.uncancel();
+        bergeAlgorithm.uncancel();
+        greedyAlgorithm.uncancel();
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public boolean boundsMHSSize () {
+        return useMaxCardinality;
+    }
+
+    @Override
+    public String fullName () {
+        return NAME;
+    }
+
+    @Override
+    public String shortName () {
+        return SHORTNAME;
+    }
+
+    @Override
+    public String description () {
+        if (lastChoice != null) {
+            return String.format("%s: %s", fullName(), lastChoice.description());
+        }
+
+        StringBuilder result = new StringBuilder(fullName());
+
+        result.append(" (");
+
+        if (useMaxCardinality) {
+            result.append(String.format("max CI size: %d", maxCardinalityBInt.getValue()));
+        } else {
+            result.append("no max CI size");
+        }
+
+        if (allowGreedy) {
+            result.append("; greedy allowed");
+        }
+
+        result.append(")");
+        return result.toString();
+    }
+}
@@ -13,6 +13,9 @@ package org.compsysmed.ocsana.internal.algorithms.mhs;
 
 // Java imports
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
 
 // Cytoscape imports
 import org.cytoscape.work.Tunable;
@@ -31,6 +34,13 @@ public class BergeAlgorithm
     private static final String NAME = "Berge's algorithm";
     private static final String SHORTNAME = "Berge";
 
+    // Number of missed transversals above which an update extends
+    // them in parallel
+    private static final int PARALLEL_EXTENSION_THRESHOLD = 4096;
+
+    // Number of transversals extended sequentially by one task
+    private static final int EXTENSION_GRAIN = 512;
+
     // Tunables for bounded-cardinality search
     @Tunable(description = "Bound CI size",
              gravity = 350,
@@ -42,6 +52,11 @@ public class BergeAlgorithm
              dependsOn = "useMaxCardinality=true")
     public BoundedInteger maxCardinalityBInt = new BoundedInteger(1, 6, 20, false, false);
 
+    @Tunable(description = "Solve independent components separately",
+             gravity = 352,
+             tooltip="Finds the CIs of each group of paths sharing no nodes with the others on its own")
+    public Boolean splitComponents = false;
+
     public BergeAlgorithm () {
         super();
     }
@@ -52,88 +67,208 @@ public class BergeAlgorithm
         HypergraphOfSetsOfCyNodes inputHypergraph
             = new HypergraphOfSetsOfCyNodes(sets);
 
-        inputHypergraph.minimize();
-
-        Hypergraph resultHypergraph = transversalHypergraph(inputHypergraph);
+        // NOTE: the constructor has already minimized inputHypergraph
 
-        return inputHypergraph.getCyNodeSetsFromHypergraph(resultHypergraph);
+        return inputHypergraph.viewCyNodeSetsOfBitSets(transversalsOfNodeSets(inputHypergraph));
     };
 
+    // No docstring because the superclass has one
+    @Override
+    Collection<BitSet> transversalsOfNodeSets (HypergraphOfSetsOfCyNodes H) {
+        if (splitComponents) {
+            int maxCardinality = useMaxCardinality ? maxCardinalityBInt.getValue() : 0;
+            return new HypergraphComponents(H).transversals(this::transversalHypergraph, maxCardinality);
+        }
+
+        return transversalHypergraph(new PackedHypergraph(H));
+    }
+
     /**
      * Compute MHSes of a given hypergraph.
      *
      * @param H  the hypergraph whose MHSes we should find
      **/
-    public Hypergraph transversalHypergraph (Hypergraph H) {
-    	Hypergraph transversals = new Hypergraph(H.numVerts(), 1);
+    @Override
+    public Hypergraph transversalHypergraph (HypergraphStore H) {
+        int maxCardinality = useMaxCardinality ? maxCardinalityBInt.getValue() : 0;
+
+        // The minimal transversals of the edges processed so far,
+        // starting from the empty set, which hits no edges
+        List<BitSet> transversals = new ArrayList<>();
+        transversals.add(new BitSet(H.numVerts()));
 
-        for (BitSet edge: H) {
-            updateTransversalsWithEdge(transversals, edge);
+        BucketedSetStore transversalIndex = new BucketedSetStore();
+        transversalIndex.add(transversals.get(0));
+
+        int numE = H.numEdges();
+        for (int e = 0; e < numE; e++) {
+            transversals = updateTransversalsWithEdge(transversals, transversalIndex, H.edgeAsBitSet(e), maxCardinality);
+
+            // Handle cancellation; the transversals of some of the
+            // edges are not MHSes, so nothing has been found yet
+            if (isCanceled()) {
+                setFractionExplored((double) e / numE);
+                return new Hypergraph(H.numVerts());
+            }
         }
 
+        Hypergraph result = new Hypergraph(H.numVerts());
+        result.addAll(transversals);
+
         if (useMaxCardinality) {
-            for (BitSet transversal: transversals) {
-                assert transversal.cardinality() <= maxCardinalityBInt.getValue();
+            for (BitSet transversal: result) {
+                assert transversal.cardinality() <= maxCardinality;
             }
         }
 
-        // Handle cancellation
-        return transversals;
+        return result;
     }
 
     /**
-     * Update a set of partial transversals with a new edge.
-     *
-     * Specifically, add each element of the edge to each transversal,
-     * then minimize transversals.
+     * Update the minimal transversals of some edges to the minimal
+     * transversals of those edges and one more.
+     * <p>
+     * A transversal which hits the new edge stays minimal. Each other
+     * transversal t is extended by each vertex v of the edge in turn.
+     * No extension contains another, so t + v is minimal unless it
+     * contains a transversal which hits the edge (necessarily at v).
+     * Each extension is therefore checked only against the index of
+     * the transversals which hit the edge; the checks do not depend on
+     * each other, so large updates run them in parallel.
      *
-     * @param transversals  the known partial transversals
+     * @param transversals  the minimal transversals of the edges
+     * processed so far
+     * @param transversalIndex  an index of transversals; updated to
+     * index the result
      * @param edge  the edge to use to update the transversals
+     * @param maxCardinality  the largest transversal to keep (0 for
+     * no bound)
+     * @return the minimal transversals including the new edge
      **/
-    private void updateTransversalsWithEdge (Hypergraph transversals,
-                                             BitSet edge) {
-        
-            // Extend each transversal with each element of the edge
-            Hypergraph newTransversals = new Hypergraph();
-            for (BitSet transversal: transversals) {
+    private List<BitSet> updateTransversalsWithEdge (List<BitSet> transversals,
+                                                     BucketedSetStore transversalIndex,
+                                                     BitSet edge,
+                                                     int maxCardinality) {
+        List<BitSet> newTransversals = new ArrayList<>(transversals.size());
+        List<BitSet> missedTransversals = new ArrayList<>();
+        for (BitSet transversal: transversals) {
+            if (transversal.intersects(edge)) {
+                // If the transversal hits this edge, we don't need to extend it
+                newTransversals.add(transversal);
+            } else {
+                // Otherwise it is no longer a transversal, and must
+                // leave the index before the extensions are checked
+                missedTransversals.add(transversal);
+                transversalIndex.remove(transversal);
+            }
+        }
+
+        if (missedTransversals.isEmpty()) {
+            return newTransversals;
+        }
+
+        ExtensionTask extension = new ExtensionTask(missedTransversals, transversalIndex, edge, maxCardinality, this::isCanceled, 0, missedTransversals.size());
+
+        List<BitSet> extensions;
+        if ((missedTransversals.size() >= PARALLEL_EXTENSION_THRESHOLD) && (ForkJoinPool.getCommonPoolParallelism() > 1)) {
+            extensions = ForkJoinPool.commonPool().invoke(extension);
+        } else {
+            extensions = extension.compute();
+        }
+
+        for (BitSet newTransversal: extensions) {
+            transversalIndex.add(newTransversal);
+            newTransversals.add(newTransversal);
+        }
+
+        return newTransversals;
+    }
+
+    /**
+     * Task extending a range of transversals which miss an edge by
+     * each vertex of the edge, keeping the minimal extensions
+     **/
+    private static class ExtensionTask
+        extends RecursiveTask<List<BitSet>> {
+        private final List<BitSet> missedTransversals;
+        private final BucketedSetStore transversalIndex;
+        private final BitSet edge;
+        private final int maxCardinality;
+        private final BooleanSupplier isCanceled;
+        private final int start;
+        private final int end;
+
+        ExtensionTask (List<BitSet> missedTransversals,
+                       BucketedSetStore transversalIndex,
+                       BitSet edge,
+                       int maxCardinality,
+                       BooleanSupplier isCanceled,
+                       int start,
+                       int end) {
+            this.missedTransversals = missedTransversals;
+            this.transversalIndex = transversalIndex;
+            this.edge = edge;
+            this.maxCardinality = maxCardinality;
+            this.isCanceled = isCanceled;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<BitSet> compute () {
+            if (end - start <= EXTENSION_GRAIN) {
+                return extend();
+            }
+
+            int middle = (start + end) >>> 1;
+            ExtensionTask left = new ExtensionTask(missedTransversals, transversalIndex, edge, maxCardinality, isCanceled, start, middle);
+            ExtensionTask right = new ExtensionTask(missedTransversals, transversalIndex, edge, maxCardinality, isCanceled, middle, end);
+            right.fork();
+
+            // Keep the results in order so they do not depend on the
+            // number of threads
+            List<BitSet> result = left.compute();
+            result.addAll(right.join());
+            return result;
+        }
+
+        private List<BitSet> extend () {
+            List<BitSet> result = new ArrayList<>();
+            for (int i = start; i < end; i++) {
                 // Handle cancellation
-                if (isCanceled()) {
-                    transversals.clear();
-                    return;
+                if (isCanceled.getAsBoolean()) {
+                    break;
+                }
+
+                BitSet transversal = missedTransversals.get(i);
+
+                // Keep the new transversals only if the cardinality
+                // conditions are satisfied (if applicable)
+                if ((maxCardinality > 0) && (transversal.cardinality() >= maxCardinality)) {
+                    continue;
                 }
 
-                if (transversal.intersects(edge)) {
-                    // If the transversal hits this edge, we don't need to extend it
-                    newTransversals.add(transversal);
-                } else {
-                    // Otherwise, we extend it by adding the elements
-                    // of the edge, one at a time
-                    for (int e = edge.nextSetBit(0); e >= 0; e = edge.nextSetBit(e+1)) {
-                        // Handle cancellation
-                        if (isCanceled()) {
-                            transversals.clear();
-                            return;
-                        }
-
-                        BitSet newTransversal = (BitSet) transversal.clone();
-                        newTransversal.set(e);
-
-                        assert newTransversal.cardinality() == transversal.cardinality() + 1;
-
-                        // Keep the new transversal if the cardinality conditions are satisfied (if applicable)
-                        if (!useMaxCardinality || newTransversal.cardinality() <= maxCardinalityBInt.getValue()) {
-                            newTransversals.add(newTransversal);
-                        }
+                for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                    BitSet newTransversal = (BitSet) transversal.clone();
+                    newTransversal.set(v);
+
+                    assert newTransversal.cardinality() == transversal.cardinality() + 1;
+
+                    if (!transversalIndex.containsProperSubsetOf(newTransversal)) {
+                        result.add(newTransversal);
                     }
                 }
             }
 
-            newTransversals = newTransversals.minimization();
-
-            transversals.clear();
-            transversals.addAll(newTransversals);
+            return result;
         }
-    
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public boolean boundsMHSSize () {
+        return useMaxCardinality;
+    }
 
     @Override
     public String fullName () {
@@ -157,6 +292,14 @@ public class BergeAlgorithm
             result.append("no max CI size");
         }
 
+        if (splitComponents) {
+            result.append("; by component");
+        }
+
+        if (useTimeBudget) {
+            result.append(String.format("; time budget: %d s", timeBudgetSeconds.getValue()));
+        }
+
         result.append(")");
         return result.toString();
     }
@@ -0,0 +1,300 @@
+/**
+ * Compact binary file format for hypergraphs
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader and writer for the binary hypergraph format.
+ * <p>
+ * All values are big-endian. A file consists of
+ * <ol>
+ * <li>a header: the magic number {@code "OCHG"}, the format version,
+ * the vertex count and the edge count (one {@code int} each) and the
+ * total number of vertex ids (one {@code long});</li>
+ * <li>the edge offsets: {@code numEdges + 1} {@code long}s, where edge
+ * {@code e} consists of the ids from offset {@code e} (inclusive) to
+ * offset {@code e + 1} (exclusive);</li>
+ * <li>the vertex ids of every edge, in increasing order within each
+ * edge, as {@code int}s.</li>
+ * </ol>
+ * Files are written in one streaming pass and read through
+ * memory-mapped windows, so neither direction parses text or builds
+ * intermediate strings.
+ * <p>
+ * The whitespace text format of {@link Hypergraph#Hypergraph(File)}
+ * and {@link Hypergraph#writeToFile(String)} is unchanged.
+ **/
+public final class BinaryHypergraphFile {
+    // "OCHG" in ASCII
+    static final int MAGIC = 0x4F434847;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+
+    // Largest region mapped at once; must be a multiple of 8
+    private static final long MAP_WINDOW_BYTES = 1L << 30;
+
+    private BinaryHypergraphFile () {}
+
+    /**
+     * Write a hypergraph to a binary file.
+     *
+     * @param H  the hypergraph to write
+     * @param outFile  the file to write
+     **/
+    public static void write (HypergraphStore H,
+                              File outFile)
+        throws IOException {
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+        Objects.requireNonNull(outFile, "File cannot be null");
+
+        int numE = H.numEdges();
+        long totalIds = 0;
+        for (int e = 0; e < numE; e++) {
+            totalIds += H.edgeCardinality(e);
+        }
+
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(H.numVerts());
+            out.writeInt(numE);
+            out.writeLong(totalIds);
+
+            long offset = 0;
+            out.writeLong(offset);
+            for (int e = 0; e < numE; e++) {
+                offset += H.edgeCardinality(e);
+                out.writeLong(offset);
+            }
+
+            for (int e = 0; e < numE; e++) {
+                BitSet edge = H.edgeAsBitSet(e);
+                for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                    out.writeInt(v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test whether a file starts with the binary hypergraph header.
+     *
+     * @param inFile  the file to test
+     **/
+    public static boolean isBinaryHypergraphFile (File inFile)
+        throws IOException {
+        if (inFile.length() < HEADER_BYTES) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(inFile))) {
+            return in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Read a binary hypergraph file into a {@link PackedHypergraph}.
+     *
+     * @param inFile  the file to read
+     **/
+    public static PackedHypergraph read (File inFile)
+        throws IOException {
+        try (Reader reader = new Reader(inFile)) {
+            PackedHypergraph result = new PackedHypergraph(reader.numVerts(), reader.numEdges());
+
+            int[] edge = new int[16];
+            for (int e = 0; e < reader.numEdges(); e++) {
+                int size = reader.nextEdgeSize();
+                if (size > edge.length) {
+                    edge = new int[Math.max(size, 2 * edge.length)];
+                }
+
+                reader.nextEdge(edge);
+                result.addEdge(edge, 0, size);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Sequential reader of the edges of a binary hypergraph file
+     * through memory-mapped windows.
+     * <p>
+     * Call {@link #nextEdgeSize()} and then {@link #nextEdge(int[])}
+     * once for each edge.
+     **/
+    static final class Reader
+        implements Closeable {
+        private final FileChannel channel;
+        private final int numVerts;
+        private final int numEdges;
+
+        private final MappedWindow offsets;
+        private final MappedWindow ids;
+
+        private long currentOffset;
+        private long nextOffset;
+
+        Reader (File inFile)
+            throws IOException {
+            channel = FileChannel.open(inFile.toPath(), StandardOpenOption.READ);
+
+            try {
+                long fileBytes = channel.size();
+                if (fileBytes < HEADER_BYTES) {
+                    throw new IOException("File " + inFile + " is too short to be a binary hypergraph.");
+                }
+
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt() != MAGIC) {
+                    throw new IOException("File " + inFile + " is not a binary hypergraph.");
+                }
+
+                int version = header.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported binary hypergraph version " + version + " in " + inFile + ".");
+                }
+
+                numVerts = header.getInt();
+                numEdges = header.getInt();
+                long totalIds = header.getLong();
+
+                if (numVerts < 0 || numEdges < 0 || totalIds < 0) {
+                    throw new IOException("Corrupt header in " + inFile + ".");
+                }
+
+                long offsetsStart = HEADER_BYTES;
+                long idsStart = offsetsStart + Long.BYTES * ((long) numEdges + 1);
+                long expectedBytes = idsStart + Integer.BYTES * totalIds;
+                if (fileBytes != expectedBytes) {
+                    throw new IOException("File " + inFile + " has " + fileBytes + " bytes but its header requires " + expectedBytes + ".");
+                }
+
+                offsets = new MappedWindow(channel, offsetsStart, idsStart);
+                ids = new MappedWindow(channel, idsStart, expectedBytes);
+
+                nextOffset = offsets.getLong();
+                if (nextOffset != 0) {
+                    throw new IOException("Corrupt edge offsets in " + inFile + ".");
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        int numVerts () {
+            return numVerts;
+        }
+
+        int numEdges () {
+            return numEdges;
+        }
+
+        /**
+         * Advance to the next edge and return its size.
+         **/
+        int nextEdgeSize ()
+            throws IOException {
+            currentOffset = nextOffset;
+            nextOffset = offsets.getLong();
+
+            long size = nextOffset - currentOffset;
+            if (size < 0 || size > numVerts) {
+                throw new IOException("Corrupt edge offsets.");
+            }
+
+            return (int) size;
+        }
+
+        /**
+         * Read the vertices of the current edge into an array.
+         **/
+        void nextEdge (int[] edge)
+            throws IOException {
+            int size = (int) (nextOffset - currentOffset);
+            for (int i = 0; i < size; i++) {
+                int v = ids.getInt();
+                if (v < 0 || v >= numVerts) {
+                    throw new IOException("Vertex id " + v + " out of range for " + numVerts + " vertices.");
+                }
+                edge[i] = v;
+            }
+        }
+
+        @Override
+        public void close ()
+            throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Sequential cursor over a region of a file which maps at most
+     * {@code MAP_WINDOW_BYTES} at a time, so regions larger than 2 GB
+     * can be read.
+     **/
+    private static final class MappedWindow {
+        private final FileChannel channel;
+        private final long end;
+
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedWindow (FileChannel channel,
+                      long start,
+                      long end)
+            throws IOException {
+            this.channel = channel;
+            this.end = end;
+            map(start);
+        }
+
+        private void map (long start)
+            throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_WINDOW_BYTES, end - start));
+        }
+
+        private void ensureRemaining (int bytes)
+            throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (end - position < bytes) {
+                    throw new EOFException("Unexpected end of binary hypergraph region.");
+                }
+                map(position);
+            }
+        }
+
+        long getLong ()
+            throws IOException {
+            ensureRemaining(Long.BYTES);
+            return window.getLong();
+        }
+
+        int getInt ()
+            throws IOException {
+            ensureRemaining(Integer.BYTES);
+            return window.getInt();
+        }
+    }
+}
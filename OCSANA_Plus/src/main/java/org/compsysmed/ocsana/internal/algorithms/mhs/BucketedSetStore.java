@@ -0,0 +1,105 @@
+/**
+ * Family of vertex sets bucketed by cardinality
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * Index of a family of vertex sets which keeps the sets of each
+ * cardinality in their own {@link SetTrie}.
+ * <p>
+ * A set can only have proper subsets among smaller sets, so a
+ * minimality check queries only the buckets below its cardinality
+ * and never looks at sets of the same size or larger.
+ * <p>
+ * NOTE: like {@link SetTrie}, this class is not thread safe for
+ * concurrent modification, but any number of threads may query it
+ * while it is not being modified.
+ **/
+final class BucketedSetStore {
+    // buckets.get(k) holds the sets of cardinality k, or is null if
+    // no such set has been stored
+    private final List<SetTrie> buckets = new ArrayList<>();
+    private int size = 0;
+
+    /**
+     * Return the number of distinct sets stored.
+     **/
+    int size () {
+        return size;
+    }
+
+    /**
+     * Store a set.
+     *
+     * @param set  the set to store
+     * @return true if the set was not already stored
+     **/
+    boolean add (BitSet set) {
+        int cardinality = set.cardinality();
+        while (buckets.size() <= cardinality) {
+            buckets.add(null);
+        }
+
+        SetTrie bucket = buckets.get(cardinality);
+        if (bucket == null) {
+            bucket = new SetTrie();
+            buckets.set(cardinality, bucket);
+        }
+
+        if (!bucket.add(set)) {
+            return false;
+        }
+
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove a set.
+     *
+     * @param set  the set to remove
+     * @return true if the set was stored
+     **/
+    boolean remove (BitSet set) {
+        int cardinality = set.cardinality();
+        if (cardinality >= buckets.size()) {
+            return false;
+        }
+
+        SetTrie bucket = buckets.get(cardinality);
+        if ((bucket == null) || !bucket.remove(set)) {
+            return false;
+        }
+
+        size--;
+        return true;
+    }
+
+    /**
+     * Test whether some stored set is a proper subset of a given set.
+     *
+     * @param set  the set to test
+     **/
+    boolean containsProperSubsetOf (BitSet set) {
+        int limit = Math.min(set.cardinality(), buckets.size());
+        for (int cardinality = 0; cardinality < limit; cardinality++) {
+            SetTrie bucket = buckets.get(cardinality);
+            if ((bucket != null) && !bucket.isEmpty() && bucket.containsSubsetOf(set)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copy-on-write table of critical edges for the SHD algorithms
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * For each vertex v, the set crit[v] of edges for which v is critical.
+ * <p>
+ * Only the vertices of the candidate hitting set have nonempty rows,
+ * so only those rows are stored. {@link #fork} shares the stored rows
+ * between the two tables instead of copying them, and each table
+ * copies a shared row the first time it modifies it. Forking thus
+ * costs one reference per vertex in the candidate hitting set, and a
+ * task pays for copying only the rows it actually changes.
+ * <p>
+ * A table is not thread-safe, but a table and its forks may be used
+ * by different threads.
+ **/
+final class CritTable {
+    // Returned for absent rows; never modified
+    private static final BitSet EMPTY = new BitSet(0);
+
+    // The nonempty rows, as parallel lists of vertices and their
+    // rows. The candidate hitting sets are small, so rows are found
+    // by scanning.
+    private int[] verts;
+    private BitSet[] rows;
+    private int size;
+
+    // Which rows belong to this table alone rather than being shared
+    // with a fork
+    private boolean[] owned;
+
+    /**
+     * Construct a table in which every row is empty.
+     **/
+    CritTable () {
+        this(new int[8], new BitSet[8], 0);
+    }
+
+    private CritTable (int[] verts,
+                       BitSet[] rows,
+                       int size) {
+        this.verts = verts;
+        this.rows = rows;
+        this.size = size;
+        this.owned = new boolean[verts.length];
+    }
+
+    /**
+     * Return crit[v] for reading.
+     * <p>
+     * The result must not be modified, and may change if this table
+     * is modified.
+     *
+     * @param v  the vertex
+     **/
+    BitSet get (int v) {
+        int i = indexOf(v);
+        return (i >= 0) ? rows[i] : EMPTY;
+    }
+
+    /**
+     * Determine whether crit[v] is empty.
+     *
+     * @param v  the vertex
+     **/
+    boolean isEmpty (int v) {
+        int i = indexOf(v);
+        return (i < 0) || rows[i].isEmpty();
+    }
+
+    /**
+     * Return crit[v] for modification, copying it first if it is
+     * shared with another table.
+     *
+     * @param v  the vertex
+     **/
+    BitSet mutableRow (int v) {
+        int i = indexOf(v);
+        if (i < 0) {
+            i = append(v, new BitSet());
+        } else if (!owned[i]) {
+            rows[i] = (BitSet) rows[i].clone();
+            owned[i] = true;
+        }
+
+        return rows[i];
+    }
+
+    /**
+     * Replace crit[v].
+     *
+     * @param v  the vertex
+     * @param row  the new row, which this table takes ownership of
+     **/
+    void set (int v,
+              BitSet row) {
+        Objects.requireNonNull(row, "Row cannot be null");
+
+        if (row.isEmpty()) {
+            clear(v);
+            return;
+        }
+
+        int i = indexOf(v);
+        if (i < 0) {
+            append(v, row);
+        } else {
+            rows[i] = row;
+            owned[i] = true;
+        }
+    }
+
+    /**
+     * Make crit[v] empty.
+     *
+     * @param v  the vertex
+     **/
+    void clear (int v) {
+        int i = indexOf(v);
+        if (i < 0) {
+            return;
+        }
+
+        // Move the last row into the gap
+        size--;
+        verts[i] = verts[size];
+        rows[i] = rows[size];
+        owned[i] = owned[size];
+        rows[size] = null;
+    }
+
+    /**
+     * Return a table with the same rows, sharing storage with this
+     * one until either is modified.
+     **/
+    CritTable fork () {
+        // Every stored row is now shared, so neither table may modify
+        // it in place
+        Arrays.fill(owned, 0, size, false);
+
+        int capacity = Math.max(size, 8);
+        return new CritTable(Arrays.copyOf(verts, capacity), Arrays.copyOf(rows, capacity), size);
+    }
+
+    private int indexOf (int v) {
+        for (int i = 0; i < size; i++) {
+            if (verts[i] == v) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private int append (int v,
+                        BitSet row) {
+        if (size == verts.length) {
+            int capacity = 2 * verts.length;
+            verts = Arrays.copyOf(verts, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            owned = Arrays.copyOf(owned, capacity);
+        }
+
+        verts[size] = v;
+        rows[size] = row;
+        owned[size] = true;
+        return size++;
+    }
+}
@@ -0,0 +1,450 @@
+/**
+ * Fredman-Khachiyan test of whether a family of MHSes is complete
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Checker of whether a family of MHSes of a hypergraph contains every
+ * MHS, after algorithm A of Fredman and Khachiyan.
+ * <p>
+ * Read the edges of a hypergraph F as the terms of a monotone Boolean
+ * function f and a family G of MHSes as those of a function g. Then a
+ * set x is a transversal of F exactly when the dual function
+ * f<sup>d</sup>(x) = &not;f(&not;x) is true, so G holds every MHS
+ * exactly when g = f<sup>d</sup>. Otherwise some x has
+ * f<sup>d</sup>(x) &ne; g(x): a transversal of F containing no member
+ * of G, which shrinks to an MHS missing from G.
+ * <p>
+ * The test splits on a vertex v, since g = f<sup>d</sup> exactly when
+ * this holds with v both false and true, and the restrictions of
+ * f<sup>d</sup> are the duals of the opposite restrictions of f. The
+ * cases are cut short when the terms are so few and large that a
+ * witness must exist, which is then found by the method of
+ * conditional expectations. (The other shortcut of algorithm A, an
+ * edge of F missing a member of G, cannot arise, since the members of
+ * G are checked to be MHSes.) Splitting on the vertex of highest
+ * frequency keeps the test within m<sup>O(log m)</sup> time for m =
+ * |F| + |G|, so its cost depends on the MHSes already found rather
+ * than on the search tree that enumerating them again would walk.
+ * <p>
+ * Each test starts from scratch, so {@link #complete} costs one test
+ * for each MHS it adds.
+ **/
+public final class DualityChecker {
+    private final List<BitSet> edges;
+
+    /**
+     * Construct a checker for the MHSes of a hypergraph.
+     *
+     * @param H  the hypergraph
+     **/
+    public DualityChecker (HypergraphStore H) {
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        List<BitSet> allEdges = new ArrayList<>(H.numEdges());
+        for (int e = 0; e < H.numEdges(); e++) {
+            allEdges.add(H.edgeAsBitSet(e));
+        }
+        edges = minimalSets(allEdges);
+    }
+
+    /**
+     * Find an MHS missing from a family of MHSes.
+     *
+     * @param MHSes  MHSes of the hypergraph
+     * @return an MHS not in the family, or null if the family holds
+     * every MHS
+     * @throws IllegalArgumentException if some member of the family
+     * is not an MHS
+     **/
+    public BitSet missingTransversal (Collection<BitSet> MHSes) {
+        checkTransversals(MHSes);
+
+        return missingTransversal(minimalSets(new ArrayList<>(MHSes)), () -> false);
+    }
+
+    /**
+     * Test whether a family of MHSes holds every MHS.
+     *
+     * @param MHSes  MHSes of the hypergraph
+     * @return true if every MHS is in the family
+     * @throws IllegalArgumentException if some member of the family
+     * is not an MHS
+     **/
+    public boolean isComplete (Collection<BitSet> MHSes) {
+        return missingTransversal(MHSes) == null;
+    }
+
+    /**
+     * Complete a family of MHSes, passing each missing MHS to a
+     * consumer.
+     * <p>
+     * The search stops when the family is complete, when the consumer
+     * returns false, or once it is canceled.
+     *
+     * @param MHSes  MHSes of the hypergraph
+     * @param consumer  to receive the missing MHSes; returns false to
+     * stop
+     * @param isCanceled  whether to stop the search
+     * @return true if the family, with the MHSes passed to the
+     * consumer, holds every MHS, false if the search was stopped
+     * first
+     * @throws IllegalArgumentException if some member of the family
+     * is not an MHS
+     **/
+    public boolean complete (Collection<BitSet> MHSes,
+                             MHSConsumer<? super BitSet> consumer,
+                             BooleanSupplier isCanceled) {
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        Objects.requireNonNull(isCanceled, "Cancellation check cannot be null");
+        checkTransversals(MHSes);
+
+        List<BitSet> family = minimalSets(new ArrayList<>(MHSes));
+        while (!isCanceled.getAsBoolean()) {
+            BitSet missing = missingTransversal(family, isCanceled);
+            if (missing == null) {
+                return !isCanceled.getAsBoolean();
+            }
+
+            family.add(missing);
+            if (!consumer.accept((BitSet) missing.clone())) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Find an MHS missing from a minimal family of MHSes, or null if
+     * there is none or the search was canceled.
+     **/
+    private BitSet missingTransversal (List<BitSet> family,
+                                       BooleanSupplier isCanceled) {
+        BitSet witness = new Search(isCanceled).witness(edges, family);
+        if (witness == null) {
+            return null;
+        }
+
+        if (!isTransversal(witness)) {
+            // Every member of the family is a transversal, so a
+            // witness is always a transversal containing none of them
+            throw new IllegalStateException("Duality witness " + witness + " is not a transversal.");
+        }
+
+        // Shrink the witness to an MHS, which is still missing since
+        // it contains no member of the family
+        for (int v = witness.nextSetBit(0); v >= 0; v = witness.nextSetBit(v+1)) {
+            witness.clear(v);
+            if (!isTransversal(witness)) {
+                witness.set(v);
+            }
+        }
+        return witness;
+    }
+
+    /**
+     * Check that every member of a family is an MHS.
+     **/
+    private void checkTransversals (Collection<BitSet> MHSes) {
+        Objects.requireNonNull(MHSes, "MHSes cannot be null");
+
+        for (BitSet mhs: MHSes) {
+            if (!isTransversal(mhs)) {
+                throw new IllegalArgumentException("Set " + mhs + " is not a transversal.");
+            }
+
+            BitSet smaller = (BitSet) mhs.clone();
+            for (int v = mhs.nextSetBit(0); v >= 0; v = mhs.nextSetBit(v+1)) {
+                smaller.clear(v);
+                if (isTransversal(smaller)) {
+                    throw new IllegalArgumentException("Transversal " + mhs + " is not minimal.");
+                }
+                smaller.set(v);
+            }
+        }
+    }
+
+    private boolean isTransversal (BitSet S) {
+        for (BitSet edge: edges) {
+            if (!edge.intersects(S)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the inclusion-minimal sets of a family, dropping
+     * duplicates. Unlike {@link Hypergraph#minimize()}, this keeps the
+     * empty set, which stands for a constant function.
+     **/
+    private static List<BitSet> minimalSets (List<BitSet> sets) {
+        List<BitSet> sorted = new ArrayList<>(sets);
+        sorted.sort(Comparator.comparingInt(BitSet::cardinality));
+
+        List<BitSet> result = new ArrayList<>();
+        SetTrie kept = new SetTrie();
+        for (BitSet set: sorted) {
+            if (set.isEmpty()) {
+                // The empty set is contained in every other set
+                return new ArrayList<>(Collections.singletonList(set));
+            }
+
+            if (!kept.containsSubsetOf(set)) {
+                kept.add(set);
+                result.add(set);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One run of the test
+     **/
+    private static final class Search {
+        private final BooleanSupplier isCanceled;
+
+        Search (BooleanSupplier isCanceled) {
+            this.isCanceled = isCanceled;
+        }
+
+        /**
+         * Find a set x with f<sup>d</sup>(x) &ne; g(x), where the
+         * vertices not in x are false.
+         *
+         * @param F  the terms of f, inclusion-minimal
+         * @param G  the terms of g, inclusion-minimal
+         * @return the set, or null if g = f<sup>d</sup> or the search
+         * was canceled
+         **/
+        BitSet witness (List<BitSet> F,
+                        List<BitSet> G) {
+            if (isCanceled.getAsBoolean()) {
+                return null;
+            }
+
+            // Constant functions: f = 0 has f^d = 1, and f = 1 has
+            // f^d = 0
+            if (F.isEmpty()) {
+                return isConstantTrue(G) ? null : new BitSet();
+            }
+
+            if (isConstantTrue(F)) {
+                return G.isEmpty() ? null : (BitSet) G.get(0).clone();
+            }
+
+            if (G.isEmpty()) {
+                return support(F);
+            }
+
+            if (isConstantTrue(G)) {
+                return new BitSet();
+            }
+
+            // Every term of g is a transversal of f, and splitting
+            // keeps it so, which settles the case of an edge missing a
+            // term (f^d = 0 and g = 1 off the edge) in advance
+            BitSet vertices = support(F);
+            vertices.or(support(G));
+
+            // Few, large terms leave room for a witness
+            BitSet x = sparseWitness(F, G, vertices);
+            if (x != null) {
+                return x;
+            }
+
+            // Split on the most frequent vertex
+            int v = splittingVertex(F, G, vertices);
+
+            List<BitSet> FWithout = new ArrayList<>();
+            List<BitSet> FRestricted = new ArrayList<>();
+            split(F, v, FWithout, FRestricted);
+
+            List<BitSet> GWithout = new ArrayList<>();
+            List<BitSet> GRestricted = new ArrayList<>();
+            split(G, v, GWithout, GRestricted);
+
+            // v false: g sees only its terms without v, and f^d is the
+            // dual of f with v true
+            x = witness(minimalSets(FRestricted), GWithout);
+            if ((x != null) || isCanceled.getAsBoolean()) {
+                return x;
+            }
+
+            // v true: the other way around
+            x = witness(FWithout, minimalSets(GRestricted));
+            if (x != null) {
+                x.set(v);
+            }
+            return x;
+        }
+
+        /**
+         * Find a witness by conditional expectations if the terms are
+         * few and large enough, or return null.
+         * <p>
+         * A random set y, with each vertex in it with probability 1/2,
+         * contains on average &Sigma; 2<sup>-|A|</sup> terms A of f,
+         * and its complement &Sigma; 2<sup>-|B|</sup> terms B of g.
+         * If the sum is below 1, fixing the vertices one at a time
+         * without raising it leaves a y containing no term of f whose
+         * complement contains no term of g. The complement x of y then
+         * has f<sup>d</sup>(x) = 1 and g(x) = 0.
+         **/
+        private static BitSet sparseWitness (List<BitSet> F,
+                                             List<BitSet> G,
+                                             BitSet vertices) {
+            if (expectedTerms(F, G, new BitSet(), new BitSet()) >= 1) {
+                return null;
+            }
+
+            BitSet in = new BitSet();
+            BitSet out = new BitSet();
+            for (int v = vertices.nextSetBit(0); v >= 0; v = vertices.nextSetBit(v+1)) {
+                in.set(v);
+                double expectedIn = expectedTerms(F, G, in, out);
+                in.clear(v);
+
+                out.set(v);
+                double expectedOut = expectedTerms(F, G, in, out);
+                out.clear(v);
+
+                if (expectedIn <= expectedOut) {
+                    in.set(v);
+                } else {
+                    out.set(v);
+                }
+            }
+
+            // Rounding may spoil the bound, so check the result
+            for (BitSet A: F) {
+                if (!A.intersects(out)) {
+                    return null;
+                }
+            }
+
+            for (BitSet B: G) {
+                if (!B.intersects(in)) {
+                    return null;
+                }
+            }
+
+            return out;
+        }
+
+        /**
+         * Return the expected number of terms of f in y and of g in
+         * the complement of y, given the vertices already put in and
+         * out of y.
+         **/
+        private static double expectedTerms (List<BitSet> F,
+                                             List<BitSet> G,
+                                             BitSet in,
+                                             BitSet out) {
+            double result = 0;
+            for (BitSet A: F) {
+                result += probability(A, out, in);
+            }
+            for (BitSet B: G) {
+                result += probability(B, in, out);
+            }
+            return result;
+        }
+
+        /**
+         * Return the probability that a random set contains a term,
+         * given the vertices it must miss and those it must contain.
+         **/
+        private static double probability (BitSet term,
+                                           BitSet missed,
+                                           BitSet contained) {
+            if (term.intersects(missed)) {
+                return 0;
+            }
+
+            BitSet free = (BitSet) term.clone();
+            free.andNot(contained);
+            return Math.scalb(1.0, -free.cardinality());
+        }
+
+        /**
+         * Return the vertex lying in the largest share of the terms of
+         * f or of g.
+         **/
+        private static int splittingVertex (List<BitSet> F,
+                                            List<BitSet> G,
+                                            BitSet vertices) {
+            int[] countF = frequencies(F, vertices.length());
+            int[] countG = frequencies(G, vertices.length());
+
+            int best = -1;
+            double bestShare = -1;
+            for (int v = vertices.nextSetBit(0); v >= 0; v = vertices.nextSetBit(v+1)) {
+                double share = Math.max((double) countF[v] / F.size(), (double) countG[v] / G.size());
+                if (share > bestShare) {
+                    best = v;
+                    bestShare = share;
+                }
+            }
+            return best;
+        }
+
+        private static int[] frequencies (List<BitSet> terms,
+                                          int numVerts) {
+            int[] result = new int[numVerts];
+            for (BitSet term: terms) {
+                for (int v = term.nextSetBit(0); v >= 0; v = term.nextSetBit(v+1)) {
+                    result[v]++;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Sort the terms of a function into those without a vertex
+         * and all the terms with the vertex removed, which are the
+         * terms of its restrictions with the vertex false and true.
+         **/
+        private static void split (List<BitSet> terms,
+                                   int v,
+                                   List<BitSet> without,
+                                   List<BitSet> restricted) {
+            for (BitSet term: terms) {
+                if (term.get(v)) {
+                    BitSet rest = (BitSet) term.clone();
+                    rest.clear(v);
+                    restricted.add(rest);
+                } else {
+                    without.add(term);
+                    restricted.add(term);
+                }
+            }
+        }
+
+        private static boolean isConstantTrue (List<BitSet> terms) {
+            return (terms.size() == 1) && terms.get(0).isEmpty();
+        }
+
+        private static BitSet support (List<BitSet> terms) {
+            BitSet result = new BitSet();
+            for (BitSet term: terms) {
+                result.or(term);
+            }
+            return result;
+        }
+    }
+}
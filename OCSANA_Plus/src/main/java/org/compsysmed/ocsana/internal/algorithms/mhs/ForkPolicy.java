@@ -0,0 +1,238 @@
+/**
+ * Policies for splitting parallel MHS searches into tasks
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Decides whether a branch of a fork-join search should be forked as
+ * a new task or searched in the current thread.
+ * <p>
+ * Forking lets idle workers steal the branch but costs a copy of the
+ * search state. The policies are
+ * <ul>
+ * <li>{@link Kind#FIXED}: fork while the current worker has fewer
+ * than four queued tasks (the original RS rule);</li>
+ * <li>{@link Kind#ADAPTIVE}: fork while the worker has few surplus
+ * tasks and the estimated size of the branch is large compared with
+ * the measured cost of copying its state;</li>
+ * <li>{@link Kind#SEQUENTIAL_BELOW_DEPTH}: fork every branch above a
+ * given depth and none below it.</li>
+ * </ul>
+ * In every case branches with at most two uncovered edges are not
+ * forked. Methods may be called from any worker thread.
+ **/
+public abstract class ForkPolicy {
+    /**
+     * The available policies
+     **/
+    public enum Kind {
+        FIXED("Fixed"),
+        ADAPTIVE("Adaptive"),
+        SEQUENTIAL_BELOW_DEPTH("Sequential below depth");
+
+        private final String name;
+
+        Kind (String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString () {
+            return name;
+        }
+    }
+
+    /**
+     * Construct a policy.
+     *
+     * @param kind  which policy to use
+     * @param sequentialDepth  for {@link Kind#SEQUENTIAL_BELOW_DEPTH},
+     * the depth at and below which branches are not forked
+     **/
+    static ForkPolicy of (Kind kind,
+                          int sequentialDepth) {
+        switch (kind) {
+        case ADAPTIVE:
+            return new AdaptivePolicy();
+
+        case SEQUENTIAL_BELOW_DEPTH:
+            return new SequentialBelowDepthPolicy(sequentialDepth);
+
+        case FIXED:
+        default:
+            return new FixedPolicy();
+        }
+    }
+
+    /**
+     * Decide whether to fork a branch.
+     *
+     * @param depth  the size of the candidate hitting set of the branch
+     * @param numUncovered  the number of edges it leaves uncovered
+     * @param remainingBudget  how many more vertices it may add (0 if
+     * unbounded)
+     * @param branching  the number of vertices its parent branched on,
+     * as an estimate of its own branching
+     **/
+    abstract boolean shouldFork (int depth,
+                                 int numUncovered,
+                                 int remainingBudget,
+                                 int branching);
+
+    /**
+     * Record the time taken to copy the state of a forked branch.
+     **/
+    void recordCopy (long nanos) {}
+
+    /**
+     * Record the time taken by a task and the number of search nodes
+     * it visited.
+     *
+     * @param depth  the size of the candidate hitting set the task
+     * started from
+     **/
+    void recordWork (int depth,
+                     long nanos,
+                     long nodes) {}
+
+    private static class FixedPolicy
+        extends ForkPolicy {
+        @Override
+        boolean shouldFork (int depth,
+                            int numUncovered,
+                            int remainingBudget,
+                            int branching) {
+            return (ForkJoinTask.getQueuedTaskCount() < 4) && (numUncovered > 2);
+        }
+    }
+
+    private static class SequentialBelowDepthPolicy
+        extends ForkPolicy {
+        private final int sequentialDepth;
+
+        SequentialBelowDepthPolicy (int sequentialDepth) {
+            if (sequentialDepth < 0) {
+                throw new IllegalArgumentException("Sequential depth cannot be negative.");
+            }
+
+            this.sequentialDepth = sequentialDepth;
+        }
+
+        @Override
+        boolean shouldFork (int depth,
+                            int numUncovered,
+                            int remainingBudget,
+                            int branching) {
+            return (depth < sequentialDepth) && (numUncovered > 2);
+        }
+    }
+
+    /**
+     * Fork when the estimated work of a branch, its estimated number
+     * of nodes at the measured cost per node, is at least {@code
+     * MIN_WORK_PER_COPY} times the measured cost of a copy.
+     * <p>
+     * A branch has at most as many nodes as a tree of the given
+     * branching with one level per vertex it may still add. If tasks
+     * starting at its depth, or failing that at the nearest depth
+     * below, have been measured, their average size (scaled up by
+     * the branching for each level between) is used instead when it
+     * is smaller. Only forked tasks are measured.
+     * <p>
+     * The estimates are running averages updated without
+     * synchronization; a lost update only delays adaptation.
+     **/
+    private static class AdaptivePolicy
+        extends ForkPolicy {
+        private static final int MAX_SURPLUS_TASKS = 3;
+        private static final double MIN_WORK_PER_COPY = 32d;
+        private static final double SMOOTHING = 0.125;
+        private static final int MAX_MEASURED_DEPTH = 64;
+
+        private volatile double copyNanos = 1000d;
+        private volatile double nodeNanos = 1000d;
+
+        // Average nodes per task by starting depth (0 if unmeasured)
+        private final double[] taskNodes = new double[MAX_MEASURED_DEPTH];
+
+        @Override
+        boolean shouldFork (int depth,
+                            int numUncovered,
+                            int remainingBudget,
+                            int branching) {
+            if ((numUncovered <= 2) || (ForkJoinTask.getSurplusQueuedTaskCount() > MAX_SURPLUS_TASKS)) {
+                return false;
+            }
+
+            // Each level adds a vertex and covers at least one edge
+            int levels = (remainingBudget > 0) ? Math.min(remainingBudget, numUncovered) : numUncovered;
+            double estimatedNodes = Math.min(maxNodes(branching, levels), measuredNodes(depth, branching));
+
+            return estimatedNodes * nodeNanos >= MIN_WORK_PER_COPY * copyNanos;
+        }
+
+        /**
+         * Return the number of nodes of a tree of the given branching
+         * and number of levels below its root, counting the root.
+         **/
+        private static double maxNodes (int branching,
+                                        int levels) {
+            double b = Math.max(branching, 1);
+            double nodes = 1d;
+            double levelNodes = 1d;
+            for (int level = 0; (level < levels) && (nodes < Double.MAX_VALUE); level++) {
+                levelNodes *= b;
+                nodes += levelNodes;
+            }
+            return nodes;
+        }
+
+        /**
+         * Return the measured number of nodes of a task at a given
+         * depth, extrapolated from the nearest measured depth below
+         * if necessary, or infinity if there is none.
+         **/
+        private double measuredNodes (int depth,
+                                      int branching) {
+            double scale = 1d;
+            for (int d = depth; d < MAX_MEASURED_DEPTH; d++) {
+                double nodes = taskNodes[d];
+                if (nodes > 0) {
+                    return scale * nodes;
+                }
+                scale *= Math.max(branching, 1);
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        void recordCopy (long nanos) {
+            copyNanos += SMOOTHING * (nanos - copyNanos);
+        }
+
+        @Override
+        void recordWork (int depth,
+                         long nanos,
+                         long nodes) {
+            if (nodes > 0) {
+                nodeNanos += SMOOTHING * ((double) nanos / nodes - nodeNanos);
+
+                if (depth < MAX_MEASURED_DEPTH) {
+                    double previous = taskNodes[depth];
+                    taskNodes[depth] = (previous > 0) ? previous + SMOOTHING * (nodes - previous) : nodes;
+                }
+            }
+        }
+    }
+}
@@ -11,15 +11,25 @@ import java.util.*;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Implementation of hypergraphs/set families
  **/
 
 public class Hypergraph
-    extends ArrayList<BitSet> {
+    extends ArrayList<BitSet>
+    implements HypergraphStore {
     // TODO: Do we need a no-arg constructor?
     // TODO: Document throws
 
+    // Edge count above which minimize() runs in parallel
+    private static final int PARALLEL_MINIMIZATION_THRESHOLD = 8192;
+
+    // Number of edges checked sequentially by one minimization task
+    private static final int MINIMIZATION_GRAIN = 1024;
+
     private int numVerts;
 
     /**
@@ -159,6 +169,8 @@ public class Hypergraph
      * The edges will be written one per line, with the indices of the
      * vertices of that edge as a space-separated list.
      *
+     * See {@link BinaryHypergraphFile} for a more compact format.
+     *
      * @param outFile  path of file to write
      **/
     public void writeToFile(String outFile)
@@ -166,12 +178,11 @@ public class Hypergraph
         try (BufferedWriter fileWriter =
              new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outFile), StandardCharsets.UTF_8))) {
             for (BitSet edge: this) {
-                StringBuilder lineBuilder = new StringBuilder();
                 for (int i = edge.nextSetBit(0); i >= 0; i = edge.nextSetBit(i+1)) {
-                    lineBuilder.append(i + " ");
+                    fileWriter.write(Integer.toString(i));
+                    fileWriter.write(' ');
                 }
-                lineBuilder.append("\n");
-                fileWriter.write(lineBuilder.toString());
+                fileWriter.write('\n');
             }
         }
     };
@@ -181,6 +192,7 @@ public class Hypergraph
      *
      * @return number of vertices
      **/
+    @Override
     public int numVerts () {
         return numVerts;
     };
@@ -205,68 +217,197 @@ public class Hypergraph
      *
      * @return number of edges
      **/
+    @Override
     public int numEdges () {
         return size();
     };
 
+    @Override
+    public int edgeCardinality (int edge) {
+        return get(edge).cardinality();
+    }
+
+    @Override
+    public boolean edgeContains (int edge, int v) {
+        return get(edge).get(v);
+    }
+
+    @Override
+    public boolean edgeIntersects (int edge, BitSet S) {
+        return get(edge).intersects(S);
+    }
+
+    @Override
+    public boolean edgeIsSubsetOf (int edge, BitSet S) {
+        BitSet difference = (BitSet) get(edge).clone();
+        difference.andNot(S);
+        return difference.isEmpty();
+    }
+
+    @Override
+    public BitSet edgeAsBitSet (int edge) {
+        return (BitSet) get(edge).clone();
+    }
+
     /**
      * Minimize this {@code Hypergraph} in place.
      *
      * That is, discard any edge which is a superset of any other edge.
      *
+     * Large hypergraphs are minimized in parallel on the common
+     * {@code ForkJoinPool} when it has more than one thread; see
+     * {@link #minimize(ForkJoinPool)}.
+     *
      * NOTE: The implementation of this algorithm will re-order edges.
      **/
     public void minimize () {
+        if ((size() >= PARALLEL_MINIMIZATION_THRESHOLD) && (ForkJoinPool.getCommonPoolParallelism() > 1)) {
+            minimize(ForkJoinPool.commonPool());
+            return;
+        }
+
         if (size() == 0) {
             return;
         }
 
-        // Sort edges by increasing cardinality, since subsets must be
-        // smaller than their supersets
-        List<BitSet> edgesSortedByIncreasingCardinality = new ArrayList<> (this);
-        Collections.sort(edgesSortedByIncreasingCardinality, new Comparator<BitSet>() {
-                @Override
-                public int compare(BitSet left, BitSet right) {
-                    return left.cardinality() - right.cardinality();
-                }
-            });
+        List<BitSet> edgesSortedByIncreasingCardinality = edgesSortedByIncreasingCardinality();
 
-        // Build a new hypergraph with only the inclusion-minimal edges
+        // Build a new hypergraph with only the inclusion-minimal
+        // edges, indexing the confirmed edges for subset queries
         this.clear();
+        SetTrie confirmedEdges = new SetTrie();
         for (BitSet edge: edgesSortedByIncreasingCardinality) {
             if (edge.isEmpty()) {
                 continue;
             }
 
-            // Check whether any confirmed edge is a subset of this edge
-            boolean edgeIsMinimal = true;
-            for (BitSet confirmedEdge: this) {
-                BitSet intersection = (BitSet) confirmedEdge.clone();
-                intersection.and(edge);
+            // Add the edge if no confirmed edge is a subset of it
+            if (!confirmedEdges.containsSubsetOf(edge)) {
+                confirmedEdges.add(edge);
+                add(edge);
+            }
+        }
+
+        updateNumVerts();
+    }
 
-                if (intersection.equals(confirmedEdge)) {
-                    edgeIsMinimal = false;
-                    break;
-                }
+    /**
+     * Minimize this {@code Hypergraph} in place using a given pool.
+     *
+     * The edges are bucketed by cardinality and each edge is checked
+     * against the buckets of strictly smaller edges. An edge which
+     * contains any smaller edge is not minimal, whether or not that
+     * smaller edge is itself minimal, so the checks are independent
+     * and can run concurrently. The result, including the order of
+     * its edges, is the same as that of the sequential algorithm
+     * regardless of the number of threads.
+     *
+     * NOTE: The implementation of this algorithm will re-order edges.
+     *
+     * @param pool  the pool to run the checks on
+     **/
+    public void minimize (ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "Pool cannot be null");
+
+        if (size() == 0) {
+            return;
+        }
+
+        // Discard empty and repeated edges, keeping the first copy of
+        // each so the result matches the sequential algorithm
+        Set<BitSet> distinctEdges = new LinkedHashSet<>();
+        for (BitSet edge: edgesSortedByIncreasingCardinality()) {
+            if (!edge.isEmpty()) {
+                distinctEdges.add(edge);
             }
+        }
 
-            // Add the edge if appropriate
-            if (edgeIsMinimal) {
-                add(edge);
+        BitSet[] edges = distinctEdges.toArray(new BitSet[distinctEdges.size()]);
+
+        // Index every edge; the index is read-only from here on
+        SetTrie edgeIndex = new SetTrie();
+        for (BitSet edge: edges) {
+            edgeIndex.add(edge);
+        }
+
+        boolean[] edgeIsMinimal = new boolean[edges.length];
+        pool.invoke(new MinimalityCheckTask(edges, edgeIndex, edgeIsMinimal, 0, edges.length));
+
+        this.clear();
+        for (int i = 0; i < edges.length; i++) {
+            if (edgeIsMinimal[i]) {
+                add(edges[i]);
             }
         }
 
         updateNumVerts();
     }
 
+    /**
+     * Return the edges of this sorted by increasing cardinality.
+     *
+     * The sort is stable, so edges of equal cardinality keep their
+     * relative order.
+     **/
+    private List<BitSet> edgesSortedByIncreasingCardinality () {
+        // Subsets must be smaller than their supersets
+        List<BitSet> result = new ArrayList<> (this);
+        Collections.sort(result, new Comparator<BitSet>() {
+                @Override
+                public int compare(BitSet left, BitSet right) {
+                    return left.cardinality() - right.cardinality();
+                }
+            });
+        return result;
+    }
+
+    /**
+     * Task checking a range of edges for minimality against an index
+     * of all edges
+     **/
+    private static class MinimalityCheckTask
+        extends RecursiveAction {
+        private final BitSet[] edges;
+        private final SetTrie edgeIndex;
+        private final boolean[] edgeIsMinimal;
+        private final int start;
+        private final int end;
+
+        MinimalityCheckTask (BitSet[] edges,
+                             SetTrie edgeIndex,
+                             boolean[] edgeIsMinimal,
+                             int start,
+                             int end) {
+            this.edges = edges;
+            this.edgeIndex = edgeIndex;
+            this.edgeIsMinimal = edgeIsMinimal;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute () {
+            if (end - start <= MINIMIZATION_GRAIN) {
+                for (int i = start; i < end; i++) {
+                    edgeIsMinimal[i] = !edgeIndex.containsProperSubsetOf(edges[i]);
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new MinimalityCheckTask(edges, edgeIndex, edgeIsMinimal, start, middle),
+                      new MinimalityCheckTask(edges, edgeIndex, edgeIsMinimal, middle, end));
+        }
+    }
+
     /**
      * Return the minimization of this {@code Hypergraph}.
      *
      * The result has the same vertices as this and all the
      * inclusion-minimal edges of this.
      *
-     * Note: this algorithm is O(n²) and should be used with caution
-     * in performance-sensitive contexts.
+     * Note: this copies every edge; use {@link #minimize()} when the
+     * original is no longer needed.
      *
      * @return a new {@code Hypergraph} which is the minimization of
      * this
@@ -290,6 +431,7 @@ public class Hypergraph
      *
      * @return a new {@code Hypergraph} which is the transpose of this
      **/
+    @Override
     public Hypergraph transpose () {
         int numE = numEdges();
 
@@ -321,32 +463,13 @@ public class Hypergraph
         return result;
     };
 
-    /**
-     * Return the degree list of this {@code Hypergraph}.
-     *
-     * @return a {@code List<Integer>} where the value in position i
-     * is the degree of vertex i
-     **/
-    public List<Integer> vertexDegrees () {
-        List<Integer> result = new ArrayList<> ();
-
-        for (BitSet edge: this) {
-            for (int v = 0; v < numVerts(); v++) {
-                if (edge.get(v)) {
-                    result.set(v, result.get(v) + 1);
-                }
-            }
-        }
-
-        return result;
-    };
-
     /**
      * Test whether a given set is a hitting set of this.
      *
      * @param S  a candidate hitting set
      * @return true if S hits every edge, false if not
      **/
+    @Override
     public boolean isTransversedBy (BitSet S) {
         for (BitSet edge: this) {
             if (! edge.intersects(S)) {
@@ -363,11 +486,12 @@ public class Hypergraph
      * @param S  a candidate edge-covering set
      * @return true if some edge is a subset of S, false if not
      **/
+    @Override
     public boolean hasEdgeCoveredBy (BitSet S) {
         for (BitSet edge: this) {
             BitSet intersection = (BitSet) edge.clone();
             intersection.and(S);
-            if (intersection == edge) {
+            if (intersection.equals(edge)) {
                 return true;
             }
         }
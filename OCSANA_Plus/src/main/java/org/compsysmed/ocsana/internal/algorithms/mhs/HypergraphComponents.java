@@ -0,0 +1,373 @@
+/**
+ * Decomposition of a hypergraph into vertex-disjoint components
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Connected components of a hypergraph.
+ * <p>
+ * Two vertices are connected if some chain of edges, each meeting the
+ * next, joins them. Edges of different components share no vertices,
+ * so a set is an MHS of the hypergraph exactly when it is the union of
+ * one MHS of each component. {@link #transversals(Function, int)}
+ * solves the components independently and enumerates those unions.
+ **/
+public class HypergraphComponents {
+    private final HypergraphStore H;
+    private final boolean hasEmptyEdge;
+
+    // componentVertices[i] lists the vertices of component i in increasing order
+    private final int[][] componentVertices;
+    private final PackedHypergraph[] components;
+
+    /**
+     * Split a hypergraph into its connected components.
+     *
+     * @param H  the hypergraph to split
+     **/
+    public HypergraphComponents (HypergraphStore H) {
+        this.H = Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        int numVerts = H.numVerts();
+        int numEdges = H.numEdges();
+
+        // Union the vertices of each edge
+        int[] parent = new int[numVerts];
+        for (int v = 0; v < numVerts; v++) {
+            parent[v] = v;
+        }
+
+        boolean foundEmptyEdge = false;
+        int[] firstVertexOfEdge = new int[numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            BitSet edge = H.edgeAsBitSet(e);
+            int first = edge.nextSetBit(0);
+            firstVertexOfEdge[e] = first;
+            if (first < 0) {
+                foundEmptyEdge = true;
+                continue;
+            }
+
+            for (int v = edge.nextSetBit(first + 1); v >= 0; v = edge.nextSetBit(v+1)) {
+                union(parent, first, v);
+            }
+        }
+        hasEmptyEdge = foundEmptyEdge;
+
+        // Number the components in order of their smallest vertices,
+        // skipping vertices in no edge
+        BitSet support = new BitSet(numVerts);
+        for (int e = 0; e < numEdges; e++) {
+            if (firstVertexOfEdge[e] >= 0) {
+                support.or(H.edgeAsBitSet(e));
+            }
+        }
+
+        int[] componentOfRoot = new int[numVerts];
+        Arrays.fill(componentOfRoot, -1);
+        int[] localIndex = new int[numVerts];
+        List<List<Integer>> vertexLists = new ArrayList<>();
+        for (int v = support.nextSetBit(0); v >= 0; v = support.nextSetBit(v+1)) {
+            int root = find(parent, v);
+            if (componentOfRoot[root] < 0) {
+                componentOfRoot[root] = vertexLists.size();
+                vertexLists.add(new ArrayList<>());
+            }
+
+            List<Integer> vertices = vertexLists.get(componentOfRoot[root]);
+            localIndex[v] = vertices.size();
+            vertices.add(v);
+        }
+
+        componentVertices = new int[vertexLists.size()][];
+        components = new PackedHypergraph[vertexLists.size()];
+        for (int i = 0; i < components.length; i++) {
+            componentVertices[i] = vertexLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+            components[i] = new PackedHypergraph(componentVertices[i].length);
+        }
+
+        // Distribute the edges, renumbering their vertices
+        int[] localEdge = new int[numVerts];
+        for (int e = 0; e < numEdges; e++) {
+            if (firstVertexOfEdge[e] < 0) {
+                continue;
+            }
+
+            BitSet edge = H.edgeAsBitSet(e);
+            int size = 0;
+            for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                localEdge[size++] = localIndex[v];
+            }
+            components[componentOfRoot[find(parent, firstVertexOfEdge[e])]].addEdge(localEdge, 0, size);
+        }
+    }
+
+    private static int find (int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static void union (int[] parent, int u, int v) {
+        int uRoot = find(parent, u);
+        int vRoot = find(parent, v);
+        if (uRoot < vRoot) {
+            parent[vRoot] = uRoot;
+        } else if (vRoot < uRoot) {
+            parent[uRoot] = vRoot;
+        }
+    }
+
+    /**
+     * Return the number of components.
+     **/
+    public int numComponents () {
+        return components.length;
+    }
+
+    /**
+     * Return a component as a hypergraph on its own vertices.
+     * <p>
+     * Vertex {@code j} of the component is vertex {@code
+     * componentVertices(i)[j]} of the original hypergraph.
+     *
+     * @param i  the index of the component
+     **/
+    public PackedHypergraph component (int i) {
+        return components[i];
+    }
+
+    /**
+     * Return the original vertices of a component.
+     *
+     * @param i  the index of the component
+     **/
+    public int[] componentVertices (int i) {
+        return componentVertices[i].clone();
+    }
+
+    /**
+     * Compute the MHSes of the original hypergraph by solving each
+     * component separately.
+     * <p>
+     * The components are solved one after another, in order, so a
+     * solver may run each search on all cores. The result is a view
+     * which enumerates the unions of one MHS per component as it is
+     * iterated over; when {@code maxCardinality} is positive, unions
+     * larger than it are skipped without being built. If the
+     * hypergraph has no edges, it is passed to {@code solver} whole.
+     *
+     * @param solver  function returning the MHSes of a hypergraph,
+     * each of size at most {@code maxCardinality} if that is positive
+     * @param maxCardinality  largest size MHS to return (0 to return
+     * all)
+     **/
+    public Collection<BitSet> transversals (Function<HypergraphStore, ? extends Collection<BitSet>> solver,
+                                            int maxCardinality) {
+        Objects.requireNonNull(solver, "Solver cannot be null");
+
+        if (hasEmptyEdge) {
+            return Collections.emptyList();
+        }
+
+        if (components.length == 0) {
+            return solver.apply(H);
+        }
+
+        // Solve the components and translate back to the original
+        // vertices, smallest MHSes first
+        List<List<BitSet>> factors = new ArrayList<>(components.length);
+        for (int i = 0; i < components.length; i++) {
+            factors.add(globalTransversals(i, solver.apply(components[i])));
+        }
+
+        return new ProductCollection(factors, maxCardinality);
+    }
+
+    private List<BitSet> globalTransversals (int i,
+                                             Collection<BitSet> localTransversals) {
+        List<BitSet> result = new ArrayList<>(localTransversals.size());
+        for (BitSet localTransversal: localTransversals) {
+            BitSet transversal = new BitSet();
+            for (int j = localTransversal.nextSetBit(0); j >= 0; j = localTransversal.nextSetBit(j+1)) {
+                transversal.set(componentVertices[i][j]);
+            }
+            result.add(transversal);
+        }
+
+        result.sort(Comparator.comparingInt(BitSet::cardinality));
+        return result;
+    }
+
+    /**
+     * Collection of the unions of one set from each of several lists,
+     * optionally bounded in size.
+     **/
+    private static class ProductCollection
+        extends AbstractCollection<BitSet> {
+        // Each factor is sorted by increasing cardinality
+        private final List<List<BitSet>> factors;
+        private final int maxCardinality;
+
+        // minSizeAfter[i] is the smallest total size of a choice from
+        // factors i, i+1, ...
+        private final int[] minSizeAfter;
+
+        ProductCollection (List<List<BitSet>> factors,
+                           int maxCardinality) {
+            this.factors = factors;
+            this.maxCardinality = maxCardinality;
+
+            minSizeAfter = new int[factors.size() + 1];
+            for (int i = factors.size() - 1; i >= 0; i--) {
+                List<BitSet> factor = factors.get(i);
+                int minSize = factor.isEmpty() ? 0 : factor.get(0).cardinality();
+                minSizeAfter[i] = minSizeAfter[i+1] + minSize;
+            }
+        }
+
+        @Override
+        public Iterator<BitSet> iterator () {
+            return new ProductIterator();
+        }
+
+        @Override
+        public int size () {
+            for (List<BitSet> factor: factors) {
+                if (factor.isEmpty()) {
+                    return 0;
+                }
+            }
+
+            long total;
+            if (maxCardinality <= 0) {
+                total = 1;
+                for (List<BitSet> factor: factors) {
+                    total = saturatedMultiply(total, factor.size());
+                }
+            } else {
+                // Count the choices of each total size
+                long[] counts = new long[maxCardinality + 1];
+                counts[0] = 1;
+                for (List<BitSet> factor: factors) {
+                    long[] newCounts = new long[maxCardinality + 1];
+                    for (BitSet set: factor) {
+                        int size = set.cardinality();
+                        for (int s = 0; s + size <= maxCardinality; s++) {
+                            newCounts[s + size] = saturatedAdd(newCounts[s + size], counts[s]);
+                        }
+                    }
+                    counts = newCounts;
+                }
+
+                total = 0;
+                for (long count: counts) {
+                    total = saturatedAdd(total, count);
+                }
+            }
+
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        }
+
+        private static long saturatedAdd (long a, long b) {
+            long sum = a + b;
+            return (sum < 0) ? Long.MAX_VALUE : sum;
+        }
+
+        private static long saturatedMultiply (long a, long b) {
+            if (a != 0 && b > Long.MAX_VALUE / a) {
+                return Long.MAX_VALUE;
+            }
+            return a * b;
+        }
+
+        /**
+         * Depth-first walk over the choices, backtracking as soon as
+         * the smallest completion of a partial choice is too large.
+         **/
+        private class ProductIterator
+            implements Iterator<BitSet> {
+            private final int numFactors = factors.size();
+            private final int[] choice = new int[numFactors];
+
+            // sizeBefore[i] is the total size of the choices from factors 0, ..., i-1
+            private final int[] sizeBefore = new int[numFactors + 1];
+
+            private boolean hasNext;
+
+            ProductIterator () {
+                hasNext = search(0);
+            }
+
+            private boolean fits (int level, int c) {
+                return (maxCardinality <= 0)
+                    || (sizeBefore[level] + factors.get(level).get(c).cardinality() + minSizeAfter[level + 1] <= maxCardinality);
+            }
+
+            /**
+             * Complete the choice from a given level on, starting
+             * from the current choice at that level.
+             **/
+            private boolean search (int level) {
+                while (level >= 0) {
+                    if (level == numFactors) {
+                        return true;
+                    }
+
+                    int c = choice[level];
+                    if (c < factors.get(level).size() && fits(level, c)) {
+                        sizeBefore[level + 1] = sizeBefore[level] + factors.get(level).get(c).cardinality();
+                        level++;
+                        if (level < numFactors) {
+                            choice[level] = 0;
+                        }
+                    } else {
+                        // Later sets in this factor are no smaller, so backtrack
+                        level--;
+                        if (level >= 0) {
+                            choice[level]++;
+                        }
+                    }
+                }
+
+                return false;
+            }
+
+            @Override
+            public boolean hasNext () {
+                return hasNext;
+            }
+
+            @Override
+            public BitSet next () {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+
+                BitSet result = new BitSet();
+                for (int i = 0; i < numFactors; i++) {
+                    result.or(factors.get(i).get(choice[i]));
+                }
+
+                choice[numFactors - 1]++;
+                hasNext = search(numFactors - 1);
+
+                return result;
+            }
+        }
+    }
+}
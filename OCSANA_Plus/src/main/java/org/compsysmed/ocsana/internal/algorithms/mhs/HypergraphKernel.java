@@ -0,0 +1,264 @@
+/**
+ * Reduction of a hypergraph to a smaller one with the same transversals
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * Kernel of a hypergraph for MHS enumeration.
+ * <p>
+ * Two reductions are applied, both of which preserve every MHS:
+ * <ul>
+ * <li>Each vertex of a singleton edge is <em>forced</em>: it lies in
+ * every MHS. Edges containing a forced vertex are hit by it and are
+ * dropped.</li>
+ * <li>Vertices which lie in exactly the same remaining edges are
+ * <em>twins</em>. An MHS contains at most one vertex of each twin
+ * class, and any vertex of the class may be swapped for any other, so
+ * each class is collapsed to a single vertex.</li>
+ * </ul>
+ * The remaining edges, written in terms of twin classes, form the
+ * {@link #reducedHypergraph()}. Each MHS of that hypergraph stands for
+ * the MHSes of the original hypergraph made up of the forced vertices
+ * and one vertex of each of its classes; {@link #expand(Collection)}
+ * enumerates these on demand.
+ **/
+public class HypergraphKernel {
+    private final int numVerts;
+    private final int numEdges;
+    private final BitSet forcedVertices;
+
+    // classes[c] lists the original vertices in twin class c, in increasing order
+    private final int[][] classes;
+
+    private final PackedHypergraph reducedHypergraph;
+
+    /**
+     * Compute the kernel of a hypergraph.
+     *
+     * @param H  the hypergraph to reduce
+     **/
+    public HypergraphKernel (HypergraphStore H) {
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        numVerts = H.numVerts();
+        numEdges = H.numEdges();
+
+        // Collect the forced vertices
+        forcedVertices = new BitSet(numVerts);
+        for (int e = 0; e < numEdges; e++) {
+            if (H.edgeCardinality(e) == 1) {
+                forcedVertices.or(H.edgeAsBitSet(e));
+            }
+        }
+
+        // Keep the edges which no forced vertex hits
+        PackedHypergraph remainingEdges = new PackedHypergraph(numVerts);
+        for (int e = 0; e < numEdges; e++) {
+            if (!H.edgeIntersects(e, forcedVertices)) {
+                remainingEdges.addEdge(H.edgeAsBitSet(e));
+            }
+        }
+
+        // Group vertices by their columns in the remaining edges
+        PackedHypergraph columns = remainingEdges.transpose();
+        Map<BitSet, Integer> classOfColumn = new HashMap<>();
+        List<List<Integer>> classMembers = new ArrayList<>();
+        int[] vertexClass = new int[numVerts];
+        for (int v = 0; v < numVerts; v++) {
+            if (columns.edgeCardinality(v) == 0) {
+                vertexClass[v] = -1;
+                continue;
+            }
+
+            BitSet column = columns.edgeAsBitSet(v);
+            Integer c = classOfColumn.get(column);
+            if (c == null) {
+                c = classMembers.size();
+                classOfColumn.put(column, c);
+                classMembers.add(new ArrayList<>());
+            }
+
+            vertexClass[v] = c;
+            classMembers.get(c).add(v);
+        }
+
+        classes = new int[classMembers.size()][];
+        for (int c = 0; c < classes.length; c++) {
+            classes[c] = classMembers.get(c).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Rewrite the remaining edges in terms of classes
+        reducedHypergraph = new PackedHypergraph(classes.length, remainingEdges.numEdges());
+        int[] classEdge = new int[classes.length];
+        for (int e = 0; e < remainingEdges.numEdges(); e++) {
+            int size = 0;
+            for (int v = remainingEdges.nextVertex(e, 0); v >= 0; v = remainingEdges.nextVertex(e, v+1)) {
+                int c = vertexClass[v];
+                if (classes[c][0] == v) {
+                    classEdge[size++] = c;
+                }
+            }
+            reducedHypergraph.addEdge(classEdge, 0, size);
+        }
+    }
+
+    /**
+     * Return the hypergraph on twin classes whose MHSes should be
+     * found.
+     * <p>
+     * Vertex {@code c} of this hypergraph is the twin class {@link
+     * #vertexClass(int) vertexClass(c)}.
+     **/
+    public PackedHypergraph reducedHypergraph () {
+        return reducedHypergraph;
+    }
+
+    /**
+     * Return the vertices which lie in every MHS.
+     **/
+    public BitSet forcedVertices () {
+        return (BitSet) forcedVertices.clone();
+    }
+
+    /**
+     * Return the number of vertices which lie in every MHS.
+     **/
+    public int numForcedVertices () {
+        return forcedVertices.cardinality();
+    }
+
+    /**
+     * Return the number of twin classes.
+     **/
+    public int numClasses () {
+        return classes.length;
+    }
+
+    /**
+     * Return the original vertices in a twin class.
+     *
+     * @param c  the index of the class
+     **/
+    public int[] vertexClass (int c) {
+        return classes[c].clone();
+    }
+
+    /**
+     * Return the number of MHSes of the original hypergraph which an
+     * MHS of the reduced hypergraph stands for.
+     *
+     * @param classTransversal  an MHS of {@link #reducedHypergraph()}
+     * @return the product of the sizes of its classes, or {@code
+     * Long.MAX_VALUE} if that overflows
+     **/
+    public long numExpansions (BitSet classTransversal) {
+        long result = 1;
+        for (int c = classTransversal.nextSetBit(0); c >= 0; c = classTransversal.nextSetBit(c+1)) {
+            int size = classes[c].length;
+            if (result > Long.MAX_VALUE / size) {
+                return Long.MAX_VALUE;
+            }
+            result *= size;
+        }
+        return result;
+    }
+
+    /**
+     * Return the MHSes of the original hypergraph given the MHSes of
+     * the reduced hypergraph.
+     * <p>
+     * The result is a view: each concrete MHS is built only when the
+     * iteration reaches it, so classes with many twins do not
+     * multiply the memory used. If the original hypergraph has no
+     * edges, the result is empty.
+     *
+     * @param classTransversals  MHSes of {@link #reducedHypergraph()}
+     **/
+    public Collection<BitSet> expand (Collection<BitSet> classTransversals) {
+        Objects.requireNonNull(classTransversals, "Collection of transversals cannot be null");
+
+        if (numEdges == 0) {
+            return Collections.emptyList();
+        }
+
+        return new AbstractCollection<BitSet>() {
+            @Override
+            public Iterator<BitSet> iterator () {
+                return new ExpansionIterator(classTransversals.iterator());
+            }
+
+            @Override
+            public int size () {
+                long total = 0;
+                for (BitSet classTransversal: classTransversals) {
+                    total += numExpansions(classTransversal);
+                    if (total >= Integer.MAX_VALUE || total < 0) {
+                        return Integer.MAX_VALUE;
+                    }
+                }
+                return (int) total;
+            }
+        };
+    }
+
+    /**
+     * Iterator over every choice of one vertex per class for each of a
+     * sequence of class transversals.
+     **/
+    private class ExpansionIterator
+        implements Iterator<BitSet> {
+        private final Iterator<BitSet> classTransversals;
+
+        // Classes of the current transversal and the chosen member of each
+        private int[] currentClasses;
+        private int[] choices;
+        private boolean hasCurrent = false;
+
+        ExpansionIterator (Iterator<BitSet> classTransversals) {
+            this.classTransversals = classTransversals;
+        }
+
+        @Override
+        public boolean hasNext () {
+            return hasCurrent || classTransversals.hasNext();
+        }
+
+        @Override
+        public BitSet next () {
+            if (!hasCurrent) {
+                BitSet classTransversal = classTransversals.next();
+                currentClasses = classTransversal.stream().toArray();
+                choices = new int[currentClasses.length];
+                hasCurrent = true;
+            }
+
+            BitSet result = (BitSet) forcedVertices.clone();
+            for (int i = 0; i < currentClasses.length; i++) {
+                result.set(classes[currentClasses[i]][choices[i]]);
+            }
+
+            // Advance the choices like an odometer
+            hasCurrent = false;
+            for (int i = currentClasses.length - 1; i >= 0; i--) {
+                if (++choices[i] < classes[currentClasses[i]].length) {
+                    hasCurrent = true;
+                    break;
+                }
+                choices[i] = 0;
+            }
+
+            return result;
+        }
+    }
+}
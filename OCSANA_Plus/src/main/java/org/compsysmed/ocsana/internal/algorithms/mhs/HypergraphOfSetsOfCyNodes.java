@@ -31,7 +31,9 @@ public class HypergraphOfSetsOfCyNodes
      * Construct a Hypergraph from a collection of Sets of CyNodes
      *
      * In particular, the underlying BitSets will be zero-packed for
-     * efficiency.
+     * efficiency. The nodes are numbered in increasing order of SUID,
+     * so equal sets give the same Hypergraph whatever order their
+     * nodes iterate in (which search checkpoints rely on).
      *
      * @param sets  the sets to transform into edges of the Hypergraph
      **/
@@ -40,6 +42,17 @@ public class HypergraphOfSetsOfCyNodes
         mapNodeToHash = new HashMap<>();
         mapHashToNode = new HashMap<>();
 
+        Set<CyNode> nodes = new HashSet<>();
+        for (Collection<CyNode> set: sets) {
+            nodes.addAll(set);
+        }
+
+        List<CyNode> sortedNodes = new ArrayList<>(nodes);
+        sortedNodes.sort(Comparator.comparing(CyNode::getSUID));
+        for (CyNode node: sortedNodes) {
+            hashOfNode(node);
+        }
+
         for (Collection<CyNode> set: sets) {
             BitSet newEdge = new BitSet();
             for (CyNode node: set) {
@@ -62,10 +75,40 @@ public class HypergraphOfSetsOfCyNodes
         return result;
     }
 
+    /**
+     * Return a view of a collection of BitSets as Sets of CyNodes
+     *
+     * Each BitSet is converted only when the iteration reaches it.
+     **/
+    public Collection<Set<CyNode>> viewCyNodeSetsOfBitSets (Collection<BitSet> sets) {
+        return new AbstractCollection<Set<CyNode>>() {
+            @Override
+            public Iterator<Set<CyNode>> iterator () {
+                Iterator<BitSet> edges = sets.iterator();
+                return new Iterator<Set<CyNode>>() {
+                    @Override
+                    public boolean hasNext () {
+                        return edges.hasNext();
+                    }
+
+                    @Override
+                    public Set<CyNode> next () {
+                        return getCyNodesFromBitSet(edges.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size () {
+                return sets.size();
+            }
+        };
+    }
+
     /**
      * Convert a BitSet back into a Set of CyNodes
      **/
-    private Set<CyNode> getCyNodesFromBitSet (BitSet edge) {
+    public Set<CyNode> getCyNodesFromBitSet (BitSet edge) {
         Set<CyNode> nodes = new HashSet<>();
         for (int i = edge.nextSetBit(0); i >= 0; i = edge.nextSetBit(i+1)) {
             nodes.add(nodeOfHash(i));
@@ -73,6 +116,31 @@ public class HypergraphOfSetsOfCyNodes
         return nodes;
     }
 
+    /**
+     * Convert a Set of CyNodes into a BitSet of vertices
+     *
+     * @throws IllegalArgumentException if some node lies in none of
+     * the sets this was built from
+     **/
+    public BitSet getBitSetFromCyNodes (Set<CyNode> nodes) {
+        BitSet result = new BitSet();
+        for (CyNode node: nodes) {
+            if (!mapNodeToHash.containsKey(node)) {
+                throw new IllegalArgumentException("Node " + node + " not used!");
+            }
+
+            result.set(mapNodeToHash.get(node));
+        }
+        return result;
+    }
+
+    /**
+     * Return the CyNode of a vertex
+     **/
+    public CyNode getCyNode (int vertex) {
+        return nodeOfHash(vertex);
+    }
+
     /**
      * Return the next available key
      **/
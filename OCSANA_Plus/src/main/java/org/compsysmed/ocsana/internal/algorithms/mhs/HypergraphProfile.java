@@ -0,0 +1,396 @@
+/**
+ * Summary statistics of a hypergraph
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * Shape of a hypergraph, for choosing how to search it.
+ * <p>
+ * The edge sizes, vertex degrees and connected components are found
+ * in a single pass over the edges. The number of transversals is
+ * estimated separately by {@link #estimateNumTransversals(int, long)},
+ * which samples paths of the MHS search tree.
+ **/
+public class HypergraphProfile {
+    private static final int EXACT_NODES_PER_SAMPLE = 64;
+
+    private final HypergraphStore H;
+
+    private final int numVerts;
+    private final int numEdges;
+    private final long numIncidences;
+
+    private final int[] edgeSizeHistogram;
+    private final int[] vertexDegrees;
+    private final int numComponents;
+
+    /**
+     * Profile a hypergraph.
+     *
+     * @param H  the hypergraph to profile
+     **/
+    public HypergraphProfile (HypergraphStore H) {
+        this.H = Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        numVerts = H.numVerts();
+        numEdges = H.numEdges();
+
+        int[] sizeCounts = new int[numVerts + 1];
+        vertexDegrees = new int[numVerts];
+
+        // Union-find over vertices for the component count
+        int[] parent = new int[numVerts];
+        for (int v = 0; v < numVerts; v++) {
+            parent[v] = v;
+        }
+
+        long incidences = 0;
+        int maxEdgeSize = 0;
+        for (int e = 0; e < numEdges; e++) {
+            BitSet edge = H.edgeAsBitSet(e);
+            int size = edge.cardinality();
+            sizeCounts[size]++;
+            maxEdgeSize = Math.max(maxEdgeSize, size);
+            incidences += size;
+
+            int first = edge.nextSetBit(0);
+            for (int v = first; v >= 0; v = edge.nextSetBit(v+1)) {
+                vertexDegrees[v]++;
+
+                int vRoot = find(parent, v);
+                int firstRoot = find(parent, first);
+                if (vRoot != firstRoot) {
+                    parent[Math.max(vRoot, firstRoot)] = Math.min(vRoot, firstRoot);
+                }
+            }
+        }
+
+        numIncidences = incidences;
+        edgeSizeHistogram = Arrays.copyOf(sizeCounts, maxEdgeSize + 1);
+
+        int components = 0;
+        for (int v = 0; v < numVerts; v++) {
+            if (vertexDegrees[v] > 0 && find(parent, v) == v) {
+                components++;
+            }
+        }
+        numComponents = components;
+    }
+
+    private static int find (int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Return the number of vertices.
+     **/
+    public int numVerts () {
+        return numVerts;
+    }
+
+    /**
+     * Return the number of edges.
+     **/
+    public int numEdges () {
+        return numEdges;
+    }
+
+    /**
+     * Return the edge-size histogram.
+     *
+     * @return an array whose entry i is the number of edges with i
+     * vertices, of length one more than the largest edge size
+     **/
+    public int[] edgeSizeHistogram () {
+        return edgeSizeHistogram.clone();
+    }
+
+    /**
+     * Return the size of the largest edge.
+     **/
+    public int maxEdgeSize () {
+        return edgeSizeHistogram.length - 1;
+    }
+
+    /**
+     * Return the degree of every vertex.
+     *
+     * @return an array whose entry i is the number of edges
+     * containing vertex i
+     **/
+    public int[] vertexDegrees () {
+        return vertexDegrees.clone();
+    }
+
+    /**
+     * Return the vertex-degree histogram.
+     *
+     * @return an array whose entry d is the number of vertices of
+     * degree d, of length one more than the largest degree
+     **/
+    public int[] vertexDegreeHistogram () {
+        int maxDegree = 0;
+        for (int degree: vertexDegrees) {
+            maxDegree = Math.max(maxDegree, degree);
+        }
+
+        int[] result = new int[maxDegree + 1];
+        for (int degree: vertexDegrees) {
+            result[degree]++;
+        }
+        return result;
+    }
+
+    /**
+     * Return the number of vertices lying in some edge.
+     **/
+    public int numCoveredVerts () {
+        int result = 0;
+        for (int degree: vertexDegrees) {
+            if (degree > 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the fraction of vertex-edge pairs which are incidences.
+     **/
+    public double density () {
+        if (numVerts == 0 || numEdges == 0) {
+            return 0d;
+        }
+
+        return (double) numIncidences / ((double) numVerts * numEdges);
+    }
+
+    /**
+     * Return the number of connected components (see {@link
+     * HypergraphComponents}).
+     **/
+    public int numComponents () {
+        return numComponents;
+    }
+
+    /**
+     * Estimate the number of MHSes.
+     * <p>
+     * The MHSes are the leaves of the MMCS search tree, which
+     * branches on the candidate vertices of an uncovered edge with
+     * fewest candidates. The leaves are counted exactly if the tree
+     * has at most {@link #EXACT_NODES_PER_SAMPLE} nodes per sample;
+     * otherwise the estimate is Knuth's: the mean, over random
+     * root-to-leaf paths, of the product of the numbers of children
+     * along the path. This is unbiased but has high variance on
+     * unbalanced trees, so it is only good for orders of magnitude.
+     *
+     * @param sampleSize  the number of random paths to follow
+     * @param seed  the seed for the random choices
+     * @return the estimated number of MHSes
+     **/
+    public double estimateNumTransversals (int sampleSize,
+                                           long seed) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("Sample size must be positive.");
+        }
+
+        if (numEdges == 0) {
+            return 1d;
+        }
+
+        if (edgeSizeHistogram[0] > 0) {
+            return 0d;
+        }
+
+        SearchNode root = new SearchNode(H);
+
+        long[] nodeBudget = {(long) sampleSize * EXACT_NODES_PER_SAMPLE};
+        long exactCount = root.countLeaves(nodeBudget);
+        if (exactCount >= 0) {
+            return exactCount;
+        }
+
+        Random rng = new Random(seed);
+        double total = 0d;
+        for (int i = 0; i < sampleSize; i++) {
+            total += root.randomPathEstimate(rng);
+        }
+        return total / sampleSize;
+    }
+
+    /**
+     * Node of the MMCS search tree. The partial MHS is kept only
+     * through the critical edges of its vertices, alongside the
+     * edges it leaves uncovered and the vertices which may still be
+     * added.
+     **/
+    private static class SearchNode {
+        private final BitSet[] edges;
+        private final BitSet[] edgesOfVertex;
+
+        private final BitSet[] crit;
+        private final BitSet uncov;
+        private final BitSet cand;
+
+        SearchNode (HypergraphStore H) {
+            int numEdges = H.numEdges();
+            edges = new BitSet[numEdges];
+            edgesOfVertex = new BitSet[H.numVerts()];
+            for (int v = 0; v < edgesOfVertex.length; v++) {
+                edgesOfVertex[v] = new BitSet(numEdges);
+            }
+
+            cand = new BitSet(H.numVerts());
+            for (int e = 0; e < numEdges; e++) {
+                edges[e] = H.edgeAsBitSet(e);
+                cand.or(edges[e]);
+                for (int v = edges[e].nextSetBit(0); v >= 0; v = edges[e].nextSetBit(v+1)) {
+                    edgesOfVertex[v].set(e);
+                }
+            }
+
+            crit = new BitSet[0];
+            uncov = new BitSet(numEdges);
+            uncov.set(0, numEdges);
+        }
+
+        private SearchNode (SearchNode parent,
+                            BitSet[] crit,
+                            BitSet uncov,
+                            BitSet cand) {
+            this.edges = parent.edges;
+            this.edgesOfVertex = parent.edgesOfVertex;
+            this.crit = crit;
+            this.uncov = uncov;
+            this.cand = cand;
+        }
+
+        boolean isLeaf () {
+            return uncov.isEmpty();
+        }
+
+        /**
+         * Return the children which keep S minimal.
+         **/
+        List<SearchNode> children () {
+            // Branch on the uncovered edge with fewest candidates
+            BitSet branch = null;
+            int branchSize = Integer.MAX_VALUE;
+            for (int e = uncov.nextSetBit(0); e >= 0; e = uncov.nextSetBit(e+1)) {
+                BitSet candidates = (BitSet) edges[e].clone();
+                candidates.and(cand);
+                int size = candidates.cardinality();
+                if (size < branchSize) {
+                    branch = candidates;
+                    branchSize = size;
+                }
+            }
+
+            // Each child may also use the earlier branch vertices
+            BitSet childCand = (BitSet) cand.clone();
+            childCand.andNot(branch);
+
+            List<SearchNode> result = new ArrayList<>(branchSize);
+            for (int v = branch.nextSetBit(0); v >= 0; v = branch.nextSetBit(v+1)) {
+                SearchNode child = child(v, (BitSet) childCand.clone());
+                if (child != null) {
+                    result.add(child);
+                }
+                childCand.set(v);
+            }
+            return result;
+        }
+
+        /**
+         * Return the child adding v to S, or null if some vertex of
+         * S would lose its last critical edge.
+         **/
+        private SearchNode child (int v,
+                                  BitSet childCand) {
+            BitSet vEdges = edgesOfVertex[v];
+
+            BitSet[] childCrit = Arrays.copyOf(crit, crit.length + 1);
+            for (int i = 0; i < crit.length; i++) {
+                if (crit[i].intersects(vEdges)) {
+                    childCrit[i] = (BitSet) crit[i].clone();
+                    childCrit[i].andNot(vEdges);
+                    if (childCrit[i].isEmpty()) {
+                        return null;
+                    }
+                }
+            }
+
+            BitSet vCrit = (BitSet) uncov.clone();
+            vCrit.and(vEdges);
+            childCrit[crit.length] = vCrit;
+
+            BitSet childUncov = (BitSet) uncov.clone();
+            childUncov.andNot(vEdges);
+
+            return new SearchNode(this, childCrit, childUncov, childCand);
+        }
+
+        /**
+         * Count the leaves below this node.
+         *
+         * @param nodeBudget  a one-element array holding the number
+         * of nodes which may still be visited, decremented in place
+         * @return the number of leaves, or -1 if the budget ran out
+         **/
+        long countLeaves (long[] nodeBudget) {
+            if (--nodeBudget[0] < 0) {
+                return -1;
+            }
+
+            if (isLeaf()) {
+                return 1;
+            }
+
+            long result = 0;
+            for (SearchNode child: children()) {
+                long childCount = child.countLeaves(nodeBudget);
+                if (childCount < 0) {
+                    return -1;
+                }
+                result += childCount;
+            }
+            return result;
+        }
+
+        /**
+         * Follow a random path to a leaf or dead end and return the
+         * product of the numbers of children along it, or zero at a
+         * dead end.
+         **/
+        double randomPathEstimate (Random rng) {
+            double result = 1d;
+            SearchNode node = this;
+            while (!node.isLeaf()) {
+                List<SearchNode> children = node.children();
+                if (children.isEmpty()) {
+                    return 0d;
+                }
+
+                result *= children.size();
+                node = children.get(rng.nextInt(children.size()));
+            }
+            return result;
+        }
+    }
+}
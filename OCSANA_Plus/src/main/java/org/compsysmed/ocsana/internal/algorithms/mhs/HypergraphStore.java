@@ -0,0 +1,131 @@
+/**
+ * Common interface for the storage backends of hypergraphs
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * Read-only view of a hypergraph whose edges are addressed by index.
+ * <p>
+ * The MHS algorithms only ever read their input, so they are written
+ * against this interface rather than against a particular layout.
+ * This lets {@link Hypergraph} (one {@code BitSet} per edge) and
+ * {@link PackedHypergraph} (all edges in one array) be used
+ * interchangeably.
+ **/
+public interface HypergraphStore {
+    /**
+     * Return the number of vertices.
+     **/
+    public int numVerts ();
+
+    /**
+     * Return the number of edges.
+     **/
+    public int numEdges ();
+
+    /**
+     * Return the number of vertices in an edge.
+     *
+     * @param edge  the index of the edge
+     **/
+    public int edgeCardinality (int edge);
+
+    /**
+     * Test whether an edge contains a vertex.
+     *
+     * @param edge  the index of the edge
+     * @param v  the index of the vertex
+     **/
+    public boolean edgeContains (int edge, int v);
+
+    /**
+     * Test whether an edge meets a set of vertices.
+     *
+     * @param edge  the index of the edge
+     * @param S  the set of vertices
+     **/
+    public boolean edgeIntersects (int edge, BitSet S);
+
+    /**
+     * Test whether an edge is contained in a set of vertices.
+     *
+     * @param edge  the index of the edge
+     * @param S  the set of vertices
+     **/
+    public boolean edgeIsSubsetOf (int edge, BitSet S);
+
+    /**
+     * Return a copy of an edge as a {@code BitSet}.
+     * <p>
+     * The result is owned by the caller and may be modified freely.
+     *
+     * @param edge  the index of the edge
+     **/
+    public BitSet edgeAsBitSet (int edge);
+
+    /**
+     * Return the transpose of this hypergraph.
+     * <p>
+     * Each vertex of this becomes an edge of the transpose, whose
+     * elements are the indices of the edges containing that vertex.
+     **/
+    public HypergraphStore transpose ();
+
+    /**
+     * Test whether a given set is a hitting set of this.
+     *
+     * @param S  a candidate hitting set
+     * @return true if S hits every edge, false if not
+     **/
+    public default boolean isTransversedBy (BitSet S) {
+        int numE = numEdges();
+        for (int e = 0; e < numE; e++) {
+            if (!edgeIntersects(e, S)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Test whether a given set covers some edge of this.
+     *
+     * @param S  a candidate edge-covering set
+     * @return true if some edge is a subset of S, false if not
+     **/
+    public default boolean hasEdgeCoveredBy (BitSet S) {
+        int numE = numEdges();
+        for (int e = 0; e < numE; e++) {
+            if (edgeIsSubsetOf(e, S)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return a heap copy of this as a {@link Hypergraph}.
+     **/
+    public default Hypergraph toHypergraph () {
+        int numE = numEdges();
+        Hypergraph result = new Hypergraph(numVerts());
+        result.ensureCapacity(numE);
+        for (int e = 0; e < numE; e++) {
+            result.add(edgeAsBitSet(e));
+        }
+        return result;
+    }
+}
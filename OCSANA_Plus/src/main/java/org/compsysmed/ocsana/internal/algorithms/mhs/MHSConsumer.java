@@ -0,0 +1,42 @@
+/**
+ * Receiver for MHSes as they are found
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+/**
+ * Receives the MHSes found by a streaming search.
+ * <p>
+ * The search calls {@link #accept} from its worker threads, but never
+ * from two threads at once, so implementations need not be
+ * thread-safe.
+ *
+ * @param <T>  the representation of an MHS
+ **/
+@FunctionalInterface
+public interface MHSConsumer<T> {
+    /**
+     * Receive an MHS.
+     *
+     * @param mhs  the MHS, which the consumer may keep
+     * @return true to continue the search, false to stop it
+     **/
+    boolean accept (T mhs);
+
+    /**
+     * Note that every MHS of a given size has been passed to {@link
+     * #accept}.
+     * <p>
+     * Only searches which report MHSes in order of size call this.
+     *
+     * @param size  the size
+     **/
+    default void sizeComplete (int size) {}
+}
@@ -0,0 +1,496 @@
+/**
+ * Implementation of the MMCS algorithm for finding minimal hitting sets
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Cytoscape imports
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.BoundedInteger;
+import org.cytoscape.work.util.ListSingleSelection;
+
+import org.cytoscape.model.CyNode;
+
+// OCSANA imports
+
+/**
+ * The 'MMCS' algorithm for finding minimal hitting sets.
+ * <p>
+ * See Murakami and Uno, "Efficient algorithms for dualizing
+ * large-scale hypergraphs" (2014). Like RS, MMCS grows a candidate
+ * hitting set one vertex at a time from an uncovered edge, keeping
+ * every vertex critical. Instead of RS's ordering condition, it keeps
+ * a set CAND of vertices which may still be added: the vertices of the
+ * chosen edge are removed from CAND before branching and returned one
+ * at a time after each branch, so each MHS is found exactly once. The
+ * chosen edge is the uncovered edge with the fewest candidates, found
+ * from buckets of uncovered edges kept up to date as the search moves
+ * (see {@link ResidualBuckets}).
+ **/
+
+public class MMCSAlgorithm
+    extends AbstractStreamingMHSAlgorithm {
+    private static final String NAME = "MMCS algorithm";
+    private static final String SHORTNAME = "MMCS";
+
+    // Tunables for threading
+    @Tunable(description = "Bound thread count",
+             gravity = 350,
+             tooltip="By default, all CPUs will be utilized")
+    public Boolean configureThreads = false;
+
+    @Tunable(description = "Number of threads",
+             gravity = 351,
+             dependsOn = "configureThreads=true")
+    public BoundedInteger numThreads;
+
+    // Tunables for bounded-cardinality search
+    @Tunable(description = "Bound CI size",
+             gravity = 352,
+             tooltip="Unbounded search may take a very long time!")
+    public Boolean useMaxCardinality = true;
+
+    @Tunable(description = "Maximum CI size",
+             gravity = 353,
+             dependsOn = "useMaxCardinality=true")
+    public BoundedInteger maxCardinalityBInt;
+
+    // Tunables for score-guided search
+    @Tunable(description = "Find only the best CIs",
+             gravity = 354,
+             tooltip="Skips branches which cannot beat the best CIs found so far by OCSANA score")
+    public Boolean useTopK = false;
+
+    @Tunable(description = "Number of best CIs",
+             gravity = 355,
+             dependsOn = "useTopK=true")
+    public BoundedInteger topKBInt;
+
+    // Tunables for the search engine
+    @Tunable(description = "Task splitting policy",
+             gravity = 356,
+             tooltip="Fixed forks while few tasks are queued; adaptive weighs branch size against copying cost")
+    public ListSingleSelection<ForkPolicy.Kind> forkPolicy;
+
+    @Tunable(description = "Sequential search depth",
+             gravity = 357,
+             tooltip="Branches at this CI size or larger are searched without splitting (sequential policy only)")
+    public BoundedInteger sequentialDepth;
+
+    public MMCSAlgorithm () {
+        super();
+        numThreads = new BoundedInteger(1, 1, Runtime.getRuntime().availableProcessors(), false, false);
+        maxCardinalityBInt = new BoundedInteger(1, 6, 20, false, false);
+        topKBInt = new BoundedInteger(1, 100, 100000, false, false);
+        forkPolicy = new ListSingleSelection<>(Arrays.asList(ForkPolicy.Kind.values()));
+        sequentialDepth = new BoundedInteger(0, 3, 20, false, false);
+    }
+
+    // No docstring because the interface has one
+    @Override
+    public Collection<Set<CyNode>> MHSes (Collection<Set<CyNode>> sets) {
+        if (findsTopMHSes()) {
+            return topMHSes(sets);
+        }
+
+        HypergraphOfSetsOfCyNodes inputHypergraph
+            = new HypergraphOfSetsOfCyNodes(sets);
+
+        // NOTE: the constructor has already minimized inputHypergraph
+
+        Hypergraph resultHypergraph = transversalHypergraph(new PackedHypergraph(inputHypergraph));
+
+        return inputHypergraph.getCyNodeSetsFromHypergraph(resultHypergraph);
+    };
+
+    /**
+     * Compute MHSes of a given hypergraph.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     **/
+    @Override
+    public Hypergraph transversalHypergraph (HypergraphStore H) {
+        // The control passes the MHSes one at a time
+        Hypergraph MHSes = new Hypergraph(H.numVerts());
+        SearchControl control = new SearchControl(MHSes::add, this::isCanceled);
+        search(H, control);
+        setFractionExplored(control.fractionExplored());
+
+        return MHSes;
+    }
+
+    /**
+     * Find MHSes of a given hypergraph, reporting each to a control.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
+     **/
+    @Override
+    void search (HypergraphStore H,
+                 SearchControl control) {
+        // Handle argument processing
+        int maxCardinality;
+        if (useMaxCardinality) {
+            maxCardinality = maxCardinalityBInt.getValue();
+        } else {
+            maxCardinality = 0;
+        }
+
+        ForkJoinPool pool;
+        if (configureThreads) {
+            pool = new ForkJoinPool (numThreads.getValue());
+        } else {
+            pool = new ForkJoinPool ();
+        }
+
+        try {
+            ForkPolicy policy = ForkPolicy.of(forkPolicy.getSelectedValue(), sequentialDepth.getValue());
+            search(H, maxCardinality, control, pool, policy);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Find MHSes of a given hypergraph in a given pool, reporting each
+     * to a control.
+     * <p>
+     * The branching edge is chosen dynamically, so other SHD searches
+     * may use this to branch on the edge with the fewest candidates.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  to receive the MHSes
+     * @param pool  to run the search
+     * @param policy  decides which branches to fork
+     **/
+    static void search (HypergraphStore H,
+                        int maxCardinality,
+                        SearchControl control,
+                        ForkJoinPool pool,
+                        ForkPolicy policy) {
+        // Generate inputs to algorithm
+        HypergraphStore T = H.transpose();
+
+        // Candidate hitting set, initially empty
+        BitSet S = new BitSet(H.numVerts());
+
+        // Which edges each vertex is critical for (initially all empty)
+        CritTable crit = new CritTable();
+
+        // Which edges are uncovered (initially full)
+        BitSet uncov = new BitSet(H.numEdges());
+        uncov.set(0, H.numEdges());
+
+        // Which vertices may be added (initially all)
+        BitSet cand = new BitSet(H.numVerts());
+        cand.set(0, H.numVerts());
+
+        // Uncovered edges by number of candidates
+        ResidualBuckets buckets = new ResidualBuckets(H, uncov, cand);
+
+        // Set up and run the calculation
+        MMCSRecursiveTask calculation = new MMCSRecursiveTask(H, T, S, crit, uncov, cand, buckets, maxCardinality, control, policy, new long[1]);
+        pool.invoke(calculation);
+
+        // Wait for all algorithms to complete
+        pool.invoke(new SHDRecursiveTask.TaskWaiter());
+    }
+
+    @Override
+    int topK () {
+        return useTopK ? topKBInt.getValue() : 0;
+    }
+
+    private static class MMCSRecursiveTask extends SHDRecursiveTask {
+        BitSet cand;
+        ForkPolicy forkPolicy;
+
+        // Search nodes visited by the forked task this one belongs to
+        long[] visitedNodes;
+
+        // First vertex added in the branch at the root of the search
+        // which this task belongs to (-1 at the root)
+        int rootVertex = -1;
+
+        /**
+         * Recursive task for the MMCS algorithm
+         *
+         * @param H  {@code Hypergraph} to process
+         * @param T  transversal hypergraph of H
+         * @param S  candidate hitting set to process
+         * @param crit for each vertex v of H, crit[v] records the edges
+         * for which v is critical
+         * @param uncov  which edges are uncovered (must be nonempty)
+         * @param cand  which vertices may be added to S
+         * @param buckets  the uncovered edges by number of candidates
+         * @param maxCardinality largest size hitting set to consider
+         * (0 to find all, must be larger than {@code S.cardinality()}
+         * otherwise)
+         * @param control  to receive any confirmed MHSes and say when to stop
+         * @param forkPolicy  decides which branches to fork
+         * @param visitedNodes  counter of search nodes, shared with
+         * the tasks run inline by this one
+         **/
+        MMCSRecursiveTask (HypergraphStore H,
+                           HypergraphStore T,
+                           BitSet S,
+                           CritTable crit,
+                           BitSet uncov,
+                           BitSet cand,
+                           ResidualBuckets buckets,
+                           Integer maxCardinality,
+                           SearchControl control,
+                           ForkPolicy forkPolicy,
+                           long[] visitedNodes) {
+            this.H = H;
+            this.T = T;
+            this.S = S;
+            this.crit = crit;
+            this.uncov = uncov;
+            this.cand = cand;
+            this.buckets = buckets;
+            this.maxCardinality = maxCardinality;
+            this.control = control;
+            this.forkPolicy = forkPolicy;
+            this.visitedNodes = visitedNodes;
+
+            // Argument checking
+            if (H.numEdges() == 0) {
+                // Edgeless case is handled in compute()
+                return;
+            }
+
+            if (uncov.isEmpty()) {
+                throw new IllegalArgumentException("uncov cannot be empty.");
+            }
+
+            if ((maxCardinality > 0) && (maxCardinality < S.cardinality())) {
+                throw new IllegalArgumentException("S must be no larger than than maxCardinality.");
+            }
+
+            if (cand.intersects(S)) {
+                throw new IllegalArgumentException("Vertices in S cannot be candidates.");
+            }
+        }
+
+        /**
+         * Run the algorithm.
+         **/
+        @Override
+        protected void compute() {
+            // Handle empty hypergraph case
+            if (H.numEdges() == 0) {
+                return;
+            }
+
+            // Handle cancellation
+            if (control.shouldStop()) {
+                if (rootVertex >= 0) {
+                    control.noteUnfinishedRootBranch(rootVertex);
+                }
+                return;
+            }
+
+            // A task with a fresh counter was forked, so it reports
+            // the work done by it and the tasks it runs inline
+            boolean forked = (visitedNodes[0] == 0);
+            int depth = S.cardinality();
+            long start = System.nanoTime();
+
+            search();
+
+            if (forked) {
+                forkPolicy.recordWork(depth, System.nanoTime() - start, visitedNodes[0]);
+            }
+        }
+
+        /**
+         * Extend S through the uncovered edge with the fewest
+         * candidates.
+         **/
+        private void search () {
+            visitedNodes[0]++;
+
+            // Branch on the candidates of the uncovered edge with the
+            // fewest of them
+            BitSet searchCands = fewestCandidatesEdge();
+            if (searchCands.isEmpty()) {
+                return;
+            }
+
+            boolean atRoot = S.isEmpty();
+            if (atRoot) {
+                control.noteRootBranches(searchCands);
+            }
+
+            cand.andNot(searchCands);
+            for (int v = searchCands.nextSetBit(0); v >= 0; v = searchCands.nextSetBit(v+1)) {
+                buckets.removeCandidate(v);
+            }
+
+            for (int v = searchCands.nextSetBit(0); v >= 0; v = searchCands.nextSetBit(v+1)) {
+                if (control.shouldStop()) {
+                    if (atRoot) {
+                        // This branch and those not yet started
+                        control.noteUnfinishedRootBranches(searchCands.get(v, searchCands.length()));
+                    } else {
+                        control.noteUnfinishedRootBranch(rootVertex);
+                    }
+                    break;
+                }
+
+                // Update crit and uncov
+                Map<Integer, BitSet> critMark = updateCritAndUncov(v);
+
+                // Adding v is only allowed if every vertex in S is still critical
+                if (!anyCritEmpty()) {
+                    S.set(v);
+
+                    // Process the new candidate S
+                    int remainingBudget = (maxCardinality > 0) ? maxCardinality - S.cardinality() : 0;
+                    if ((uncov.isEmpty()) && ((maxCardinality == 0) || (S.cardinality() <= maxCardinality))) {
+                        // S is a genuine MHS, so we store it and move on
+                        BitSet cloneS = (BitSet) S.clone();
+                        control.report(cloneS);
+                    } else if ((maxCardinality > 0) && (S.cardinality() >= maxCardinality)) {
+                        // S cannot grow, so larger MHSes may be missed
+                        control.noteSizeLimitReached();
+                    } else if ((maxCardinality > 0) && uncovNeedsMoreThan(maxCardinality - S.cardinality())) {
+                        // S cannot grow enough to cover every edge
+                        control.noteSizeLimitReached();
+                    } else if (control.mayImprove(S, uncov, remainingBudget)) {
+                        // S is a viable candidate, so we fork a new job to process it
+                        if (forkPolicy.shouldFork(S.cardinality(), uncov.cardinality(), remainingBudget, searchCands.cardinality())) {
+                            // Spawn a new task for other workers to steal
+
+                            // Make defensive copies of mutable variables
+                            long copyStart = System.nanoTime();
+                            BitSet cloneS = (BitSet) S.clone();
+                            CritTable cloneCrit = crit.fork();
+                            BitSet cloneUncov = (BitSet) uncov.clone();
+                            BitSet cloneCand = (BitSet) cand.clone();
+                            ResidualBuckets cloneBuckets = buckets.copy();
+                            forkPolicy.recordCopy(System.nanoTime() - copyStart);
+
+                            MMCSRecursiveTask child = new MMCSRecursiveTask(H, T, cloneS, cloneCrit, cloneUncov, cloneCand, cloneBuckets, maxCardinality, control, forkPolicy, new long[1]);
+                            child.rootVertex = atRoot ? v : rootVertex;
+                            child.packing = childPacking;
+                            child.fork();
+                        } else {
+                            // Do the work in this thread without forking or copying
+                            MMCSRecursiveTask child = new MMCSRecursiveTask(H, T, S, crit, uncov, cand, buckets, maxCardinality, control, forkPolicy, visitedNodes);
+                            child.rootVertex = atRoot ? v : rootVertex;
+                            child.packing = childPacking;
+                            child.invoke();
+                        }
+                    }
+
+                    S.clear(v);
+                }
+
+                // Restore helper variables and make v a candidate for
+                // the remaining branches
+                restoreCritAndUncov(critMark, v);
+                cand.set(v);
+                buckets.addCandidate(v);
+            }
+
+            // Return any candidates skipped by cancellation
+            for (int v = searchCands.nextSetBit(0); v >= 0; v = searchCands.nextSetBit(v+1)) {
+                if (!cand.get(v)) {
+                    cand.set(v);
+                    buckets.addCandidate(v);
+                }
+            }
+        }
+
+        /**
+         * Return the candidates in the uncovered edge with the fewest
+         * candidates.
+         **/
+        private BitSet fewestCandidatesEdge () {
+            BitSet result = H.edgeAsBitSet(buckets.fewestCandidatesEdge());
+            result.and(cand);
+            return result;
+        }
+
+        /**
+         * Determine whether any vertex in S has no critical edges.
+         **/
+        private Boolean anyCritEmpty () {
+            for (int w = S.nextSetBit(0); w >= 0; w = S.nextSetBit(w+1)) {
+                if (crit.isEmpty(w)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public boolean boundsMHSSize () {
+        return useMaxCardinality;
+    }
+
+    @Override
+    public String fullName () {
+        return NAME;
+    }
+
+    @Override
+    public String shortName () {
+        return SHORTNAME;
+    }
+
+    @Override
+    public String description () {
+        StringBuilder result = new StringBuilder(fullName());
+
+        result.append(" (");
+
+        if (useMaxCardinality) {
+            result.append(String.format("max CI size: %d; ", maxCardinalityBInt.getValue()));
+        } else {
+            result.append("no max CI size; ");
+        }
+
+        if (configureThreads) {
+            result.append(String.format("threads: %d", numThreads.getValue()));
+        } else {
+            result.append("all cores");
+        }
+
+        if (useTopK) {
+            result.append(String.format("; best %d CIs", topKBInt.getValue()));
+        }
+
+        ForkPolicy.Kind policyKind = forkPolicy.getSelectedValue();
+        if (policyKind == ForkPolicy.Kind.SEQUENTIAL_BELOW_DEPTH) {
+            result.append(String.format("; %s %d", policyKind.toString().toLowerCase(), sequentialDepth.getValue()));
+        } else if (policyKind != ForkPolicy.Kind.FIXED) {
+            result.append(String.format("; %s splitting", policyKind.toString().toLowerCase()));
+        }
+
+        if (useTimeBudget) {
+            result.append(String.format("; time budget: %d s", timeBudgetSeconds.getValue()));
+        }
+
+        result.append(")");
+        return result.toString();
+    }
+}
@@ -14,8 +14,12 @@ package org.compsysmed.ocsana.internal.algorithms.mhs;
 
 // Java imports
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntToDoubleFunction;
 
 // Cytoscape imports
 import org.cytoscape.work.Tunable;
@@ -40,6 +44,9 @@ public class OCSANAGreedyAlgorithm
     private static final String NAME = "Greedy heuristic algorithm";
     private static final String SHORTNAME = "GREEDY";
 
+    // Number of candidates checked or extended sequentially by one task
+    private static final int CANDIDATE_GRAIN = 1024;
+
     //Tunables
     @Tunable(description = "Bound CI size",
              gravity = 350,
@@ -61,6 +68,17 @@ public class OCSANAGreedyAlgorithm
              dependsOn = "useMaxCandidates=true")
              public Double maxMegaCandidates = 5d;
 
+    // Tunables for threading
+    @Tunable(description = "Bound thread count",
+             gravity = 370,
+             tooltip="By default, all CPUs will be utilized")
+             public Boolean configureThreads = false;
+
+    @Tunable(description = "Number of threads",
+             gravity = 371,
+             dependsOn = "configureThreads=true")
+             public BoundedInteger numThreads;
+
     // Internal data
     private CyNetwork network;
     private OCSANAScores ocsanaScores;
@@ -68,6 +86,8 @@ public class OCSANAGreedyAlgorithm
     public OCSANAGreedyAlgorithm (CyNetwork network) {
         Objects.requireNonNull(network, "Network cannot be null");
         this.network = network;
+
+        numThreads = new BoundedInteger(1, 1, Runtime.getRuntime().availableProcessors(), false, false);
     }
 
     @Override
@@ -92,118 +112,426 @@ public class OCSANAGreedyAlgorithm
         return H.getCyNodeSetsFromHypergraph(T);
     }
 
+    /**
+     * Compute the transversals of the hypergraph of a collection of
+     * sets, scoring its vertices by the OCSANA scores of their nodes.
+     **/
+    @Override
+    Collection<BitSet> transversalsOfNodeSets (HypergraphOfSetsOfCyNodes H) {
+        Objects.requireNonNull(ocsanaScores, "OCSANA scores must be set before running this algorithm");
+
+        return transversalHypergraph(H, v -> ocsanaScores.OCSANA(H.getCyNode(v)));
+    }
+
     /**
      * Compute the transversals of a given hypergraph.
      **/
     public Hypergraph transversalHypergraph (HypergraphOfSetsOfScoredCyNodes H) {
-        Hypergraph largeEdges = new Hypergraph();
-        Set<Integer> largeEdgeIndexSet = new HashSet<>();
+        return transversalHypergraph(H, H::score);
+    }
+
+    /**
+     * Compute the transversals of a given hypergraph.
+     * <p>
+     * If H carries OCSANA scores they are used, otherwise every
+     * vertex is scored equally and candidates are explored in index
+     * order.
+     **/
+    @Override
+    public Hypergraph transversalHypergraph (HypergraphStore H) {
+        if (H instanceof HypergraphOfSetsOfScoredCyNodes) {
+            return transversalHypergraph((HypergraphOfSetsOfScoredCyNodes) H);
+        }
+
+        return transversalHypergraph(H, v -> 0d);
+    }
+
+    /**
+     * Compute the transversals of a given hypergraph.
+     * <p>
+     * Candidates are generated level by level, apriori-style: the
+     * vertices of the large edges are ranked by descending score, and
+     * a candidate is only extended by vertices ranked after all of
+     * its own. Each set is then generated from exactly one parent (its
+     * prefix in rank order), so no duplicates need to be discarded.
+     * No MHS is lost: in an MHS, each vertex hits some edge which no
+     * other vertex of the MHS hits, and that edge is missed by every
+     * prefix before the vertex.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param vertexScore  the score of each vertex of H
+     **/
+    public Hypergraph transversalHypergraph (HypergraphStore H,
+                                             IntToDoubleFunction vertexScore) {
+        List<BitSet> largeEdgeList = new ArrayList<>();
+        BitSet largeEdgeIndexSet = new BitSet();
         BitSet singletons = new BitSet();
 
-        for (BitSet edge: H) {
+        int numE = H.numEdges();
+        for (int e = 0; e < numE; e++) {
+            BitSet edge = H.edgeAsBitSet(e);
             if (edge.cardinality() == 1) {
                 singletons.or(edge);
             } else if (edge.cardinality() > 1) {
-                largeEdges.add(edge);
-                for (int index = edge.nextSetBit(0); index >= 0; index = edge.nextSetBit(index + 1)) {
-                    largeEdgeIndexSet.add(index);
-                }
+                largeEdgeList.add(edge);
+                largeEdgeIndexSet.or(edge);
             }
         }
 
-        List<Integer> largeEdgeIndices = new ArrayList<>(largeEdgeIndexSet);
-        largeEdgeIndices.sort((Integer left, Integer right) -> -1 * Double.compare(H.score(left), H.score(right)));
-
         // Short-circuit if there are no large sets
-        if (largeEdges.isEmpty()) {
+        if (largeEdgeList.isEmpty()) {
             Hypergraph T = new Hypergraph();
             T.add(singletons);
             return T;
         }
 
-        // Search for hitting sets
+        List<Integer> largeEdgeIndices = new ArrayList<>();
+        for (int index = largeEdgeIndexSet.nextSetBit(0); index >= 0; index = largeEdgeIndexSet.nextSetBit(index + 1)) {
+            largeEdgeIndices.add(index);
+        }
+        largeEdgeIndices.sort((Integer left, Integer right) -> -1 * Double.compare(vertexScore.applyAsDouble(left), vertexScore.applyAsDouble(right)));
+
+        // Work with the vertices renumbered by rank, so the vertices
+        // ranked after those of a candidate are the indices above its
+        // highest set bit
+        int numRanks = largeEdgeIndices.size();
+        int[] vertexOfRank = new int[numRanks];
+        int[] rankOfVertex = new int[largeEdgeIndexSet.length()];
+        double[] rankScores = new double[numRanks];
+        for (int rank = 0; rank < numRanks; rank++) {
+            vertexOfRank[rank] = largeEdgeIndices.get(rank);
+            rankOfVertex[vertexOfRank[rank]] = rank;
+            rankScores[rank] = vertexScore.applyAsDouble(vertexOfRank[rank]);
+        }
+
+        PackedHypergraph largeEdges = new PackedHypergraph(numRanks, largeEdgeList.size());
+        int[] rankedEdge = new int[numRanks];
+        for (BitSet edge: largeEdgeList) {
+            int size = 0;
+            for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v + 1)) {
+                rankedEdge[size++] = rankOfVertex[v];
+            }
+            largeEdges.addEdge(rankedEdge, 0, size);
+        }
+
+        ForkJoinPool pool;
+        if (configureThreads) {
+            pool = new ForkJoinPool (numThreads.getValue());
+        } else {
+            pool = new ForkJoinPool ();
+        }
+
+        List<BitSet> rankedMHSes;
+        try {
+            rankedMHSes = rankedTransversals(largeEdges, rankScores, singletons.cardinality(), pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        // Handle cancellation (but keep what was found in time)
+        if (isCanceled() && !timeBudgetExpired()) {
+            return new Hypergraph();
+        }
+
+        // Combine MHSes of large sets with singleton sets and return
         Hypergraph T = new Hypergraph();
-        Hypergraph candidates = new Hypergraph();
-        for (Integer index: largeEdgeIndices) {
-            BitSet candidate = new BitSet();
-            candidate.set(index);
+        for (BitSet rankedMHS: rankedMHSes) {
+            BitSet MHS = (BitSet) singletons.clone();
+            for (int rank = rankedMHS.nextSetBit(0); rank >= 0; rank = rankedMHS.nextSetBit(rank + 1)) {
+                MHS.set(vertexOfRank[rank]);
+            }
+            T.add(MHS);
+        }
+        return T;
+    }
+
+    /**
+     * Find the hitting sets of a hypergraph whose vertices are
+     * numbered by rank, level by level.
+     * <p>
+     * Each level checks its candidates and then extends the
+     * remaining ones, both in parallel over chunks of candidates. The
+     * chunks' results are merged in candidate order, so the output is
+     * the same for any number of threads.
+     *
+     * @param largeEdges  the hypergraph, with its vertices numbered
+     * by rank
+     * @param rankScores  the score of each vertex
+     * @param numSingletons  the number of vertices which will be added
+     * to every hitting set
+     * @param pool  the pool to run the checks and extensions on
+     * @return the hitting sets found, or an incomplete list if the
+     * algorithm was canceled
+     **/
+    private List<BitSet> rankedTransversals (PackedHypergraph largeEdges,
+                                             double[] rankScores,
+                                             int numSingletons,
+                                             ForkJoinPool pool) {
+        // Search for hitting sets, indexing them for minimality tests
+        List<BitSet> rankedMHSes = new ArrayList<>();
+        SetTrie foundMHSes = new SetTrie();
+        List<BitSet> candidates = new ArrayList<>();
+        for (int rank = 0; rank < largeEdges.numVerts(); rank++) {
+            BitSet candidate = new BitSet(largeEdges.numVerts());
+            candidate.set(rank);
             candidates.add(candidate);
         }
 
         Integer candidatesChecked = 0;
         Integer currentCardinality = 1;
 
-        while (!candidates.isEmpty() && !haltForCandidates(candidatesChecked) && !haltForCardinality(currentCardinality, singletons.cardinality())) {
+        while (!candidates.isEmpty() && !haltForCandidates(candidatesChecked) && !haltForCardinality(currentCardinality, numSingletons)) {
             if (isCanceled()) {
-                return new Hypergraph();
+                noteProgress(candidatesChecked, currentCardinality - 1, largeEdges.numVerts(), numSingletons);
+                return rankedMHSes;
             }
 
             // Sort candidates in descending OCSANA score order
-            candidates.sort((BitSet left, BitSet right) -> -1 * Double.compare(H.score(left), H.score(right)));
+            candidates.sort((BitSet left, BitSet right) -> -1 * Double.compare(setScore(left, rankScores), setScore(right, rankScores)));
 
-            // Check whether any candidate is a hitting set
+            // Check whether any candidate is a hitting set, stopping
+            // where the candidate bound is reached
             // Minimality is guaranteed from the extension procedure below
-            Iterator<BitSet> candidateIterator = candidates.iterator();
-            while (candidateIterator.hasNext() && !haltForCandidates(candidatesChecked)) {
-                if (isCanceled()) {
-                    return new Hypergraph();
-                }
+            int numToCheck = (int) Math.min(candidates.size(), candidateBudget() - candidatesChecked);
+            boolean[] isHittingSet = new boolean[numToCheck];
+            pool.invoke(new HittingSetCheckTask(candidates, largeEdges, isHittingSet, this::isCanceled, 0, numToCheck));
+            candidatesChecked += numToCheck;
 
-                candidatesChecked += 1;
+            if (isCanceled()) {
+                noteProgress(candidatesChecked, currentCardinality - 1, largeEdges.numVerts(), numSingletons);
+                return rankedMHSes;
+            }
 
-                BitSet candidate = candidateIterator.next();
+            List<BitSet> remainingCandidates = new ArrayList<>(numToCheck);
+            for (int i = 0; i < numToCheck; i++) {
+                BitSet candidate = candidates.get(i);
                 assert candidate.cardinality() == currentCardinality;
 
-                if (largeEdges.isTransversedBy(candidate)) {
-                    candidateIterator.remove();
-                    T.add(candidate);
+                if (isHittingSet[i]) {
+                    rankedMHSes.add(candidate);
+                    foundMHSes.add(candidate);
+                } else {
+                    remainingCandidates.add(candidate);
                 }
             }
 
             // Build new candidates
             currentCardinality += 1;
 
-            if (!haltForCandidates(candidatesChecked) && !haltForCardinality(currentCardinality, singletons.cardinality())) {
-                Set<BitSet> newCandidates = new HashSet<>();
+            if (!haltForCandidates(candidatesChecked) && !haltForCardinality(currentCardinality, numSingletons)) {
+                // The tasks share a count of the candidates built so
+                // far, and stop once it reaches the candidate bound
+                AtomicLong numBuilt = new AtomicLong();
+                ExtensionTask extension = new ExtensionTask(remainingCandidates, largeEdges, foundMHSes, numBuilt, candidateBudget() - candidatesChecked, this::isCanceled, 0, remainingCandidates.size());
+                List<ExtensionChunk> chunks = pool.invoke(extension);
 
-                for (BitSet oldCandidate: candidates) {
-                    if (isCanceled()) {
-                        return new Hypergraph();
-                    }
+                if (isCanceled()) {
+                    noteProgress(candidatesChecked, currentCardinality - 1, largeEdges.numVerts(), numSingletons);
+                    return rankedMHSes;
+                }
 
-                    if (haltForCandidates(candidatesChecked + newCandidates.size())) {
-                        break;
-                    }
+                // Merge the chunks in order, stopping where a
+                // sequential pass would. A chunk may have stopped
+                // early because of candidates built by later chunks,
+                // so any candidates it skipped are extended here.
+                List<BitSet> newCandidates = new ArrayList<>();
+                merge:
+                for (ExtensionChunk chunk: chunks) {
+                    for (int i = chunk.start; i < chunk.end; i++) {
+                        if (haltForCandidates(candidatesChecked + newCandidates.size())) {
+                            break merge;
+                        }
 
-                    Set<Integer> extensionIndices = largeEdges.stream()
-                        .filter(edge -> !edge.intersects(oldCandidate)) // Find edges we haven't hit
-                        .map(edge -> edge.stream().boxed()).flatMap(s -> s) // Get their indices
-                        .collect(Collectors.toSet()); // Form a set
-
-                    // Build the new candidates
-                    for (Integer index: extensionIndices) {
-                        // For each extension index, build a new bitset by adding that index to the old candidate
-                        BitSet newCandidate = (BitSet) oldCandidate.clone();
-                        newCandidate.set(index);
-                        assert newCandidate.cardinality() == currentCardinality;
-
-                        // Test minimality
-                        if (!T.stream().anyMatch(mhs -> mhs.intersects(newCandidate))) {
-                            newCandidates.add(newCandidate);
+                        if (i < chunk.extendedEnd) {
+                            newCandidates.addAll(chunk.extensionsOf(i));
+                        } else {
+                            extendCandidate(remainingCandidates.get(i), largeEdges, foundMHSes, newCandidates);
                         }
                     }
                 }
 
-                candidates = new Hypergraph();
-                for (BitSet candidate: newCandidates) {
-                    candidates.add(candidate);
+                candidates = newCandidates;
+            }
+        }
+
+        return rankedMHSes;
+    }
+
+    /**
+     * Add the canonical extensions of a candidate which contain no
+     * known hitting set to a list.
+     *
+     * @param oldCandidate  the candidate to extend
+     * @param largeEdges  the hypergraph, with its vertices numbered
+     * by rank
+     * @param foundMHSes  the hitting sets found so far
+     * @param newCandidates  the list to add the extensions to
+     **/
+    private static void extendCandidate (BitSet oldCandidate,
+                                         PackedHypergraph largeEdges,
+                                         SetTrie foundMHSes,
+                                         List<BitSet> newCandidates) {
+        // Find the vertices of the edges we haven't hit, and extend by
+        // those ranked after the candidate's
+        BitSet extensionIndices = largeEdges.verticesOfEdgesMissing(oldCandidate);
+
+        // Build the new candidates
+        for (int index = extensionIndices.nextSetBit(oldCandidate.length()); index >= 0; index = extensionIndices.nextSetBit(index + 1)) {
+            // For each extension index, build a new bitset by adding that index to the old candidate
+            BitSet newCandidate = (BitSet) oldCandidate.clone();
+            newCandidate.set(index);
+
+            // Test minimality: the new candidate must not contain any
+            // hitting set we have already found
+            if (!foundMHSes.containsSubsetOf(newCandidate)) {
+                newCandidates.add(newCandidate);
+            }
+        }
+    }
+
+    /**
+     * Task checking which of a range of candidates are hitting sets
+     **/
+    private static class HittingSetCheckTask
+        extends RecursiveAction {
+        private final List<BitSet> candidates;
+        private final PackedHypergraph largeEdges;
+        private final boolean[] isHittingSet;
+        private final BooleanSupplier isCanceled;
+        private final int start;
+        private final int end;
+
+        HittingSetCheckTask (List<BitSet> candidates,
+                             PackedHypergraph largeEdges,
+                             boolean[] isHittingSet,
+                             BooleanSupplier isCanceled,
+                             int start,
+                             int end) {
+            this.candidates = candidates;
+            this.largeEdges = largeEdges;
+            this.isHittingSet = isHittingSet;
+            this.isCanceled = isCanceled;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute () {
+            if (end - start <= CANDIDATE_GRAIN) {
+                for (int i = start; i < end && !isCanceled.getAsBoolean(); i++) {
+                    isHittingSet[i] = largeEdges.isTransversedBy(candidates.get(i));
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new HittingSetCheckTask(candidates, largeEdges, isHittingSet, isCanceled, start, middle),
+                      new HittingSetCheckTask(candidates, largeEdges, isHittingSet, isCanceled, middle, end));
+        }
+    }
+
+    /**
+     * The extensions of a range of candidates built by one task
+     **/
+    private static class ExtensionChunk {
+        final int start;
+        final int end;
+
+        // The candidates from start up to extendedEnd were extended
+        int extendedEnd;
+
+        // The extensions of candidate i are extensions[ends[i-start-1]:ends[i-start]]
+        final List<BitSet> extensions = new ArrayList<>();
+        final int[] ends;
+
+        ExtensionChunk (int start,
+                        int end) {
+            this.start = start;
+            this.end = end;
+            this.extendedEnd = start;
+            this.ends = new int[end - start];
+        }
+
+        List<BitSet> extensionsOf (int i) {
+            int from = (i == start) ? 0 : ends[i - start - 1];
+            return extensions.subList(from, ends[i - start]);
+        }
+    }
+
+    /**
+     * Task extending a range of candidates
+     **/
+    private static class ExtensionTask
+        extends RecursiveTask<List<ExtensionChunk>> {
+        private final List<BitSet> candidates;
+        private final PackedHypergraph largeEdges;
+        private final SetTrie foundMHSes;
+        private final AtomicLong numBuilt;
+        private final long maxBuilt;
+        private final BooleanSupplier isCanceled;
+        private final int start;
+        private final int end;
+
+        ExtensionTask (List<BitSet> candidates,
+                       PackedHypergraph largeEdges,
+                       SetTrie foundMHSes,
+                       AtomicLong numBuilt,
+                       long maxBuilt,
+                       BooleanSupplier isCanceled,
+                       int start,
+                       int end) {
+            this.candidates = candidates;
+            this.largeEdges = largeEdges;
+            this.foundMHSes = foundMHSes;
+            this.numBuilt = numBuilt;
+            this.maxBuilt = maxBuilt;
+            this.isCanceled = isCanceled;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<ExtensionChunk> compute () {
+            if (end - start <= CANDIDATE_GRAIN) {
+                ExtensionChunk chunk = new ExtensionChunk(start, end);
+                for (int i = start; i < end; i++) {
+                    if ((numBuilt.get() >= maxBuilt) || isCanceled.getAsBoolean()) {
+                        break;
+                    }
+
+                    int numBefore = chunk.extensions.size();
+                    extendCandidate(candidates.get(i), largeEdges, foundMHSes, chunk.extensions);
+                    chunk.ends[i - start] = chunk.extensions.size();
+                    chunk.extendedEnd = i + 1;
+                    numBuilt.addAndGet(chunk.extensions.size() - numBefore);
                 }
+
+                List<ExtensionChunk> result = new ArrayList<>();
+                result.add(chunk);
+                return result;
             }
+
+            int middle = (start + end) >>> 1;
+            ExtensionTask left = new ExtensionTask(candidates, largeEdges, foundMHSes, numBuilt, maxBuilt, isCanceled, start, middle);
+            ExtensionTask right = new ExtensionTask(candidates, largeEdges, foundMHSes, numBuilt, maxBuilt, isCanceled, middle, end);
+            right.fork();
+
+            List<ExtensionChunk> result = left.compute();
+            result.addAll(right.join());
+            return result;
         }
+    }
 
-        // Combine MHSes of large sets with singleton sets and return
-        T.stream().forEachOrdered(edge -> edge.or(singletons));
-        return T;
+    /**
+     * Return the total score of a set of vertices.
+     **/
+    private static double setScore (BitSet S,
+                                    double[] vertexScores) {
+        double result = 0d;
+        for (int v = S.nextSetBit(0); v >= 0; v = S.nextSetBit(v + 1)) {
+            result += vertexScores[v];
+        }
+        return result;
     }
 
     /**
@@ -214,6 +542,36 @@ public class OCSANAGreedyAlgorithm
         return !(!useMaxCandidates || candidatesChecked < maxMegaCandidates * 1e6);
     }
 
+    /**
+     * Return the number of candidates after which the computation
+     * should be stopped.
+     **/
+    private long candidateBudget () {
+        return useMaxCandidates ? (long) Math.ceil(maxMegaCandidates * 1e6) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Record the progress of a stopped computation: the fraction of
+     * its candidate budget or of its levels which it used, whichever
+     * is larger.
+     *
+     * @param candidatesChecked  the number of candidates checked
+     * @param levelsComplete  the number of candidate sizes whose
+     * candidates were all checked
+     * @param numRanks  the number of vertices of the large sets
+     * @param numSingletons  the number of vertices which will be added
+     * to every hitting set
+     **/
+    private void noteProgress (long candidatesChecked,
+                               int levelsComplete,
+                               int numRanks,
+                               int numSingletons) {
+        int numLevels = useMaxCardinality ? Math.min(numRanks, maxCardinalityBInt.getValue() - numSingletons) : numRanks;
+        double candidateFraction = (double) candidatesChecked / candidateBudget();
+        double levelFraction = (numLevels > 0) ? (double) levelsComplete / numLevels : 0.0;
+        setFractionExplored(Math.min(1.0, Math.max(candidateFraction, levelFraction)));
+    }
+
     /**
      * Return true if the computation should be stopped due to the
      * cardinality of the candidates and false if it should not.
@@ -223,6 +581,12 @@ public class OCSANAGreedyAlgorithm
         return !(!useMaxCardinality || candidateCardinality + singletonNodesSize <= maxCardinalityBInt.getValue());
     }
 
+    // No docstring because the superclass has one
+    @Override
+    public boolean boundsMHSSize () {
+        return useMaxCardinality;
+    }
+
     @Override
     public String fullName () {
         return NAME;
@@ -251,6 +615,14 @@ public class OCSANAGreedyAlgorithm
             result.append("no max candidate count");
         }
 
+        if (configureThreads) {
+            result.append(String.format("; threads: %d", numThreads.getValue()));
+        }
+
+        if (useTimeBudget) {
+            result.append(String.format("; time budget: %d s", timeBudgetSeconds.getValue()));
+        }
+
         result.append(")");
         return result.toString();
     }
@@ -0,0 +1,533 @@
+/**
+ * Implementation of a hypergraph stored outside the Java heap
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hypergraph whose edges live in direct or memory-mapped buffers.
+ * <p>
+ * The layout is the same as that of {@link PackedHypergraph}: each
+ * edge is a fixed-stride row of 64-bit words. The rows are split into
+ * segments of at most 1 GB, each of which is either a direct {@code
+ * ByteBuffer} or a read-write mapping of a backing file. In the
+ * latter case the operating system pages rows in and out as needed,
+ * so the hypergraph may be larger than both the heap and physical
+ * memory. Only the edge cardinalities (one {@code int} per edge) are
+ * kept on the heap.
+ * <p>
+ * Like {@code PackedHypergraph}, edges can be appended but not
+ * modified.
+ **/
+public class OffHeapHypergraph
+    implements HypergraphStore, Closeable {
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final int INITIAL_EDGE_CAPACITY = 1024;
+
+    private final int numVerts;
+    private final int stride;
+    private final int rowsPerSegment;
+
+    // Backing file and channel, or null for direct buffers
+    private final File backingFile;
+    private final FileChannel channel;
+
+    private final List<LongBuffer> segments = new ArrayList<>();
+    private int[] cardinalities;
+    private int numEdges;
+
+    /**
+     * Construct an empty {@code OffHeapHypergraph} in direct buffers.
+     *
+     * @param numVerts  (positive) number of vertices
+     * @param edgeCapacity  number of edges expected (used to size
+     * segments; more may be added)
+     **/
+    public OffHeapHypergraph (int numVerts,
+                              int edgeCapacity) {
+        this(numVerts, edgeCapacity, null);
+    }
+
+    /**
+     * Construct an empty {@code OffHeapHypergraph}.
+     *
+     * @param numVerts  (positive) number of vertices
+     * @param edgeCapacity  number of edges expected (used to size
+     * segments; more may be added)
+     * @param backingFile  file to map the rows into (its contents will
+     * be overwritten), or null to use direct buffers
+     **/
+    public OffHeapHypergraph (int numVerts,
+                              int edgeCapacity,
+                              File backingFile) {
+        if (numVerts < 0) {
+            throw new IllegalArgumentException("A hypergraph can only have positively many vertices.");
+        }
+
+        if (edgeCapacity < 0) {
+            throw new IllegalArgumentException("Edge capacity cannot be negative.");
+        }
+
+        this.numVerts = numVerts;
+        this.stride = Math.max(PackedHypergraph.wordsFor(numVerts), 1);
+
+        long maxRowsPerSegment = MAX_SEGMENT_BYTES / (Long.BYTES * (long) stride);
+        this.rowsPerSegment = (int) Math.max(1, Math.min(maxRowsPerSegment, Math.max(edgeCapacity, INITIAL_EDGE_CAPACITY)));
+
+        this.backingFile = backingFile;
+        if (backingFile != null) {
+            try {
+                this.channel = FileChannel.open(backingFile.toPath(),
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open backing file " + backingFile, e);
+            }
+        } else {
+            this.channel = null;
+        }
+
+        this.cardinalities = new int[Math.max(edgeCapacity, 1)];
+        this.numEdges = 0;
+    }
+
+    /**
+     * Construct an {@code OffHeapHypergraph} backed by a new temporary
+     * file.
+     *
+     * @param numVerts  (positive) number of vertices
+     * @param edgeCapacity  number of edges expected
+     **/
+    public static OffHeapHypergraph withTemporaryFile (int numVerts,
+                                                       int edgeCapacity)
+        throws IOException {
+        File backingFile = File.createTempFile("ocsana-hypergraph", ".rows");
+        backingFile.deleteOnExit();
+        return new OffHeapHypergraph(numVerts, edgeCapacity, backingFile);
+    }
+
+    /**
+     * Read a binary hypergraph file (see {@link BinaryHypergraphFile})
+     * into an {@code OffHeapHypergraph} without building its edges on
+     * the heap.
+     *
+     * @param inFile  the file to read
+     * @param backingFile  file to map the rows into, or null to use
+     * direct buffers
+     **/
+    public static OffHeapHypergraph read (File inFile,
+                                          File backingFile)
+        throws IOException {
+        try (BinaryHypergraphFile.Reader reader = new BinaryHypergraphFile.Reader(inFile)) {
+            OffHeapHypergraph result = new OffHeapHypergraph(reader.numVerts(), reader.numEdges(), backingFile);
+
+            int[] edge = new int[16];
+            for (int e = 0; e < reader.numEdges(); e++) {
+                int size = reader.nextEdgeSize();
+                if (size > edge.length) {
+                    edge = new int[Math.max(size, 2 * edge.length)];
+                }
+
+                reader.nextEdge(edge);
+                result.addEdge(edge, 0, size);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Return true if the rows are mapped from a file.
+     **/
+    public boolean isFileBacked () {
+        return backingFile != null;
+    }
+
+    /**
+     * Append an edge.
+     *
+     * @param edge  the vertices of the new edge, all of which must be
+     * less than {@link #numVerts()}
+     * @return the index of the new edge
+     **/
+    public int addEdge (BitSet edge) {
+        if (edge.length() > numVerts) {
+            throw new IllegalArgumentException("Edge contains vertex " + (edge.length() - 1) + " but hypergraph has only " + numVerts + " vertices.");
+        }
+
+        int e = appendEmptyRow();
+        LongBuffer segment = segments.get(e / rowsPerSegment);
+        int offset = (e % rowsPerSegment) * stride;
+
+        long[] edgeWords = edge.toLongArray();
+        for (int w = 0; w < edgeWords.length; w++) {
+            segment.put(offset + w, edgeWords[w]);
+        }
+        cardinalities[e] = edge.cardinality();
+
+        return e;
+    }
+
+    /**
+     * Append an edge given by a range of an array of vertex indices.
+     *
+     * @param vertices  array containing the vertices of the new edge,
+     * all of which must be less than {@link #numVerts()}
+     * @param from  the first index of the range (inclusive)
+     * @param to  the last index of the range (exclusive)
+     * @return the index of the new edge
+     **/
+    public int addEdge (int[] vertices, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int v = vertices[i];
+            if (v < 0 || v >= numVerts) {
+                throw new IllegalArgumentException("Vertex " + v + " out of range for hypergraph with " + numVerts + " vertices.");
+            }
+        }
+
+        int e = appendEmptyRow();
+        LongBuffer segment = segments.get(e / rowsPerSegment);
+        int offset = (e % rowsPerSegment) * stride;
+
+        int cardinality = 0;
+        for (int i = from; i < to; i++) {
+            int v = vertices[i];
+            int index = offset + (v >>> 6);
+            long word = segment.get(index);
+            long mask = 1L << v;
+            if ((word & mask) == 0) {
+                segment.put(index, word | mask);
+                cardinality++;
+            }
+        }
+        cardinalities[e] = cardinality;
+
+        return e;
+    }
+
+    /**
+     * Reserve a zeroed row for a new edge and return its index.
+     **/
+    private int appendEmptyRow () {
+        int e = numEdges;
+        if (e / rowsPerSegment == segments.size()) {
+            segments.add(allocateSegment(segments.size()));
+        }
+
+        if (e == cardinalities.length) {
+            cardinalities = Arrays.copyOf(cardinalities, cardinalities.length + Math.max(cardinalities.length >> 1, 1));
+        }
+
+        numEdges++;
+        return e;
+    }
+
+    private LongBuffer allocateSegment (int segmentIndex) {
+        long segmentBytes = Long.BYTES * (long) stride * rowsPerSegment;
+
+        ByteBuffer buffer;
+        if (channel == null) {
+            buffer = ByteBuffer.allocateDirect((int) segmentBytes);
+        } else {
+            try {
+                // Mapping past the end of the file extends it with zeros
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, segmentIndex * segmentBytes, segmentBytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map backing file " + backingFile, e);
+            }
+        }
+
+        return buffer.order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    @Override
+    public int numVerts () {
+        return numVerts;
+    }
+
+    @Override
+    public int numEdges () {
+        return numEdges;
+    }
+
+    /**
+     * Return the number of 64-bit words in each edge row.
+     **/
+    public int wordsPerEdge () {
+        return stride;
+    }
+
+    /**
+     * Return one word of an edge row.
+     *
+     * @param edge  the index of the edge
+     * @param wordIndex  the index of the word within the row
+     **/
+    public long word (int edge, int wordIndex) {
+        return segments.get(edge / rowsPerSegment).get((edge % rowsPerSegment) * stride + wordIndex);
+    }
+
+    @Override
+    public int edgeCardinality (int edge) {
+        checkEdgeIndex(edge);
+        return cardinalities[edge];
+    }
+
+    @Override
+    public boolean edgeContains (int edge, int v) {
+        checkEdgeIndex(edge);
+        if (v < 0 || v >= numVerts) {
+            return false;
+        }
+
+        return (word(edge, v >>> 6) & (1L << v)) != 0;
+    }
+
+    @Override
+    public boolean edgeIntersects (int edge, BitSet S) {
+        checkEdgeIndex(edge);
+        return rowIntersects(edge, S);
+    }
+
+    @Override
+    public boolean edgeIsSubsetOf (int edge, BitSet S) {
+        checkEdgeIndex(edge);
+        return rowIsSubsetOf(edge, S);
+    }
+
+    @Override
+    public BitSet edgeAsBitSet (int edge) {
+        checkEdgeIndex(edge);
+        long[] row = new long[stride];
+        LongBuffer segment = segments.get(edge / rowsPerSegment);
+        int offset = (edge % rowsPerSegment) * stride;
+        for (int w = 0; w < stride; w++) {
+            row[w] = segment.get(offset + w);
+        }
+        return BitSet.valueOf(row);
+    }
+
+    @Override
+    public boolean isTransversedBy (BitSet S) {
+        long[] sWords = S.toLongArray();
+        for (int e = 0; e < numEdges; e++) {
+            if (!rowIntersects(e, sWords)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean hasEdgeCoveredBy (BitSet S) {
+        long[] sWords = S.toLongArray();
+        for (int e = 0; e < numEdges; e++) {
+            if (rowIsSubsetOf(e, sWords)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return the transpose of this {@code OffHeapHypergraph}.
+     * <p>
+     * The result is stored the same way as this: in direct buffers, or
+     * in a new temporary file if this is file-backed.
+     **/
+    @Override
+    public OffHeapHypergraph transpose () {
+        OffHeapHypergraph result;
+        try {
+            result = isFileBacked() ? withTemporaryFile(numEdges, numVerts) : new OffHeapHypergraph(numEdges, numVerts);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create backing file for transpose", e);
+        }
+
+        for (int v = 0; v < numVerts; v++) {
+            result.appendEmptyRow();
+        }
+
+        for (int e = 0; e < numEdges; e++) {
+            int eWord = e >>> 6;
+            long eBit = 1L << e;
+            for (int w = 0; w < stride; w++) {
+                long word = word(e, w);
+                while (word != 0) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    LongBuffer segment = result.segments.get(v / result.rowsPerSegment);
+                    int index = (v % result.rowsPerSegment) * result.stride + eWord;
+                    segment.put(index, segment.get(index) | eBit);
+                    result.cardinalities[v]++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the minimization of this {@code OffHeapHypergraph}.
+     * <p>
+     * The result is stored the same way as this and has the same
+     * vertices and the inclusion-minimal edges of this, ordered by
+     * increasing cardinality. Only the minimal edges are held on the
+     * heap (in a {@link SetTrie}) while the result is built.
+     **/
+    public OffHeapHypergraph minimization () {
+        // Counting sort of edge indices by cardinality (stable)
+        int[] counts = new int[numVerts + 2];
+        for (int e = 0; e < numEdges; e++) {
+            counts[cardinalities[e] + 1]++;
+        }
+        for (int c = 1; c < counts.length; c++) {
+            counts[c] += counts[c - 1];
+        }
+        int[] order = new int[numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            order[counts[cardinalities[e]]++] = e;
+        }
+
+        // Reuse the order array for the indices of the minimal edges
+        SetTrie confirmedEdges = new SetTrie();
+        int numMinimalEdges = 0;
+        for (int e: order) {
+            if (cardinalities[e] == 0) {
+                continue;
+            }
+
+            BitSet edge = edgeAsBitSet(e);
+            if (!confirmedEdges.containsSubsetOf(edge)) {
+                confirmedEdges.add(edge);
+                order[numMinimalEdges++] = e;
+            }
+        }
+
+        OffHeapHypergraph result;
+        try {
+            result = isFileBacked() ? withTemporaryFile(numVerts, numMinimalEdges) : new OffHeapHypergraph(numVerts, numMinimalEdges);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create backing file for minimization", e);
+        }
+
+        for (int i = 0; i < numMinimalEdges; i++) {
+            int e = order[i];
+            int newEdge = result.appendEmptyRow();
+            LongBuffer segment = result.segments.get(newEdge / result.rowsPerSegment);
+            int offset = (newEdge % result.rowsPerSegment) * stride;
+            for (int w = 0; w < stride; w++) {
+                segment.put(offset + w, word(e, w));
+            }
+            result.cardinalities[newEdge] = cardinalities[e];
+        }
+
+        return result;
+    }
+
+    /**
+     * Release the buffers and delete the backing file, if any.
+     * <p>
+     * This must not be used afterwards. Direct buffers are returned to
+     * the operating system when they are garbage collected.
+     **/
+    @Override
+    public void close ()
+        throws IOException {
+        segments.clear();
+        numEdges = 0;
+
+        if (channel != null) {
+            channel.close();
+            backingFile.delete();
+        }
+    }
+
+    private boolean rowIntersects (int edge, long[] sWords) {
+        LongBuffer segment = segments.get(edge / rowsPerSegment);
+        int offset = (edge % rowsPerSegment) * stride;
+        int n = Math.min(stride, sWords.length);
+        for (int w = 0; w < n; w++) {
+            if ((segment.get(offset + w) & sWords[w]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean rowIsSubsetOf (int edge, long[] sWords) {
+        LongBuffer segment = segments.get(edge / rowsPerSegment);
+        int offset = (edge % rowsPerSegment) * stride;
+        for (int w = 0; w < stride; w++) {
+            long sWord = (w < sWords.length) ? sWords[w] : 0L;
+            if ((segment.get(offset + w) & ~sWord) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Look up each vertex of the row in the set rather than copying
+    // the set to words
+    private boolean rowIntersects (int edge, BitSet S) {
+        LongBuffer segment = segments.get(edge / rowsPerSegment);
+        int offset = (edge % rowsPerSegment) * stride;
+        for (int w = 0; w < stride; w++) {
+            long word = segment.get(offset + w);
+            while (word != 0) {
+                if (S.get((w << 6) + Long.numberOfTrailingZeros(word))) {
+                    return true;
+                }
+                word &= word - 1;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean rowIsSubsetOf (int edge, BitSet S) {
+        LongBuffer segment = segments.get(edge / rowsPerSegment);
+        int offset = (edge % rowsPerSegment) * stride;
+        for (int w = 0; w < stride; w++) {
+            long word = segment.get(offset + w);
+            while (word != 0) {
+                if (!S.get((w << 6) + Long.numberOfTrailingZeros(word))) {
+                    return false;
+                }
+                word &= word - 1;
+            }
+        }
+
+        return true;
+    }
+
+    private void checkEdgeIndex (int edge) {
+        if (edge < 0 || edge >= numEdges) {
+            throw new IndexOutOfBoundsException("Edge " + edge + " out of range for hypergraph with " + numEdges + " edges.");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Helper class to handle converting Collection<Set<CyNode>> to an
+ * off-heap hypergraph and back
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+// Cytoscape imports
+import org.cytoscape.model.CyNode;
+
+// OCSANA imports
+
+/**
+ * Counterpart of {@link HypergraphOfSetsOfCyNodes} whose edges are
+ * kept in a file-backed {@link OffHeapHypergraph}.
+ * <p>
+ * The edges are written straight into the mapped rows without
+ * building a {@code BitSet} per set, then minimized. The sets are
+ * read twice, once to number the nodes and once to write the rows,
+ * so they may be a view which builds each set on demand (see {@link
+ * AbstractMHSAlgorithm#storesHypergraphOffHeap}). Callers should
+ * {@link #close()} this when done to delete the backing files.
+ **/
+public class OffHeapHypergraphOfSetsOfCyNodes
+    implements HypergraphStore, Closeable {
+    private final Map<CyNode, Integer> mapNodeToHash;
+    private final List<CyNode> mapHashToNode;
+
+    private final OffHeapHypergraph edges;
+
+    /**
+     * Construct an off-heap Hypergraph from a collection of Sets of
+     * CyNodes
+     *
+     * @param sets  the sets to transform into edges of the Hypergraph
+     **/
+    public OffHeapHypergraphOfSetsOfCyNodes (Collection<Set<CyNode>> sets)
+        throws IOException {
+        Objects.requireNonNull(sets, "Collection of sets cannot be null");
+
+        // First pass: collect the nodes so we know the row width
+        Set<CyNode> nodes = new HashSet<>();
+        int maxSetSize = 0;
+        int numSets = 0;
+        for (Set<CyNode> set: sets) {
+            nodes.addAll(set);
+            maxSetSize = Math.max(maxSetSize, set.size());
+            numSets++;
+        }
+
+        // Number the nodes by SUID, as HypergraphOfSetsOfCyNodes does
+        mapHashToNode = new ArrayList<>(nodes);
+        mapHashToNode.sort(Comparator.comparing(CyNode::getSUID));
+        mapNodeToHash = new HashMap<>();
+        for (int hash = 0; hash < mapHashToNode.size(); hash++) {
+            mapNodeToHash.put(mapHashToNode.get(hash), hash);
+        }
+
+        // Second pass: write the rows
+        try (OffHeapHypergraph rawEdges = OffHeapHypergraph.withTemporaryFile(mapHashToNode.size(), numSets)) {
+            int[] edge = new int[maxSetSize];
+            for (Set<CyNode> set: sets) {
+                int size = 0;
+                for (CyNode node: set) {
+                    edge[size++] = mapNodeToHash.get(node);
+                }
+                rawEdges.addEdge(edge, 0, size);
+            }
+
+            edges = rawEdges.minimization();
+        }
+    }
+
+    /**
+     * Convert a Hypergraph back into a collection of Sets of CyNodes
+     **/
+    public Collection<Set<CyNode>> getCyNodeSetsFromHypergraph (Hypergraph sets) {
+        Collection<Set<CyNode>> result = new ArrayList<>();
+        for (BitSet edge: sets) {
+            result.add(getCyNodesFromBitSet(edge));
+        }
+        return result;
+    }
+
+    /**
+     * Return a view of a collection of BitSets as Sets of CyNodes
+     *
+     * Each BitSet is converted only when the iteration reaches it.
+     **/
+    public Collection<Set<CyNode>> viewCyNodeSetsOfBitSets (Collection<BitSet> sets) {
+        return new AbstractCollection<Set<CyNode>>() {
+            @Override
+            public Iterator<Set<CyNode>> iterator () {
+                Iterator<BitSet> edges = sets.iterator();
+                return new Iterator<Set<CyNode>>() {
+                    @Override
+                    public boolean hasNext () {
+                        return edges.hasNext();
+                    }
+
+                    @Override
+                    public Set<CyNode> next () {
+                        return getCyNodesFromBitSet(edges.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size () {
+                return sets.size();
+            }
+        };
+    }
+
+    /**
+     * Convert a BitSet back into a Set of CyNodes
+     **/
+    public Set<CyNode> getCyNodesFromBitSet (BitSet edge) {
+        Set<CyNode> nodes = new HashSet<>();
+        for (int i = edge.nextSetBit(0); i >= 0; i = edge.nextSetBit(i+1)) {
+            if (i >= mapHashToNode.size()) {
+                throw new IllegalArgumentException("Hash " + i + " not used!");
+            }
+            nodes.add(mapHashToNode.get(i));
+        }
+        return nodes;
+    }
+
+    @Override
+    public int numVerts () {
+        return edges.numVerts();
+    }
+
+    @Override
+    public int numEdges () {
+        return edges.numEdges();
+    }
+
+    @Override
+    public int edgeCardinality (int edge) {
+        return edges.edgeCardinality(edge);
+    }
+
+    @Override
+    public boolean edgeContains (int edge, int v) {
+        return edges.edgeContains(edge, v);
+    }
+
+    @Override
+    public boolean edgeIntersects (int edge, BitSet S) {
+        return edges.edgeIntersects(edge, S);
+    }
+
+    @Override
+    public boolean edgeIsSubsetOf (int edge, BitSet S) {
+        return edges.edgeIsSubsetOf(edge, S);
+    }
+
+    @Override
+    public BitSet edgeAsBitSet (int edge) {
+        return edges.edgeAsBitSet(edge);
+    }
+
+    @Override
+    public OffHeapHypergraph transpose () {
+        return edges.transpose();
+    }
+
+    @Override
+    public boolean isTransversedBy (BitSet S) {
+        return edges.isTransversedBy(S);
+    }
+
+    @Override
+    public boolean hasEdgeCoveredBy (BitSet S) {
+        return edges.hasEdgeCoveredBy(S);
+    }
+
+    @Override
+    public void close ()
+        throws IOException {
+        edges.close();
+    }
+}
@@ -0,0 +1,437 @@
+/**
+ * Implementation of a hypergraph as fixed-stride rows of one long array
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * Cache-friendly implementation of hypergraphs.
+ * <p>
+ * Every edge is stored as a row of {@link #wordsPerEdge()} 64-bit
+ * words in a single {@code long[]}, in the same bit order as {@link
+ * BitSet#toLongArray()}, together with an array of edge
+ * cardinalities. Scanning edges therefore walks contiguous memory
+ * instead of chasing one object per edge, and there is no per-edge
+ * garbage.
+ * <p>
+ * The vertex count (and hence the row stride) is fixed at
+ * construction. Edges can be appended but not modified.
+ **/
+public class PackedHypergraph
+    implements HypergraphStore {
+    private static final int INITIAL_EDGE_CAPACITY = 16;
+
+    private final int numVerts;
+    private final int stride;
+
+    private long[] words;
+    private int[] cardinalities;
+    private int numEdges;
+
+    /**
+     * Construct an empty {@code PackedHypergraph}.
+     *
+     * @param numVerts  (positive) number of vertices
+     **/
+    public PackedHypergraph (int numVerts) {
+        this(numVerts, INITIAL_EDGE_CAPACITY);
+    }
+
+    /**
+     * Construct an empty {@code PackedHypergraph} with room for a
+     * given number of edges.
+     *
+     * @param numVerts  (positive) number of vertices
+     * @param edgeCapacity  number of edges to allocate room for
+     **/
+    public PackedHypergraph (int numVerts, int edgeCapacity) {
+        if (numVerts < 0) {
+            throw new IllegalArgumentException("A hypergraph can only have positively many vertices.");
+        }
+
+        if (edgeCapacity < 0) {
+            throw new IllegalArgumentException("Edge capacity cannot be negative.");
+        }
+
+        this.numVerts = numVerts;
+        this.stride = wordsFor(numVerts);
+        this.words = new long[stride * Math.max(edgeCapacity, 1)];
+        this.cardinalities = new int[Math.max(edgeCapacity, 1)];
+        this.numEdges = 0;
+    }
+
+    /**
+     * Construct a {@code PackedHypergraph} with the same edges as
+     * another hypergraph.
+     *
+     * @param other  the hypergraph to copy
+     **/
+    public PackedHypergraph (HypergraphStore other) {
+        this(other.numVerts(), other.numEdges());
+
+        int numE = other.numEdges();
+        for (int e = 0; e < numE; e++) {
+            addEdge(other.edgeAsBitSet(e));
+        }
+    }
+
+    /**
+     * Return a {@code PackedHypergraph} with the edges of a given
+     * hypergraph, avoiding a copy if it is already packed.
+     *
+     * @param H  the hypergraph to pack
+     **/
+    public static PackedHypergraph of (HypergraphStore H) {
+        if (H instanceof PackedHypergraph) {
+            return (PackedHypergraph) H;
+        }
+
+        return new PackedHypergraph(H);
+    }
+
+    /**
+     * Return the number of 64-bit words needed to store a set of
+     * vertices.
+     *
+     * @param numVerts  number of vertices
+     **/
+    static int wordsFor (int numVerts) {
+        return (numVerts + 63) >>> 6;
+    }
+
+    /**
+     * Append an edge.
+     *
+     * @param edge  the vertices of the new edge, all of which must be
+     * less than {@link #numVerts()}
+     * @return the index of the new edge
+     **/
+    public int addEdge (BitSet edge) {
+        if (edge.length() > numVerts) {
+            throw new IllegalArgumentException("Edge contains vertex " + (edge.length() - 1) + " but hypergraph has only " + numVerts + " vertices.");
+        }
+
+        ensureEdgeCapacity(numEdges + 1);
+
+        long[] edgeWords = edge.toLongArray();
+        System.arraycopy(edgeWords, 0, words, numEdges * stride, edgeWords.length);
+        cardinalities[numEdges] = edge.cardinality();
+
+        return numEdges++;
+    }
+
+    /**
+     * Append an edge given by the indices of its vertices.
+     *
+     * @param edge  the vertices of the new edge, all of which must be
+     * less than {@link #numVerts()}
+     * @return the index of the new edge
+     **/
+    public int addEdge (int[] edge) {
+        return addEdge(edge, 0, edge.length);
+    }
+
+    /**
+     * Append an edge given by a range of an array of vertex indices.
+     *
+     * @param vertices  array containing the vertices of the new edge,
+     * all of which must be less than {@link #numVerts()}
+     * @param from  the first index of the range (inclusive)
+     * @param to  the last index of the range (exclusive)
+     * @return the index of the new edge
+     **/
+    public int addEdge (int[] vertices, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int v = vertices[i];
+            if (v < 0 || v >= numVerts) {
+                throw new IllegalArgumentException("Vertex " + v + " out of range for hypergraph with " + numVerts + " vertices.");
+            }
+        }
+
+        ensureEdgeCapacity(numEdges + 1);
+
+        int offset = numEdges * stride;
+        int cardinality = 0;
+        for (int i = from; i < to; i++) {
+            int v = vertices[i];
+            long mask = 1L << v;
+            if ((words[offset + (v >>> 6)] & mask) == 0) {
+                words[offset + (v >>> 6)] |= mask;
+                cardinality++;
+            }
+        }
+        cardinalities[numEdges] = cardinality;
+
+        return numEdges++;
+    }
+
+    private void ensureEdgeCapacity (int edgeCapacity) {
+        if (edgeCapacity <= cardinalities.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(edgeCapacity, cardinalities.length + (cardinalities.length >> 1));
+        words = Arrays.copyOf(words, newCapacity * stride);
+        cardinalities = Arrays.copyOf(cardinalities, newCapacity);
+    }
+
+    @Override
+    public int numVerts () {
+        return numVerts;
+    }
+
+    @Override
+    public int numEdges () {
+        return numEdges;
+    }
+
+    /**
+     * Return the number of 64-bit words in each edge row.
+     **/
+    public int wordsPerEdge () {
+        return stride;
+    }
+
+    /**
+     * Return one word of an edge row.
+     *
+     * @param edge  the index of the edge
+     * @param wordIndex  the index of the word within the row
+     **/
+    public long word (int edge, int wordIndex) {
+        return words[edge * stride + wordIndex];
+    }
+
+    /**
+     * Return the backing array.
+     * <p>
+     * Row {@code e} occupies indices {@code e * wordsPerEdge()}
+     * (inclusive) to {@code (e + 1) * wordsPerEdge()} (exclusive).
+     * The array may be longer than {@code numEdges() *
+     * wordsPerEdge()}. Callers must not modify it.
+     **/
+    long[] words () {
+        return words;
+    }
+
+    @Override
+    public int edgeCardinality (int edge) {
+        checkEdgeIndex(edge);
+        return cardinalities[edge];
+    }
+
+    @Override
+    public boolean edgeContains (int edge, int v) {
+        checkEdgeIndex(edge);
+        if (v < 0 || v >= numVerts) {
+            return false;
+        }
+
+        return (words[edge * stride + (v >>> 6)] & (1L << v)) != 0;
+    }
+
+    @Override
+    public boolean edgeIntersects (int edge, BitSet S) {
+        checkEdgeIndex(edge);
+        return rowIntersects(edge * stride, S);
+    }
+
+    @Override
+    public boolean edgeIsSubsetOf (int edge, BitSet S) {
+        checkEdgeIndex(edge);
+        return rowIsSubsetOf(edge * stride, S);
+    }
+
+    @Override
+    public BitSet edgeAsBitSet (int edge) {
+        checkEdgeIndex(edge);
+        int offset = edge * stride;
+        return BitSet.valueOf(Arrays.copyOfRange(words, offset, offset + stride));
+    }
+
+    /**
+     * Return the index of the first vertex of an edge at or after a
+     * given vertex.
+     *
+     * @param edge  the index of the edge
+     * @param fromIndex  the vertex to start searching from
+     * @return the index of the vertex, or -1 if there is none
+     **/
+    public int nextVertex (int edge, int fromIndex) {
+        checkEdgeIndex(edge);
+        if (fromIndex >= numVerts) {
+            return -1;
+        }
+
+        int offset = edge * stride;
+        int wordIndex = fromIndex >>> 6;
+        long word = words[offset + wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+
+            if (++wordIndex == stride) {
+                return -1;
+            }
+
+            word = words[offset + wordIndex];
+        }
+    }
+
+    @Override
+    public boolean isTransversedBy (BitSet S) {
+        long[] sWords = S.toLongArray();
+        for (int e = 0; e < numEdges; e++) {
+            if (!rowIntersects(e * stride, sWords)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean hasEdgeCoveredBy (BitSet S) {
+        long[] sWords = S.toLongArray();
+        for (int e = 0; e < numEdges; e++) {
+            if (rowIsSubsetOf(e * stride, sWords)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return the union of the edges which miss a given set.
+     *
+     * @param S  a set of vertices
+     * @return a {@code BitSet} of every vertex lying in some edge
+     * disjoint from S
+     **/
+    public BitSet verticesOfEdgesMissing (BitSet S) {
+        long[] sWords = S.toLongArray();
+        long[] result = new long[stride];
+        for (int e = 0; e < numEdges; e++) {
+            int offset = e * stride;
+            if (!rowIntersects(offset, sWords)) {
+                for (int w = 0; w < stride; w++) {
+                    result[w] |= words[offset + w];
+                }
+            }
+        }
+
+        return BitSet.valueOf(result);
+    }
+
+    /**
+     * Return the transpose of this {@code PackedHypergraph}.
+     * <p>
+     * See {@link Hypergraph#transpose()}.
+     **/
+    @Override
+    public PackedHypergraph transpose () {
+        PackedHypergraph result = new PackedHypergraph(numEdges, numVerts);
+        result.numEdges = numVerts;
+
+        int resultStride = result.stride;
+        for (int e = 0; e < numEdges; e++) {
+            int offset = e * stride;
+            long eBit = 1L << e;
+            int eWord = e >>> 6;
+            for (int w = 0; w < stride; w++) {
+                long word = words[offset + w];
+                while (word != 0) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    result.words[v * resultStride + eWord] |= eBit;
+                    result.cardinalities[v]++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Test whether a row meets a set given as words.
+     **/
+    private boolean rowIntersects (int offset, long[] sWords) {
+        int n = Math.min(stride, sWords.length);
+        for (int w = 0; w < n; w++) {
+            if ((words[offset + w] & sWords[w]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Test whether a row is contained in a set given as words.
+     **/
+    private boolean rowIsSubsetOf (int offset, long[] sWords) {
+        for (int w = 0; w < stride; w++) {
+            long sWord = (w < sWords.length) ? sWords[w] : 0L;
+            if ((words[offset + w] & ~sWord) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Test whether a row meets a set, looking up each vertex of the
+     * row in the set rather than copying the set to words.
+     **/
+    private boolean rowIntersects (int offset, BitSet S) {
+        for (int w = 0; w < stride; w++) {
+            long word = words[offset + w];
+            while (word != 0) {
+                if (S.get((w << 6) + Long.numberOfTrailingZeros(word))) {
+                    return true;
+                }
+                word &= word - 1;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Test whether a row is contained in a set, looking up each vertex
+     * of the row in the set.
+     **/
+    private boolean rowIsSubsetOf (int offset, BitSet S) {
+        for (int w = 0; w < stride; w++) {
+            long word = words[offset + w];
+            while (word != 0) {
+                if (!S.get((w << 6) + Long.numberOfTrailingZeros(word))) {
+                    return false;
+                }
+                word &= word - 1;
+            }
+        }
+
+        return true;
+    }
+
+    private void checkEdgeIndex (int edge) {
+        if (edge < 0 || edge >= numEdges) {
+            throw new IndexOutOfBoundsException("Edge " + edge + " out of range for hypergraph with " + numEdges + " edges.");
+        }
+    }
+}
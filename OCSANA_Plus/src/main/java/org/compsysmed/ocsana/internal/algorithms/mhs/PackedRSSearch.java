@@ -0,0 +1,604 @@
+/**
+ * RS search over packed hypergraphs with preallocated state
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The RS algorithm over {@link PackedHypergraph}s, without per-branch
+ * allocation.
+ * <p>
+ * This follows {@code RSAlgorithm.RSRecursiveTask} step for step, but
+ * all of the search state lives in {@code long[]} words in a {@link
+ * Workspace} owned by the worker thread. The state of depth {@code d}
+ * (the critical edges saved when the {@code d}th vertex is added, the
+ * violating vertices and the search edge) occupies its own slot, so
+ * recursing and backtracking only overwrite words, and subset and
+ * intersection tests run word by word on the rows of the hypergraph
+ * and its transpose. Slots are allocated the first time a worker
+ * reaches each depth. Allocation happens only when a branch is forked
+ * to another worker (its starting state must be copied) and when an
+ * MHS is reported.
+ * <p>
+ * When the size is bounded, each branch also keeps a greedy packing of
+ * pairwise disjoint uncovered edges. Each of them needs its own vertex,
+ * so a branch whose packing is larger than its remaining budget cannot
+ * finish and is pruned. A child inherits the packing of its parent:
+ * the new vertex covers at most one of its edges, so the others remain
+ * a packing, and only the difference must be recomputed.
+ **/
+final class PackedRSSearch {
+    private final int numVerts;
+    private final int numEdges;
+
+    // Rows of H (vertex sets, vertWords wide) and T (edge sets, edgeWords wide)
+    private final long[] hWords;
+    private final long[] tWords;
+    private final int vertWords;
+    private final int edgeWords;
+
+    private final int maxCardinality;
+    private final int maxDepth;
+
+    private final SearchControl control;
+    private final ForkPolicy forkPolicy;
+
+    private final ThreadLocal<Workspace> workspaces;
+
+    /**
+     * Prepare a search.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  to receive the MHSes found and say when to stop
+     * @param forkPolicy  decides which branches to fork
+     **/
+    PackedRSSearch (PackedHypergraph H,
+                    int maxCardinality,
+                    SearchControl control,
+                    ForkPolicy forkPolicy) {
+        this(H, H.transpose(), maxCardinality, control, forkPolicy);
+    }
+
+    /**
+     * Prepare a search, given the transpose of the hypergraph.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param T  the transpose of H
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  to receive the MHSes found and say when to stop
+     * @param forkPolicy  decides which branches to fork
+     **/
+    PackedRSSearch (PackedHypergraph H,
+                    PackedHypergraph T,
+                    int maxCardinality,
+                    SearchControl control,
+                    ForkPolicy forkPolicy) {
+        this.numVerts = H.numVerts();
+        this.numEdges = H.numEdges();
+        this.hWords = H.words();
+        this.tWords = T.words();
+        this.vertWords = H.wordsPerEdge();
+        this.edgeWords = T.wordsPerEdge();
+
+        this.maxCardinality = maxCardinality;
+
+        // An MHS has a private edge for each of its vertices
+        int largestMHS = Math.min(numVerts, numEdges);
+        this.maxDepth = (maxCardinality > 0) ? Math.min(maxCardinality, largestMHS) : largestMHS;
+
+        this.control = control;
+        this.forkPolicy = forkPolicy;
+
+        this.workspaces = ThreadLocal.withInitial(Workspace::new);
+    }
+
+    /**
+     * Run the search in a pool and wait for it to finish.
+     **/
+    void run (ForkJoinPool pool) {
+        runBranch(pool, new BitSet(numVerts));
+    }
+
+    /**
+     * Run the search of the branch with a given candidate hitting set
+     * in a pool and wait for it to finish.
+     *
+     * @param pool  the pool to run the search in
+     * @param branch  the candidate hitting set of the branch
+     **/
+    void runBranch (ForkJoinPool pool,
+                    BitSet branch) {
+        if (numEdges == 0) {
+            return;
+        }
+
+        // An edge is uncovered if it misses the branch, and critical
+        // for v if v is its only vertex in the branch
+        int[] S = branch.stream().toArray();
+        if (S.length > maxDepth) {
+            throw new IllegalArgumentException("Branch is larger than any MHS of the search.");
+        }
+
+        long[] uncov = new long[edgeWords];
+        for (int e = 0; e < numEdges; e++) {
+            uncov[e >>> 6] |= 1L << e;
+        }
+
+        long[] coveredTwice = new long[edgeWords];
+        for (int v: S) {
+            for (int w = 0; w < edgeWords; w++) {
+                long edges = tWords[v * edgeWords + w];
+                coveredTwice[w] |= edges & ~uncov[w];
+                uncov[w] &= ~edges;
+            }
+        }
+
+        long[] critRows = new long[S.length * edgeWords];
+        for (int p = 0; p < S.length; p++) {
+            for (int w = 0; w < edgeWords; w++) {
+                critRows[p * edgeWords + w] = tWords[S[p] * edgeWords + w] & ~coveredTwice[w];
+            }
+        }
+
+        pool.invoke(new SearchTask(S, critRows, uncov, new long[vertWords]));
+
+        // Wait for all forked branches to complete
+        pool.invoke(new SHDRecursiveTask.TaskWaiter());
+    }
+
+    /**
+     * Per-thread search state.
+     * <p>
+     * {@code S[0 .. depth-1]} are the vertices of the candidate
+     * hitting set and {@code crit[p]} the edges for which {@code S[p]}
+     * is critical. The other arrays are indexed by depth.
+     **/
+    private final class Workspace {
+        final int[] S = new int[maxDepth + 1];
+        final long[][] crit = new long[maxDepth + 1][];
+        final long[] uncov = new long[edgeWords];
+
+        // critMarks[d] holds d rows: what adding S[d] removed from crit[0 .. d-1]
+        final long[][] critMarks = new long[maxDepth + 1][];
+        final long[][] violating = new long[maxDepth + 2][];
+        final long[][] searchEdges = new long[maxDepth + 1][];
+
+        // packings[d] holds packingSizes[d] disjoint uncovered edges
+        // (-1 if not computed), and blocked[d] the edges meeting them
+        final int[][] packings = new int[maxDepth + 1][];
+        final int[] packingSizes = new int[maxDepth + 1];
+        final long[][] blocked = new long[maxDepth + 1][];
+
+        // Search nodes visited by the current task
+        long visitedNodes;
+
+        long[] crit (int p) {
+            if (crit[p] == null) {
+                crit[p] = new long[edgeWords];
+            }
+            return crit[p];
+        }
+
+        long[] critMarks (int depth) {
+            if (critMarks[depth] == null) {
+                critMarks[depth] = new long[depth * edgeWords];
+            }
+            return critMarks[depth];
+        }
+
+        long[] violating (int depth) {
+            if (violating[depth] == null) {
+                violating[depth] = new long[vertWords];
+            }
+            return violating[depth];
+        }
+
+        long[] searchEdge (int depth) {
+            if (searchEdges[depth] == null) {
+                searchEdges[depth] = new long[vertWords];
+            }
+            return searchEdges[depth];
+        }
+
+        int[] packing (int depth) {
+            if (packings[depth] == null) {
+                packings[depth] = new int[maxDepth + 1];
+            }
+            return packings[depth];
+        }
+
+        long[] blocked (int depth) {
+            if (blocked[depth] == null) {
+                blocked[depth] = new long[edgeWords];
+            }
+            return blocked[depth];
+        }
+    }
+
+    /**
+     * Forkable branch of the search, carrying a copy of its starting
+     * state.
+     **/
+    private final class SearchTask
+        extends RecursiveAction {
+        private final int[] S;
+        private final long[] critRows;
+        private final long[] uncov;
+        private final long[] violating;
+
+        SearchTask (int[] S,
+                    long[] critRows,
+                    long[] uncov,
+                    long[] violating) {
+            this.S = S;
+            this.critRows = critRows;
+            this.uncov = uncov;
+            this.violating = violating;
+        }
+
+        @Override
+        protected void compute () {
+            // Branches never wait on each other, so a worker runs one
+            // at a time and may reuse its workspace
+            Workspace ws = workspaces.get();
+
+            int depth = S.length;
+            System.arraycopy(S, 0, ws.S, 0, depth);
+            for (int p = 0; p < depth; p++) {
+                System.arraycopy(critRows, p * edgeWords, ws.crit(p), 0, edgeWords);
+            }
+            System.arraycopy(uncov, 0, ws.uncov, 0, edgeWords);
+            System.arraycopy(violating, 0, ws.violating(depth), 0, vertWords);
+            ws.packingSizes[depth] = -1;
+
+            long start = System.nanoTime();
+            ws.visitedNodes = 0;
+            search(ws, depth);
+            forkPolicy.recordWork(depth, System.nanoTime() - start, ws.visitedNodes);
+        }
+    }
+
+    /**
+     * Extend the candidate hitting set in a workspace.
+     *
+     * @param ws  the workspace, holding a valid state of size depth
+     * @param depth  the size of the candidate hitting set
+     **/
+    private void search (Workspace ws,
+                         int depth) {
+        if (control.shouldStop()) {
+            if (depth > 0) {
+                control.noteUnfinishedRootBranch(ws.S[0]);
+            }
+            return;
+        }
+
+        ws.visitedNodes++;
+
+        // Get an uncovered edge
+        int searchEdgeIndex = firstSetBit(ws.uncov);
+        long[] searchEdge = ws.searchEdge(depth);
+        long[] violating = ws.violating(depth);
+        long[] newViolating = ws.violating(depth + 1);
+
+        // Remove known violating vertices, then check the remaining
+        // vertices for violation
+        int rowOffset = searchEdgeIndex * vertWords;
+        for (int w = 0; w < vertWords; w++) {
+            searchEdge[w] = hWords[rowOffset + w] & ~violating[w];
+            newViolating[w] = violating[w];
+        }
+
+        for (int w = 0; w < vertWords; w++) {
+            long word = searchEdge[w];
+            while (word != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+
+                if (vertexWouldViolate(ws, depth, v)) {
+                    newViolating[w] |= 1L << v;
+                    searchEdge[w] &= ~(1L << v);
+                }
+            }
+        }
+
+        if (depth == 0) {
+            control.noteRootBranches(BitSet.valueOf(searchEdge));
+        }
+
+        // Iterate through the vertices in the search edge in reverse order
+        for (int w = vertWords - 1; w >= 0; w--) {
+            long word = searchEdge[w];
+            while (word != 0) {
+                int bit = 63 - Long.numberOfLeadingZeros(word);
+                word &= ~(1L << bit);
+                int v = (w << 6) + bit;
+
+                if (control.shouldStop()) {
+                    if (depth > 0) {
+                        control.noteUnfinishedRootBranch(ws.S[0]);
+                    } else {
+                        // This branch and those not yet started
+                        long[] unfinished = Arrays.copyOf(searchEdge, w + 1);
+                        unfinished[w] = word | (1L << bit);
+                        control.noteUnfinishedRootBranches(BitSet.valueOf(unfinished));
+                    }
+                    return;
+                }
+
+                // Update crit and uncov
+                updateCritAndUncov(ws, depth, v);
+
+                // Check the critical edge condition
+                if (anyEdgeCriticalAfter(ws, depth, searchEdgeIndex)) {
+                    restoreCritAndUncov(ws, depth);
+                    continue;
+                }
+
+                // If we made it this far, S+v is valid
+                ws.S[depth] = v;
+                int newDepth = depth + 1;
+
+                // Process the new candidate S
+                int remainingBudget = (maxCardinality > 0) ? maxCardinality - newDepth : 0;
+                if (isEmpty(ws.uncov)) {
+                    // S is a genuine MHS, so we store it and move on
+                    BitSet mhs = new BitSet(numVerts);
+                    for (int p = 0; p < newDepth; p++) {
+                        mhs.set(ws.S[p]);
+                    }
+                    control.report(mhs);
+                } else if ((maxCardinality > 0) && (newDepth >= maxCardinality)) {
+                    // S cannot grow, so larger MHSes may be missed
+                    control.noteSizeLimitReached();
+                } else if ((maxCardinality > 0) && packingExceeds(ws, newDepth, remainingBudget)) {
+                    // S cannot grow enough to cover every edge
+                    control.noteSizeLimitReached();
+                } else if (control.mayImprove(ws.S, newDepth, ws.uncov, remainingBudget)) {
+                    if (forkPolicy.shouldFork(newDepth, cardinality(ws.uncov), remainingBudget, cardinality(searchEdge))) {
+                        // Spawn a new task for other workers to steal
+                        forkBranch(ws, newDepth, newViolating);
+                    } else {
+                        // Do the work in this thread on the next slots
+                        search(ws, newDepth);
+                    }
+                }
+
+                // Restore helper variables and proceed to the next vertex
+                restoreCritAndUncov(ws, depth);
+            }
+        }
+    }
+
+    private void forkBranch (Workspace ws,
+                             int depth,
+                             long[] violating) {
+        long start = System.nanoTime();
+
+        long[] critRows = new long[depth * edgeWords];
+        for (int p = 0; p < depth; p++) {
+            System.arraycopy(ws.crit(p), 0, critRows, p * edgeWords, edgeWords);
+        }
+
+        SearchTask child = new SearchTask(Arrays.copyOf(ws.S, depth), critRows, ws.uncov.clone(), violating.clone());
+        forkPolicy.recordCopy(System.nanoTime() - start);
+
+        child.fork();
+    }
+
+    /**
+     * Update the packing of disjoint uncovered edges for the
+     * candidate hitting set of a given size, and determine whether it
+     * has more edges than a given budget.
+     *
+     * @param ws  the workspace, holding a valid state of size depth
+     * @param depth  the size of the candidate hitting set, at least 1
+     * @param budget  how many more vertices the branch may add
+     **/
+    private boolean packingExceeds (Workspace ws,
+                                    int depth,
+                                    int budget) {
+        int[] packing = ws.packing(depth);
+        long[] blocked = ws.blocked(depth);
+        int size = 0;
+
+        int parentSize = ws.packingSizes[depth - 1];
+        if (parentSize >= 0) {
+            // Keep the edges of the parent packing which are still
+            // uncovered
+            int[] parentPacking = ws.packing(depth - 1);
+            for (int i = 0; i < parentSize; i++) {
+                int e = parentPacking[i];
+                if ((ws.uncov[e >>> 6] & (1L << e)) != 0) {
+                    packing[size++] = e;
+                }
+            }
+
+            if (size == parentSize) {
+                System.arraycopy(ws.blocked(depth - 1), 0, blocked, 0, edgeWords);
+            } else {
+                Arrays.fill(blocked, 0L);
+                for (int i = 0; i < size; i++) {
+                    block(blocked, packing[i]);
+                }
+            }
+        } else {
+            Arrays.fill(blocked, 0L);
+        }
+
+        // Extend the packing with uncovered edges meeting none of it
+        for (int w = 0; (w < edgeWords) && (size <= budget); w++) {
+            long word = ws.uncov[w] & ~blocked[w];
+            while ((word != 0) && (size <= budget)) {
+                int e = (w << 6) + Long.numberOfTrailingZeros(word);
+                packing[size++] = e;
+                block(blocked, e);
+                word = ws.uncov[w] & ~blocked[w];
+            }
+        }
+
+        ws.packingSizes[depth] = size;
+        return size > budget;
+    }
+
+    /**
+     * Add the edges meeting a given edge (including itself) to a set
+     * of edges.
+     **/
+    private void block (long[] blocked,
+                        int e) {
+        int rowOffset = e * vertWords;
+        for (int w = 0; w < vertWords; w++) {
+            long word = hWords[rowOffset + w];
+            while (word != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+
+                int tOffset = v * edgeWords;
+                for (int x = 0; x < edgeWords; x++) {
+                    blocked[x] |= tWords[tOffset + x];
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine whether adding v would leave some vertex of S with no
+     * critical edges, that is, whether some crit[p] is contained in
+     * the covered edges hit by v.
+     **/
+    private boolean vertexWouldViolate (Workspace ws,
+                                        int depth,
+                                        int v) {
+        int tOffset = v * edgeWords;
+        for (int p = 0; p < depth; p++) {
+            long[] critRow = ws.crit(p);
+            boolean contained = true;
+            for (int w = 0; w < edgeWords; w++) {
+                long testEdges = tWords[tOffset + w] & ~ws.uncov[w];
+                if ((critRow[w] & ~testEdges) != 0) {
+                    contained = false;
+                    break;
+                }
+            }
+
+            if (contained) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Update crit and uncov to reflect S+v, saving what changed in
+     * the marks for this depth.
+     **/
+    private void updateCritAndUncov (Workspace ws,
+                                     int depth,
+                                     int v) {
+        int tOffset = v * edgeWords;
+        long[] marks = ws.critMarks(depth);
+
+        // Remove anything v hits from the other crit[p]s
+        for (int p = 0; p < depth; p++) {
+            long[] critRow = ws.crit(p);
+            int markOffset = p * edgeWords;
+            for (int w = 0; w < edgeWords; w++) {
+                long hit = critRow[w] & tWords[tOffset + w];
+                marks[markOffset + w] = hit;
+                critRow[w] &= ~hit;
+            }
+        }
+
+        // v is critical for the uncovered edges it hits, which are
+        // now covered
+        long[] vCrit = ws.crit(depth);
+        for (int w = 0; w < edgeWords; w++) {
+            long newCrit = tWords[tOffset + w] & ws.uncov[w];
+            vCrit[w] = newCrit;
+            ws.uncov[w] &= ~newCrit;
+        }
+    }
+
+    /**
+     * Undo {@link #updateCritAndUncov} for the vertex added at this
+     * depth.
+     **/
+    private void restoreCritAndUncov (Workspace ws,
+                                      int depth) {
+        long[] vCrit = ws.crit(depth);
+        for (int w = 0; w < edgeWords; w++) {
+            ws.uncov[w] |= vCrit[w];
+            vCrit[w] = 0;
+        }
+
+        long[] marks = ws.critMarks(depth);
+        for (int p = 0; p < depth; p++) {
+            long[] critRow = ws.crit(p);
+            int markOffset = p * edgeWords;
+            for (int w = 0; w < edgeWords; w++) {
+                critRow[w] |= marks[markOffset + w];
+            }
+        }
+    }
+
+    /**
+     * Determine whether any vertex in S has its first critical edge
+     * at or after a given edge.
+     **/
+    private boolean anyEdgeCriticalAfter (Workspace ws,
+                                          int depth,
+                                          int edge) {
+        for (int p = 0; p < depth; p++) {
+            int firstCritEdge = firstSetBit(ws.crit(p));
+            if (firstCritEdge < 0) {
+                throw new IllegalArgumentException("Vertex in S has no critical edges.");
+            } else if (firstCritEdge >= edge) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int firstSetBit (long[] words) {
+        for (int w = 0; w < words.length; w++) {
+            if (words[w] != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(words[w]);
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isEmpty (long[] words) {
+        for (long word: words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int cardinality (long[] words) {
+        int count = 0;
+        for (long word: words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -13,13 +13,20 @@ package org.compsysmed.ocsana.internal.algorithms.mhs;
 
 // Java imports
 import java.util.*;
+import java.io.*;
+
+import java.nio.file.Files;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
 
 // Cytoscape imports
 import org.cytoscape.work.Tunable;
 import org.cytoscape.work.util.BoundedInteger;
+import org.cytoscape.work.util.ListSingleSelection;
 
 import org.cytoscape.model.CyNode;
 
@@ -30,10 +37,21 @@ import org.cytoscape.model.CyNode;
  **/
 
 public class RSAlgorithm
-    extends AbstractMHSAlgorithm {
+    extends AbstractStreamingMHSAlgorithm {
     private static final String NAME = "RS algorithm";
     private static final String SHORTNAME = "RS";
 
+    // Descriptions of the tunables which may override each other
+    private static final String OFF_HEAP = "Store hypergraph off-heap";
+    private static final String REDUCE = "Reduce hypergraph before search";
+    private static final String SPLIT = "Solve independent components separately";
+    private static final String TOP_K = "Find only the best CIs";
+    private static final String BY_SIZE = "Report CIs in order of size";
+    private static final String VERTEX_ORDER = "Vertex order";
+    private static final String EDGE_ORDER = "Path order";
+    private static final String CHECKPOINT = "Save progress to a checkpoint file";
+    private static final String WORKERS = "Search in worker processes";
+
     // Tunables for threading
     @Tunable(description = "Bound thread count",
              gravity = 350,
@@ -56,48 +74,626 @@ public class RSAlgorithm
              dependsOn = "useMaxCardinality=true")
     public BoundedInteger maxCardinalityBInt;
 
+    // Tunables for memory use
+    @Tunable(description = OFF_HEAP,
+             gravity = 354,
+             tooltip="Keeps the path hypergraph in a temporary file instead of the Java heap")
+    public Boolean storeOffHeap = false;
+
+    // Tunables for preprocessing
+    @Tunable(description = REDUCE,
+             gravity = 355,
+             tooltip="Removes forced nodes and merges nodes lying on exactly the same paths")
+    public Boolean reduceHypergraph = false;
+
+    @Tunable(description = SPLIT,
+             gravity = 356,
+             tooltip="Finds the CIs of each group of paths sharing no nodes with the others on its own")
+    public Boolean splitComponents = false;
+
+    // Tunables for the search engine
+    @Tunable(description = "Preallocate search state",
+             gravity = 357,
+             tooltip="Searches packed rows with per-thread state instead of allocating at each step")
+    public Boolean preallocateSearchState = true;
+
+    @Tunable(description = "Task splitting policy",
+             gravity = 358,
+             tooltip="Fixed forks while few tasks are queued; adaptive weighs branch size against copying cost")
+    public ListSingleSelection<ForkPolicy.Kind> forkPolicy;
+
+    @Tunable(description = "Sequential search depth",
+             gravity = 359,
+             tooltip="Branches at this CI size or larger are searched without splitting (sequential policy only)")
+    public BoundedInteger sequentialDepth;
+
+    // Tunables for score-guided search
+    @Tunable(description = TOP_K,
+             gravity = 360,
+             tooltip="Skips branches which cannot beat the best CIs found so far by OCSANA score")
+    public Boolean useTopK = false;
+
+    @Tunable(description = "Number of best CIs",
+             gravity = 361,
+             dependsOn = "useTopK=true")
+    public BoundedInteger topKBInt;
+
+    // Tunables for result order
+    @Tunable(description = BY_SIZE,
+             gravity = 362,
+             tooltip="Finds every CI of each size before starting on the next size; the hypergraph is neither reduced nor split")
+    public Boolean searchBySize = false;
+
+    // Tunables for branching
+    @Tunable(description = "Branch on edge with fewest candidates",
+             gravity = 363,
+             tooltip="Uses MMCS's candidate sets instead of RS's edge order to keep the results minimal; ignores the search engine options")
+    public Boolean branchOnFewestCandidates = false;
+
+    // Tunables for numbering
+    @Tunable(description = VERTEX_ORDER,
+             gravity = 364,
+             tooltip="Order in which the search tries the nodes of each path")
+    public ListSingleSelection<HypergraphOrdering.VertexOrder> vertexOrder;
+
+    @Tunable(description = EDGE_ORDER,
+             gravity = 365,
+             tooltip="Order in which the search branches on the paths")
+    public ListSingleSelection<HypergraphOrdering.EdgeOrder> edgeOrder;
+
+    // Tunables for checkpointing
+    @Tunable(description = CHECKPOINT,
+             gravity = 366,
+             tooltip="Saves the unsearched branches and the CIs found so far, and resumes from the file if it exists; the hypergraph is neither reduced nor split")
+    public Boolean useCheckpoint = false;
+
+    @Tunable(description = "Checkpoint file",
+             gravity = 367,
+             dependsOn = "useCheckpoint=true",
+             params = "input=false")
+    public File checkpointFile;
+
+    @Tunable(description = "Minutes between checkpoints",
+             gravity = 368,
+             dependsOn = "useCheckpoint=true")
+    public BoundedInteger checkpointMinutes;
+
+    // Tunables for worker processes
+    @Tunable(description = WORKERS,
+             gravity = 369,
+             tooltip="Splits the search into branches searched by separate Java processes; the hypergraph is neither reduced nor split")
+    public Boolean useWorkers = false;
+
+    @Tunable(description = "Number of worker processes",
+             gravity = 370,
+             dependsOn = "useWorkers=true")
+    public BoundedInteger numWorkers;
+
+    @Tunable(description = "Split search at CI size",
+             gravity = 371,
+             dependsOn = "useWorkers=true",
+             tooltip="Branches whose candidate reaches this many nodes are handed to the workers")
+    public BoundedInteger splitSize;
+
+    @Tunable(description = "Worker launch command",
+             gravity = 372,
+             dependsOn = "useWorkers=true",
+             tooltip="Command given the worker command line as its last argument, such as ssh to run it on another machine sharing the work directory")
+    public String workerLauncher = "";
+
+    @Tunable(description = "Work directory",
+             gravity = 373,
+             dependsOn = "useWorkers=true",
+             tooltip="Directory for the files shared with the workers (the system temporary directory if not set)")
+    public File workDirectory;
+
     public RSAlgorithm () {
         super();
         numThreads = new BoundedInteger(1, 1, Runtime.getRuntime().availableProcessors(), false, false);
         maxCardinalityBInt = new BoundedInteger(1, 6, 20, false, false);
+        forkPolicy = new ListSingleSelection<>(Arrays.asList(ForkPolicy.Kind.values()));
+        sequentialDepth = new BoundedInteger(0, 3, 20, false, false);
+        topKBInt = new BoundedInteger(1, 100, 100000, false, false);
+        vertexOrder = new ListSingleSelection<>(Arrays.asList(HypergraphOrdering.VertexOrder.values()));
+        edgeOrder = new ListSingleSelection<>(Arrays.asList(HypergraphOrdering.EdgeOrder.values()));
+        checkpointMinutes = new BoundedInteger(1, 10, 1440, false, false);
+        numWorkers = new BoundedInteger(1, Runtime.getRuntime().availableProcessors(), 256, false, false);
+        splitSize = new BoundedInteger(1, 2, 20, false, false);
     }
 
     // No docstring because the interface has one
     @Override
     public Collection<Set<CyNode>> MHSes (Collection<Set<CyNode>> sets) {
+        if (findsTopMHSes()) {
+            return topMHSes(sets);
+        }
+
+        if (searchBySize || reordersHypergraph() || useCheckpoint || useWorkers) {
+            // Collect the streamed MHSes (which arrive smallest first
+            // when searching by size)
+            List<Set<CyNode>> result = new ArrayList<>();
+            streamMHSes(sets, result::add, 0);
+            return result;
+        }
+
+        if (storeOffHeap) {
+            return offHeapMHSes(sets);
+        }
+
         HypergraphOfSetsOfCyNodes inputHypergraph
             = new HypergraphOfSetsOfCyNodes(sets);
 
-        inputHypergraph.minimize();
+        // NOTE: the constructor has already minimized inputHypergraph
 
-        Hypergraph resultHypergraph = transversalHypergraph(inputHypergraph);
-
-        return inputHypergraph.getCyNodeSetsFromHypergraph(resultHypergraph);
+        return inputHypergraph.viewCyNodeSetsOfBitSets(transversalsOfNodeSets(inputHypergraph));
     };
 
     /**
-     * Compute MHSes of a given hypergraph.
+     * Compute MHSes of the hypergraph of a collection of sets, with
+     * the same configured search as {@link #MHSes}, except that it is
+     * not moved off-heap.
+     *
+     * @param H  the hypergraph of the sets
+     **/
+    @Override
+    Collection<BitSet> transversalsOfNodeSets (HypergraphOfSetsOfCyNodes H) {
+        if (findsTopMHSes()) {
+            return topTransversals(H, ocsanaVertexScores(H), topK());
+        }
+
+        if (searchBySize || reordersHypergraph() || useCheckpoint || useWorkers) {
+            List<BitSet> result = new ArrayList<>();
+            streamTransversals(H, result::add, 0);
+            return result;
+        }
+
+        if (reduceHypergraph) {
+            return reducedTransversals(new HypergraphKernel(H));
+        }
+
+        if (splitComponents) {
+            return searchTransversals(H, maxCardinality());
+        }
+
+        return transversalHypergraph(new PackedHypergraph(H));
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public boolean storesHypergraphOffHeap () {
+        return storeOffHeap;
+    }
+
+    /**
+     * Compute MHSes of a collection of sets whose hypergraph is kept
+     * off the heap.
+     **/
+    private Collection<Set<CyNode>> offHeapMHSes (Collection<Set<CyNode>> sets) {
+        try (OffHeapHypergraphOfSetsOfCyNodes inputHypergraph
+             = new OffHeapHypergraphOfSetsOfCyNodes(sets)) {
+            if (reduceHypergraph) {
+                return inputHypergraph.viewCyNodeSetsOfBitSets(reducedTransversals(new HypergraphKernel(inputHypergraph)));
+            }
+
+            if (splitComponents) {
+                return inputHypergraph.viewCyNodeSetsOfBitSets(searchTransversals(inputHypergraph, maxCardinality()));
+            }
+
+            Hypergraph resultHypergraph = transversalHypergraph(inputHypergraph);
+            return inputHypergraph.getCyNodeSetsFromHypergraph(resultHypergraph);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store hypergraph off-heap", e);
+        }
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public long streamMHSes (Collection<Set<CyNode>> sets,
+                             MHSConsumer<? super Set<CyNode>> consumer,
+                             long maxResults) {
+        if (findsTopMHSes() || !storeOffHeap) {
+            return super.streamMHSes(sets, consumer, maxResults);
+        }
+
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+
+        try (OffHeapHypergraphOfSetsOfCyNodes inputHypergraph
+             = new OffHeapHypergraphOfSetsOfCyNodes(sets)) {
+            return streamTransversals(inputHypergraph, translated(inputHypergraph::getCyNodesFromBitSet, consumer), maxResults);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store hypergraph off-heap", e);
+        }
+    }
+
+    /**
+     * Find MHSes of a given hypergraph, reporting each to a control.
+     * <p>
+     * When the hypergraph is reduced, each MHS of the kernel is
+     * expanded as soon as it is found. When it is split into
+     * components, every component is solved before the first MHS is
+     * reported. When searching by size, neither is done.
+     * <p>
+     * The hypergraph is first renumbered as configured, unless it is
+     * stored off-heap or the search keeps the best MHSes by score.
+     * <p>
+     * A search in worker processes or a checkpointed search is
+     * neither reduced, split nor ordered by size. A search in worker
+     * processes is not checkpointed. {@link #ignoredOptions} lists the
+     * options skipped this way.
      *
      * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
      **/
-    public Hypergraph transversalHypergraph(Hypergraph H) {
-        // Generate inputs to algorithm
-        Hypergraph T = H.transpose();
-        ConcurrentLinkedQueue<BitSet> results = new ConcurrentLinkedQueue<>();
+    @Override
+    void search (HypergraphStore H,
+                 SearchControl control) {
+        if (reordersHypergraph() && !storeOffHeap && !control.keepsTopK()) {
+            HypergraphOrdering.VertexOrder vertexOrderKind = vertexOrder.getSelectedValue();
+            IntToDoubleFunction vertexScore = ocsanaVertexScores(H);
+            if ((vertexOrderKind == HypergraphOrdering.VertexOrder.SCORE_DESCENDING) && (vertexScore == null)) {
+                // Without scores, keep the vertices as they are
+                vertexOrderKind = HypergraphOrdering.VertexOrder.AS_GIVEN;
+            }
 
-        // Handle argument processing
-        int maxCardinality;
+            HypergraphOrdering ordering = new HypergraphOrdering(H, vertexOrderKind, edgeOrder.getSelectedValue(), vertexScore);
+            searchInOrder(ordering.reordered(), new SearchControl(control, ordering::restore));
+        } else {
+            searchInOrder(H, control);
+        }
+    }
+
+    /**
+     * Find MHSes of a given hypergraph as numbered, reporting each to
+     * a control.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
+     **/
+    private void searchInOrder (HypergraphStore H,
+                                SearchControl control) {
+        if (useWorkers && !control.keepsTopK()) {
+            searchWithWorkers(H, control);
+            return;
+        }
+
+        if (useCheckpoint && !control.keepsTopK()) {
+            searchWithCheckpoints(H, control);
+            return;
+        }
+
+        if (searchBySize) {
+            searchTransversalsBySize(H, control);
+            return;
+        }
+
+        if (!reduceHypergraph) {
+            searchTransversals(H, maxCardinality(), control);
+            return;
+        }
+
+        HypergraphKernel kernel = new HypergraphKernel(H);
+        int maxCardinality = maxCardinality();
+        int reducedMaxCardinality = maxCardinality - kernel.numForcedVertices();
+
+        if ((kernel.reducedHypergraph().numEdges() == 0)
+            || ((maxCardinality > 0) && (reducedMaxCardinality <= 0))) {
+            // There is nothing to search
+            control.reportAll(reducedTransversals(kernel));
+        } else {
+            SearchControl kernelControl
+                = new SearchControl(T -> control.reportAll(kernel.expand(Collections.singletonList(T))), control::shouldStop);
+            searchTransversals(kernel.reducedHypergraph(), (maxCardinality > 0) ? reducedMaxCardinality : 0, kernelControl);
+            control.copyRootBranches(kernelControl);
+        }
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph by searching its kernel.
+     *
+     * @param kernel  the kernel of the hypergraph whose MHSes we
+     * should find
+     * @return the MHSes of the hypergraph, expanded from those of the
+     * kernel as they are iterated over
+     **/
+    private Collection<BitSet> reducedTransversals (HypergraphKernel kernel) {
+        PackedHypergraph reduced = kernel.reducedHypergraph();
+
+        // Every MHS contains the forced vertices, which count toward
+        // the size bound
+        int maxCardinality = maxCardinality();
+        int reducedMaxCardinality = maxCardinality - kernel.numForcedVertices();
+
+        Collection<BitSet> classTransversals;
+        if ((maxCardinality > 0) && (reducedMaxCardinality < 0)) {
+            classTransversals = Collections.emptyList();
+        } else if (reduced.numEdges() == 0) {
+            // Only the forced vertices are needed
+            classTransversals = Collections.singletonList(new BitSet());
+        } else if ((maxCardinality > 0) && (reducedMaxCardinality == 0)) {
+            classTransversals = Collections.emptyList();
+        } else {
+            classTransversals = searchTransversals(reduced, (maxCardinality > 0) ? reducedMaxCardinality : 0);
+        }
+
+        return kernel.expand(classTransversals);
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph, one component at a time if
+     * so configured.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     **/
+    private Collection<BitSet> searchTransversals (HypergraphStore H,
+                                                   int maxCardinality) {
+        if (splitComponents) {
+            SearchControl control = new SearchControl(mhs -> true, this::isCanceled);
+            Collection<BitSet> MHSes = componentTransversals(H, maxCardinality, control);
+            setFractionExplored(control.fractionExplored());
+            return MHSes;
+        }
+
+        return transversalHypergraph(H, maxCardinality);
+    }
+
+    /**
+     * Find MHSes of a given hypergraph, one component at a time if so
+     * configured, reporting each to a control.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  to receive the MHSes
+     **/
+    private void searchTransversals (HypergraphStore H,
+                                     int maxCardinality,
+                                     SearchControl control) {
+        if (splitComponents) {
+            control.reportAll(componentTransversals(H, maxCardinality, control));
+        } else {
+            runSearch(H, maxCardinality, control);
+        }
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph one component at a time,
+     * noting the progress of the search in a control.
+     * <p>
+     * Each component is searched with a control of its own and counts
+     * as one branch at the root of the search, identified by its
+     * smallest vertex, which is unfinished unless its search ran to
+     * the end. The MHSes are not reported to the control.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  says when to stop and receives the progress
+     **/
+    private Collection<BitSet> componentTransversals (HypergraphStore H,
+                                                      int maxCardinality,
+                                                      SearchControl control) {
+        HypergraphComponents split = new HypergraphComponents(H);
+
+        BitSet componentBranches = new BitSet(H.numVerts());
+        for (int i = 0; i < split.numComponents(); i++) {
+            componentBranches.set(split.componentVertices(i)[0]);
+        }
+        control.noteRootBranches(componentBranches);
+
+        // The components are solved in order, all in the same pool
+        int[] numFinished = new int[1];
+        ForkJoinPool pool = newPool();
+        try {
+            Collection<BitSet> MHSes = split.transversals(C -> {
+                    Hypergraph componentMHSes = new Hypergraph(C.numVerts());
+                    SearchControl componentControl = new SearchControl(componentMHSes::add, control::shouldStop);
+                    runSearch(C, maxCardinality, componentControl, pool);
+
+                    if (componentControl.sizeLimitReached()) {
+                        control.noteSizeLimitReached();
+                    }
+                    if (!componentControl.shouldStop()) {
+                        numFinished[0]++;
+                    }
+                    return componentMHSes;
+                }, maxCardinality);
+
+            for (int i = numFinished[0]; i < split.numComponents(); i++) {
+                control.noteUnfinishedRootBranch(split.componentVertices(i)[0]);
+            }
+
+            return MHSes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Find MHSes of a given hypergraph in order of size, reporting
+     * each to a control.
+     * <p>
+     * The search is run once for each size s, bounded to size s, and
+     * reports only the MHSes of size exactly s; those of smaller sizes
+     * were reported by earlier runs. Thus each size is complete before
+     * the next begins, and memory use is that of a single search. The
+     * early runs are cheap next to the last, since the number of
+     * branches grows quickly with the size bound. Once a run abandons
+     * no branch at its size bound, every MHS has been found.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
+     **/
+    private void searchTransversalsBySize (HypergraphStore H,
+                                           SearchControl control) {
+        if (H.numEdges() == 0) {
+            return;
+        }
+
+        int maxCardinality = maxCardinality();
+        int largestMHS = Math.min(H.numVerts(), H.numEdges());
+        int lastSize = (maxCardinality > 0) ? Math.min(maxCardinality, largestMHS) : largestMHS;
+
+        // Every level runs in the same pool
+        ForkJoinPool pool = newPool();
+        try {
+            for (int size = 1; (size <= lastSize) && !control.shouldStop(); size++) {
+                final int level = size;
+                SearchControl levelControl
+                    = new SearchControl(mhs -> (mhs.cardinality() < level) || control.report(mhs), control::shouldStop);
+                runSearch(H, level, levelControl, pool);
+
+                if (control.shouldStop()) {
+                    // Report the progress of the unfinished size
+                    control.copyRootBranches(levelControl);
+                    break;
+                }
+
+                control.sizeComplete(level);
+
+                if (!levelControl.sizeLimitReached()) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Determine whether the tunables ask for the hypergraph to be
+     * renumbered.
+     **/
+    private boolean reordersHypergraph () {
+        return (vertexOrder.getSelectedValue() != HypergraphOrdering.VertexOrder.AS_GIVEN)
+            || (edgeOrder.getSelectedValue() != HypergraphOrdering.EdgeOrder.AS_GIVEN);
+    }
+
+    @Override
+    int topK () {
+        return useTopK ? topKBInt.getValue() : 0;
+    }
+
+    /**
+     * Return the size bound from the tunables (0 for no bound).
+     **/
+    private int maxCardinality () {
         if (useMaxCardinality) {
-            maxCardinality = maxCardinalityBInt.getValue();
+            return maxCardinalityBInt.getValue();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     **/
+    @Override
+    public Hypergraph transversalHypergraph(HypergraphStore H) {
+        return transversalHypergraph(H, maxCardinality());
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     **/
+    private Hypergraph transversalHypergraph (HypergraphStore H,
+                                              int maxCardinality) {
+        ForkJoinPool pool = newPool();
+        try {
+            return transversalHypergraph(H, maxCardinality, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compute MHSes of a given hypergraph in a given pool.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param pool  to run the search
+     **/
+    private Hypergraph transversalHypergraph (HypergraphStore H,
+                                              int maxCardinality,
+                                              ForkJoinPool pool) {
+        // The control passes the MHSes one at a time
+        Hypergraph MHSes = new Hypergraph(H.numVerts());
+        SearchControl control = new SearchControl(MHSes::add, this::isCanceled);
+        runSearch(H, maxCardinality, control, pool);
+        setFractionExplored(control.fractionExplored());
+
+        return MHSes;
+    }
+
+    /**
+     * Return a new pool with the configured number of threads.
+     **/
+    private ForkJoinPool newPool () {
+        if (configureThreads) {
+            return new ForkJoinPool (numThreads.getValue());
         } else {
-            maxCardinality = 0;
+            return new ForkJoinPool ();
+        }
+    }
+
+    /**
+     * Run the search engine on a given hypergraph in a pool of its
+     * own.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  to receive the MHSes
+     **/
+    private void runSearch (HypergraphStore H,
+                            int maxCardinality,
+                            SearchControl control) {
+        ForkJoinPool pool = newPool();
+        try {
+            runSearch(H, maxCardinality, control, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Run the search engine on a given hypergraph in a given pool.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  to receive the MHSes
+     * @param pool  to run the search
+     **/
+    private void runSearch (HypergraphStore H,
+                            int maxCardinality,
+                            SearchControl control,
+                            ForkJoinPool pool) {
+        ForkPolicy policy = ForkPolicy.of(forkPolicy.getSelectedValue(), sequentialDepth.getValue());
+
+        // RS must branch on the first uncovered edge, so branching
+        // on any other edge needs MMCS's bookkeeping
+        if (branchOnFewestCandidates) {
+            MMCSAlgorithm.search(H, maxCardinality, control, pool, policy);
+            return;
+        }
+
+        // NOTE: the preallocated engine needs H on the heap
+        if (preallocateSearchState && !storeOffHeap) {
+            PackedRSSearch search = new PackedRSSearch(PackedHypergraph.of(H), maxCardinality, control, policy);
+            search.run(pool);
+            return;
         }
 
+        // Generate inputs to algorithm
+        HypergraphStore T = H.transpose();
+
         // Candidate hitting set, initially empty
         BitSet S = new BitSet(H.numVerts());
 
         // Which edges each vertex is critical for (initially all empty)
-        Hypergraph crit = new Hypergraph (H.numEdges(), H.numVerts());
+        CritTable crit = new CritTable();
 
         // Which edges are uncovered (initially full)
         BitSet uncov = new BitSet(H.numEdges());
@@ -107,34 +703,388 @@ public class RSAlgorithm
         BitSet violatingVertices = new BitSet (H.numVerts());
 
         // Set up and run the calculation
-        RSRecursiveTask calculation = new RSRecursiveTask(H, T, S, crit, uncov, violatingVertices, maxCardinality, results);
-
-        ForkJoinPool pool;
-        if (configureThreads) {
-            pool = new ForkJoinPool (numThreads.getValue());
-        } else {
-            pool = new ForkJoinPool ();
-        }
+        RSRecursiveTask calculation = new RSRecursiveTask(H, T, S, crit, uncov, violatingVertices, maxCardinality, control, policy, new long[1], null);
         pool.invoke(calculation);
 
         // Wait for all algorithms to complete
         pool.invoke(new SHDRecursiveTask.TaskWaiter());
 
-        // Construct a Hypergraph with the resulting MHSes
-        Hypergraph MHSes = new Hypergraph(H.numVerts());
-        for (BitSet edge: results) {
-            if (isCanceled()) {
-                break;
+        // Release the transpose if it holds off-heap storage
+        if (T instanceof Closeable) {
+            try {
+                ((Closeable) T).close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not release transpose hypergraph", e);
+            }
+        }
+    }
+
+    /**
+     * Find MHSes of a given hypergraph, saving the search to the
+     * checkpoint file at intervals and resuming it from the file if it
+     * exists.
+     * <p>
+     * The search runs in rounds. Each round searches the pending
+     * branches (at first, the root) with the legacy engine until the
+     * next checkpoint is due. The tasks then record every branch they
+     * have not yet entered as pending instead of searching it, so once
+     * they finish, the MHSes found and the pending branches make up a
+     * consistent checkpoint, which is written before the next round
+     * starts. Cancellation ends the search the same way, so its last
+     * checkpoint is kept. The file is deleted once the search is
+     * complete.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
+     **/
+    private void searchWithCheckpoints (HypergraphStore H,
+                                        SearchControl control) {
+        if (checkpointFile == null) {
+            throw new IllegalArgumentException("A checkpoint file must be chosen.");
+        }
+
+        if (H.numEdges() == 0) {
+            return;
+        }
+
+        int maxCardinality = maxCardinality();
+        BranchFrontier frontier = new BranchFrontier(control, 0);
+
+        SearchCheckpoint checkpoint;
+        try {
+            checkpoint = SearchCheckpoint.read(checkpointFile, H, maxCardinality);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read checkpoint file", e);
+        }
+
+        if (checkpoint == null) {
+            frontier.addPending(new BitSet(H.numVerts()));
+        } else {
+            frontier.addFound(checkpoint.MHSes());
+            if (!control.reportAll(checkpoint.MHSes())) {
+                // Stopped before any progress, so the file is current
+                control.forgetRootBranches();
+                return;
             }
 
-            MHSes.add(edge);
+            for (BitSet S: checkpoint.pendingBranches()) {
+                frontier.addPending(S);
+            }
         }
 
-        return MHSes;
+        // Record every MHS, even once the caller stops taking them, so
+        // the checkpoint lists every MHS outside the pending branches
+        SearchControl recordingControl = new SearchControl(mhs -> {
+                frontier.addFound(Collections.singletonList(mhs));
+                control.report(mhs);
+                return true;
+            }, () -> false);
+
+        ForkJoinPool pool = newPool();
+
+        ForkPolicy policy = ForkPolicy.of(forkPolicy.getSelectedValue(), sequentialDepth.getValue());
+        HypergraphStore T = H.transpose();
+        long interval = TimeUnit.MINUTES.toNanos(checkpointMinutes.getValue());
+
+        try {
+            while (true) {
+                List<BitSet> branches = frontier.takePending();
+                if (branches.isEmpty()) {
+                    break;
+                }
+
+                frontier.startRound(System.nanoTime() + interval);
+                pool.invoke(new BranchesTask(H, T, branches, maxCardinality, recordingControl, policy, frontier, 0, branches.size()));
+
+                // Wait for the forked tasks to complete
+                pool.invoke(new SHDRecursiveTask.TaskWaiter());
+
+                if (frontier.yieldRequested() || control.shouldStop()) {
+                    new SearchCheckpoint(frontier.found(), frontier.pending()).write(checkpointFile, H, maxCardinality);
+                }
+
+                if (control.shouldStop()) {
+                    // The root branches of the first round may have
+                    // been left pending without being unfinished
+                    control.forgetRootBranches();
+                    return;
+                }
+            }
+
+            Files.deleteIfExists(checkpointFile.toPath());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write checkpoint file", e);
+        } finally {
+            pool.shutdown();
+
+            // Release the transpose if it holds off-heap storage
+            if (T instanceof Closeable) {
+                try {
+                    ((Closeable) T).close();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not release transpose hypergraph", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find MHSes of a given hypergraph, searching the deeper branches
+     * in worker processes.
+     * <p>
+     * The search is run in this process until the candidate hitting
+     * set of a branch reaches the split size. Each such branch is left
+     * pending and handed, as its candidate hitting set, to one of the
+     * workers (see {@link RSWorker}), which reads the hypergraph from a
+     * file in the work directory. Every MHS lies in exactly one
+     * branch, so the MHSes streamed back by the workers are passed on
+     * without checking for duplicates.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param control  to receive the MHSes
+     **/
+    private void searchWithWorkers (HypergraphStore H,
+                                    SearchControl control) {
+        if (H.numEdges() == 0) {
+            return;
+        }
+
+        int maxCardinality = maxCardinality();
+        BranchFrontier frontier = new BranchFrontier(control, splitSize.getValue());
+
+        ForkJoinPool pool = newPool();
+
+        ForkPolicy policy = ForkPolicy.of(forkPolicy.getSelectedValue(), sequentialDepth.getValue());
+        HypergraphStore T = H.transpose();
+
+        try {
+            pool.invoke(branchTask(H, T, new BitSet(H.numVerts()), maxCardinality, control, policy, frontier));
+
+            // Wait for the forked tasks to complete
+            pool.invoke(new SHDRecursiveTask.TaskWaiter());
+        } finally {
+            pool.shutdown();
+
+            // Release the transpose if it holds off-heap storage
+            if (T instanceof Closeable) {
+                try {
+                    ((Closeable) T).close();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not release transpose hypergraph", e);
+                }
+            }
+        }
+
+        List<BitSet> branches = frontier.takePending();
+        if (!branches.isEmpty() && !control.shouldStop()) {
+            try (RSWorkerPool workers = new RSWorkerPool(H, maxCardinality, Math.min(numWorkers.getValue(), branches.size()), configureThreads ? numThreads.getValue() : 0, workerLauncher, workDirectory)) {
+                workers.search(branches, control);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not run worker processes", e);
+            }
+        }
+
+        if (control.shouldStop()) {
+            // The branches handed to the workers are not tracked
+            control.forgetRootBranches();
+        }
+    }
+
+    /**
+     * Return a task searching the branch of RS with a given candidate
+     * hitting set.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param T  the transpose of H
+     * @param S  the candidate hitting set of the branch
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param control  to receive the MHSes
+     * @param policy  decides which branches to fork
+     * @param frontier  to receive the unsearched branches
+     **/
+    private RSRecursiveTask branchTask (HypergraphStore H,
+                                        HypergraphStore T,
+                                        BitSet S,
+                                        int maxCardinality,
+                                        SearchControl control,
+                                        ForkPolicy policy,
+                                        BranchFrontier frontier) {
+        // An edge is uncovered if it misses S, and critical for v if
+        // v is the only vertex of S in it
+        BitSet uncov = new BitSet(H.numEdges());
+        uncov.set(0, H.numEdges());
+        BitSet coveredTwice = new BitSet(H.numEdges());
+        for (int v = S.nextSetBit(0); v >= 0; v = S.nextSetBit(v+1)) {
+            BitSet edges = T.edgeAsBitSet(v);
+
+            BitSet alreadyCovered = (BitSet) edges.clone();
+            alreadyCovered.andNot(uncov);
+            coveredTwice.or(alreadyCovered);
+
+            uncov.andNot(edges);
+        }
+
+        CritTable crit = new CritTable();
+        for (int v = S.nextSetBit(0); v >= 0; v = S.nextSetBit(v+1)) {
+            BitSet critEdges = T.edgeAsBitSet(v);
+            critEdges.andNot(coveredTwice);
+            crit.set(v, critEdges);
+        }
+
+        return new RSRecursiveTask(H, T, S, crit, uncov, new BitSet(H.numVerts()), maxCardinality, control, policy, new long[1], frontier);
+    }
+
+    /**
+     * Task searching a range of the pending branches of a
+     * checkpointed search
+     **/
+    private class BranchesTask
+        extends RecursiveAction {
+        private final HypergraphStore H;
+        private final HypergraphStore T;
+        private final List<BitSet> branches;
+        private final int maxCardinality;
+        private final SearchControl control;
+        private final ForkPolicy policy;
+        private final BranchFrontier frontier;
+        private final int start;
+        private final int end;
+
+        BranchesTask (HypergraphStore H,
+                      HypergraphStore T,
+                      List<BitSet> branches,
+                      int maxCardinality,
+                      SearchControl control,
+                      ForkPolicy policy,
+                      BranchFrontier frontier,
+                      int start,
+                      int end) {
+            this.H = H;
+            this.T = T;
+            this.branches = branches;
+            this.maxCardinality = maxCardinality;
+            this.control = control;
+            this.policy = policy;
+            this.frontier = frontier;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute () {
+            if (end - start == 1) {
+                branchTask(H, T, branches.get(start), maxCardinality, control, policy, frontier).invoke();
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new BranchesTask(H, T, branches, maxCardinality, control, policy, frontier, start, middle),
+                      new BranchesTask(H, T, branches, maxCardinality, control, policy, frontier, middle, end));
+        }
+    }
+
+    /**
+     * The MHSes found and the branches left by a search which is
+     * checkpointed or split between worker processes
+     **/
+    private static class BranchFrontier {
+        private final SearchControl control;
+        private final int splitSize;
+        private final List<BitSet> found = new ArrayList<>();
+        private final Queue<BitSet> pending = new ConcurrentLinkedQueue<>();
+        private volatile boolean yieldRequested = false;
+
+        // Time (as from System.nanoTime()) at which the tasks should
+        // yield so a checkpoint can be written, if timed
+        private volatile boolean timed = false;
+        private volatile long deadline;
+
+        /**
+         * Construct a frontier.
+         *
+         * @param control  the control of the search
+         * @param splitSize  size of candidate hitting set at which
+         * branches are left pending (0 for none)
+         **/
+        BranchFrontier (SearchControl control,
+                        int splitSize) {
+            this.control = control;
+            this.splitSize = splitSize;
+        }
+
+        /**
+         * Determine whether a task should stop searching and leave its
+         * branch pending.
+         *
+         * @param S  the candidate hitting set of the branch
+         **/
+        boolean shouldYield (BitSet S) {
+            if ((splitSize > 0) && (S.cardinality() >= splitSize)) {
+                return true;
+            }
+
+            if (timed && !yieldRequested && (System.nanoTime() - deadline >= 0)) {
+                yieldRequested = true;
+            }
+            return yieldRequested || control.shouldStop();
+        }
+
+        boolean yieldRequested () {
+            return yieldRequested;
+        }
+
+        /**
+         * Start a round of the search which yields at a given time.
+         *
+         * @param deadline  the time (as from {@link System#nanoTime})
+         * at which the next checkpoint is due
+         **/
+        void startRound (long deadline) {
+            this.deadline = deadline;
+            timed = true;
+            yieldRequested = false;
+        }
+
+        void addPending (BitSet S) {
+            pending.add(S);
+        }
+
+        /**
+         * Remove and return every pending branch.
+         **/
+        List<BitSet> takePending () {
+            List<BitSet> result = new ArrayList<>(pending);
+            pending.clear();
+            return result;
+        }
+
+        List<BitSet> pending () {
+            return new ArrayList<>(pending);
+        }
+
+        synchronized void addFound (Collection<BitSet> MHSes) {
+            found.addAll(MHSes);
+        }
+
+        synchronized List<BitSet> found () {
+            return new ArrayList<>(found);
+        }
     }
 
     private class RSRecursiveTask extends SHDRecursiveTask {
         BitSet violatingVertices;
+        ForkPolicy forkPolicy;
+
+        // Search nodes visited by the forked task this one belongs to
+        long[] visitedNodes;
+
+        // Collects the unsearched branches when checkpointing or
+        // splitting the search (null otherwise)
+        BranchFrontier frontier;
+
+        // First vertex added in the branch at the root of the search
+        // which this task belongs to (-1 if unknown)
+        int rootVertex = -1;
 
         /**
          * Recursive task for the RS algorithm
@@ -150,16 +1100,24 @@ public class RSAlgorithm
          * @param maxCardinality largest size hitting set to consider
          * (0 to find all, must be larger than {@code S.cardinality()}
          * otherwise)
-         * @param confirmedMHSes  to store any confirmed MHSes
+         * @param control  to receive any confirmed MHSes and say when to stop
+         * @param forkPolicy  decides which branches to fork
+         * @param visitedNodes  counter of search nodes, shared with
+         * the tasks run inline by this one
+         * @param frontier  to receive the unsearched branches when a
+         * checkpoint is due or the search is split (null otherwise)
          **/
-        RSRecursiveTask (Hypergraph H,
-                         Hypergraph T,
+        RSRecursiveTask (HypergraphStore H,
+                         HypergraphStore T,
                          BitSet S,
-                         Hypergraph crit,
+                         CritTable crit,
                          BitSet uncov,
                          BitSet violatingVertices,
                          Integer maxCardinality,
-                         ConcurrentLinkedQueue<BitSet> confirmedMHSes) {
+                         SearchControl control,
+                         ForkPolicy forkPolicy,
+                         long[] visitedNodes,
+                         BranchFrontier frontier) {
             this.H = H;
             this.T = T;
             this.S = S;
@@ -167,7 +1125,10 @@ public class RSAlgorithm
             this.uncov = uncov;
             this.violatingVertices = violatingVertices;
             this.maxCardinality = maxCardinality;
-            this.confirmedMHSes = confirmedMHSes;
+            this.control = control;
+            this.forkPolicy = forkPolicy;
+            this.visitedNodes = visitedNodes;
+            this.frontier = frontier;
 
             // Argument checking
             if (H.numEdges() == 0) {
@@ -198,14 +1159,40 @@ public class RSAlgorithm
                 return;
             }
 
+            // Leave the branch for later if a checkpoint is due
+            if ((frontier != null) && frontier.shouldYield(S)) {
+                frontier.addPending((BitSet) S.clone());
+                return;
+            }
+
             // Handle cancellation
-            if (isCanceled()) {
+            if (control.shouldStop()) {
+                noteUnfinished(rootVertex);
                 return;
             }
 
+            // A task with a fresh counter was forked, so it reports
+            // the work done by it and the tasks it runs inline
+            boolean forked = (visitedNodes[0] == 0);
+            int depth = S.cardinality();
+            long start = System.nanoTime();
+
+            search();
+
+            if (forked) {
+                forkPolicy.recordWork(depth, System.nanoTime() - start, visitedNodes[0]);
+            }
+        }
+
+        /**
+         * Extend S through the first uncovered edge.
+         **/
+        private void search () {
+            visitedNodes[0]++;
+
             // Get an uncovered edge
             Integer searchEdgeIndex = uncov.nextSetBit(0);
-            BitSet searchEdge = (BitSet) H.get(searchEdgeIndex).clone();
+            BitSet searchEdge = H.edgeAsBitSet(searchEdgeIndex);
 
             // Remove known violating vertices
             searchEdge.andNot(violatingVertices);
@@ -221,9 +1208,21 @@ public class RSAlgorithm
                 }
             }
 
+            // A task with empty S is at the root of the search
+            boolean atRoot = S.isEmpty();
+            if (atRoot) {
+                control.noteRootBranches(searchEdge);
+            }
+
             // Iterate through the vertices in the search edge in reverse order
             for (int v = searchEdge.length(); (v = searchEdge.previousSetBit(v-1)) >= 0; ) {
-                if (isCanceled()) {
+                if (control.shouldStop()) {
+                    if (atRoot) {
+                        // This branch and those not yet started
+                        control.noteUnfinishedRootBranches(searchEdge.get(0, v+1));
+                    } else {
+                        noteUnfinished(rootVertex);
+                    }
                     return;
                 }
 
@@ -240,30 +1239,43 @@ public class RSAlgorithm
                 S.set(v);
 
                 // Process the new candidate S
+                int remainingBudget = (maxCardinality > 0) ? maxCardinality - S.cardinality() : 0;
                 if ((uncov.isEmpty()) && ((maxCardinality == 0) || (S.cardinality() <= maxCardinality))) {
                     // S is a genuine MHS, so we store it and move on
                     BitSet cloneS = (BitSet) S.clone();
-                    confirmedMHSes.add(cloneS);
-                } else if ((maxCardinality == 0) || (S.cardinality() < maxCardinality)) {
+                    control.report(cloneS);
+                } else if ((maxCardinality > 0) && (S.cardinality() >= maxCardinality)) {
+                    // S cannot grow, so larger MHSes may be missed
+                    control.noteSizeLimitReached();
+                } else if ((maxCardinality > 0) && uncovNeedsMoreThan(maxCardinality - S.cardinality())) {
+                    // S cannot grow enough to cover every edge
+                    control.noteSizeLimitReached();
+                } else if (control.mayImprove(S, uncov, remainingBudget)) {
                     // S is a viable candidate, so we fork a new job to process it
-                    if ((getQueuedTaskCount() < 4) && (uncov.cardinality() > 2)) {
-                        // Spawn a new task if the queue is getting
-                        // low.  We define "low" as "has fewer than
-                        // four algorithms waiting", which is entirely
-                        // ad-hoc and should be tuned before serious
-                        // use.
+                    int childRootVertex = atRoot ? v : rootVertex;
+                    if ((frontier != null) && frontier.shouldYield(S)) {
+                        // Leave the branch for later
+                        frontier.addPending((BitSet) S.clone());
+                    } else if (forkPolicy.shouldFork(S.cardinality(), uncov.cardinality(), remainingBudget, searchEdge.cardinality())) {
+                        // Spawn a new task for other workers to steal
 
                         // Make defensive copies of mutable variables
+                        long copyStart = System.nanoTime();
                         BitSet cloneS = (BitSet) S.clone();
-                        Hypergraph cloneCrit = new Hypergraph(crit);
+                        CritTable cloneCrit = crit.fork();
                         BitSet cloneUncov = (BitSet) uncov.clone();
                         BitSet cloneViolatingVertices = (BitSet) newViolatingVertices.clone();
+                        forkPolicy.recordCopy(System.nanoTime() - copyStart);
 
-                        RSRecursiveTask child = new RSRecursiveTask(H, T, cloneS, cloneCrit, cloneUncov, cloneViolatingVertices, maxCardinality, confirmedMHSes);
+                        RSRecursiveTask child = new RSRecursiveTask(H, T, cloneS, cloneCrit, cloneUncov, cloneViolatingVertices, maxCardinality, control, forkPolicy, new long[1], frontier);
+                        child.rootVertex = childRootVertex;
+                        child.packing = childPacking;
                         child.fork();
                     } else {
                         // Do the work in this thread without forking or copying
-                        RSRecursiveTask child = new RSRecursiveTask(H, T, S, crit, uncov, newViolatingVertices, maxCardinality, confirmedMHSes);
+                        RSRecursiveTask child = new RSRecursiveTask(H, T, S, crit, uncov, newViolatingVertices, maxCardinality, control, forkPolicy, visitedNodes, frontier);
+                        child.rootVertex = childRootVertex;
+                        child.packing = childPacking;
                         child.invoke();
                     }
                 }
@@ -274,6 +1286,18 @@ public class RSAlgorithm
             }
         }
 
+        /**
+         * Note that the branch at the root of the search starting with
+         * a given vertex was left unfinished.
+         *
+         * @param vertex  the first vertex of the branch (-1 if unknown)
+         **/
+        private void noteUnfinished (int vertex) {
+            if (vertex >= 0) {
+                control.noteUnfinishedRootBranch(vertex);
+            }
+        }
+
         /**
          * Determine whether any vertex in S has its first critical
          * edge after v.
@@ -296,6 +1320,67 @@ public class RSAlgorithm
         }
     }
 
+    // No docstring because the superclass has one
+    @Override
+    public boolean boundsMHSSize () {
+        return useMaxCardinality;
+    }
+
+    // No docstring because the superclass has one
+    @Override
+    public Map<String, String> ignoredOptions () {
+        Map<String, String> ignored = new LinkedHashMap<>();
+
+        // Keeping the best CIs rules out workers and checkpoints,
+        // and it and off-heap storage keep the numbering
+        if (useTopK) {
+            if (useWorkers) {
+                ignored.put(WORKERS, TOP_K);
+            }
+            if (useCheckpoint) {
+                ignored.put(CHECKPOINT, TOP_K);
+            }
+        }
+
+        if (reordersHypergraph() && (useTopK || storeOffHeap)) {
+            String cause = useTopK ? TOP_K : OFF_HEAP;
+            if (vertexOrder.getSelectedValue() != HypergraphOrdering.VertexOrder.AS_GIVEN) {
+                ignored.put(VERTEX_ORDER, cause);
+            }
+            if (edgeOrder.getSelectedValue() != HypergraphOrdering.EdgeOrder.AS_GIVEN) {
+                ignored.put(EDGE_ORDER, cause);
+            }
+        }
+
+        // The first of these run modes overrides the later ones and
+        // the preprocessing, as in searchInOrder
+        String mode = null;
+        if (useWorkers && !useTopK) {
+            mode = WORKERS;
+        } else if (useCheckpoint && !useTopK) {
+            mode = CHECKPOINT;
+        } else if (searchBySize) {
+            mode = BY_SIZE;
+        }
+
+        if (mode != null) {
+            if (useCheckpoint && mode.equals(WORKERS)) {
+                ignored.put(CHECKPOINT, mode);
+            }
+            if (searchBySize && !mode.equals(BY_SIZE)) {
+                ignored.put(BY_SIZE, mode);
+            }
+            if (reduceHypergraph) {
+                ignored.put(REDUCE, mode);
+            }
+            if (splitComponents) {
+                ignored.put(SPLIT, mode);
+            }
+        }
+
+        return ignored;
+    }
+
     @Override
     public String fullName () {
         return NAME;
@@ -324,6 +1409,64 @@ public class RSAlgorithm
             result.append("all cores");
         }
 
+        if (storeOffHeap) {
+            result.append("; off-heap");
+        }
+
+        if (reduceHypergraph) {
+            result.append("; reduced");
+        }
+
+        if (splitComponents) {
+            result.append("; by component");
+        }
+
+        if (!preallocateSearchState) {
+            result.append("; legacy search");
+        }
+
+        if (useTopK) {
+            result.append(String.format("; best %d CIs", topKBInt.getValue()));
+        }
+
+        if (searchBySize) {
+            result.append("; by size");
+        }
+
+        if (branchOnFewestCandidates) {
+            result.append("; fewest-candidate branching");
+        }
+
+        if (vertexOrder.getSelectedValue() != HypergraphOrdering.VertexOrder.AS_GIVEN) {
+            result.append(String.format("; vertices: %s", vertexOrder.getSelectedValue().toString().toLowerCase()));
+        }
+
+        if (edgeOrder.getSelectedValue() != HypergraphOrdering.EdgeOrder.AS_GIVEN) {
+            result.append(String.format("; paths: %s", edgeOrder.getSelectedValue().toString().toLowerCase()));
+        }
+
+        if (useWorkers) {
+            result.append(String.format("; %d workers split at size %d", numWorkers.getValue(), splitSize.getValue()));
+        } else if (useCheckpoint) {
+            result.append("; checkpointed");
+        }
+
+        ForkPolicy.Kind policyKind = forkPolicy.getSelectedValue();
+        if (policyKind == ForkPolicy.Kind.SEQUENTIAL_BELOW_DEPTH) {
+            result.append(String.format("; %s %d", policyKind.toString().toLowerCase(), sequentialDepth.getValue()));
+        } else if (policyKind != ForkPolicy.Kind.FIXED) {
+            result.append(String.format("; %s splitting", policyKind.toString().toLowerCase()));
+        }
+
+        if (useTimeBudget) {
+            result.append(String.format("; time budget: %d s", timeBudgetSeconds.getValue()));
+        }
+
+        Set<String> ignored = ignoredOptions().keySet();
+        if (!ignored.isEmpty()) {
+            result.append(String.format("; ignored: %s", String.join(", ", ignored).toLowerCase()));
+        }
+
         result.append(")");
         return result.toString();
     }
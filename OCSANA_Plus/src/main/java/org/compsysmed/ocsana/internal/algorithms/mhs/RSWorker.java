@@ -0,0 +1,171 @@
+/**
+ * Headless worker process searching branches of RS
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry point of a worker process started by {@link RSWorkerPool}.
+ * <p>
+ * The arguments are the binary hypergraph file (see {@link
+ * BinaryHypergraphFile}), the size bound of the search (0 for none),
+ * the number of search threads (0 for all cores) and the fingerprint
+ * of the hypergraph (see {@link SearchCheckpoint#fingerprint}).
+ * <p>
+ * The worker then reads branches from its standard input and writes
+ * their MHSes to its standard output. All values are big-endian
+ * {@code int}s, and a set is written as its size followed by its
+ * vertices in increasing order. Each branch is given by its candidate
+ * hitting set; the worker answers with each MHS of the branch as a
+ * set, followed by {@link #END_OF_BRANCH}, or {@link
+ * #END_OF_BRANCH_SIZE_LIMIT_REACHED} if the size bound may have hidden
+ * some larger MHS. The worker exits when it reads {@link
+ * #END_OF_BRANCH} in place of a branch, or at the end of its input.
+ * <p>
+ * The branches are searched with {@link PackedRSSearch}, so the
+ * worker needs only the classes of this package and not those of
+ * Cytoscape.
+ **/
+public final class RSWorker {
+    static final int END_OF_BRANCH = -1;
+    static final int END_OF_BRANCH_SIZE_LIMIT_REACHED = -2;
+
+    private RSWorker () {}
+
+    public static void main (String[] args)
+        throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: RSWorker <hypergraph file> <max CI size> <threads> <fingerprint>");
+            System.exit(2);
+        }
+
+        File hypergraphFile = new File(args[0]);
+        int maxCardinality = Integer.parseInt(args[1]);
+        int numThreads = Integer.parseInt(args[2]);
+        long fingerprint = Long.parseLong(args[3]);
+
+        PackedHypergraph H = BinaryHypergraphFile.read(hypergraphFile);
+        if (SearchCheckpoint.fingerprint(H) != fingerprint) {
+            throw new IllegalArgumentException("Hypergraph file " + hypergraphFile + " does not match the search.");
+        }
+        PackedHypergraph T = H.transpose();
+
+        ForkJoinPool pool;
+        if (numThreads > 0) {
+            pool = new ForkJoinPool (numThreads);
+        } else {
+            pool = new ForkJoinPool ();
+        }
+
+        // Keep anything else printed off the channel to the coordinator
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        System.setOut(System.err);
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        try {
+            serve(H, T, maxCardinality, pool, in, out);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Search the branches read from the coordinator until told to
+     * stop.
+     *
+     * @param H  the hypergraph whose MHSes we should find
+     * @param T  the transpose of H
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param pool  the pool to search in
+     * @param in  the stream of branches
+     * @param out  the stream of MHSes
+     **/
+    private static void serve (PackedHypergraph H,
+                               PackedHypergraph T,
+                               int maxCardinality,
+                               ForkJoinPool pool,
+                               DataInputStream in,
+                               DataOutputStream out)
+        throws IOException {
+        ForkPolicy policy = ForkPolicy.of(ForkPolicy.Kind.FIXED, 0);
+        while (true) {
+            int size;
+            try {
+                size = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+
+            if (size == END_OF_BRANCH) {
+                break;
+            }
+
+            BitSet S = readSet(in, size);
+            SearchControl control = new SearchControl(mhs -> {
+                    synchronized (out) {
+                        try {
+                            writeSet(out, mhs);
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Could not write MHS", e);
+                        }
+                    }
+                    return true;
+                }, () -> false);
+
+            new PackedRSSearch(H, T, maxCardinality, control, policy).runBranch(pool, S);
+
+            out.writeInt(control.sizeLimitReached() ? END_OF_BRANCH_SIZE_LIMIT_REACHED : END_OF_BRANCH);
+            out.flush();
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Write a set as its size followed by its vertices.
+     *
+     * @param out  the stream to write to
+     * @param set  the set to write
+     **/
+    static void writeSet (DataOutputStream out,
+                          BitSet set)
+        throws IOException {
+        out.writeInt(set.cardinality());
+        for (int v = set.nextSetBit(0); v >= 0; v = set.nextSetBit(v+1)) {
+            out.writeInt(v);
+        }
+    }
+
+    /**
+     * Read the vertices of a set whose size has been read.
+     *
+     * @param in  the stream to read from
+     * @param size  the size of the set
+     **/
+    static BitSet readSet (DataInputStream in,
+                           int size)
+        throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("Set size cannot be negative.");
+        }
+
+        BitSet result = new BitSet();
+        for (int i = 0; i < size; i++) {
+            result.set(in.readInt());
+        }
+        return result;
+    }
+}
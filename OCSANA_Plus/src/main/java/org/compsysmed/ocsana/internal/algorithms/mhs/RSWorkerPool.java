@@ -0,0 +1,393 @@
+/**
+ * Pool of worker processes searching branches of RS
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+// OSGi imports
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Coordinator of a pool of {@link RSWorker} processes.
+ * <p>
+ * The hypergraph is written once to a binary file (see {@link
+ * BinaryHypergraphFile}) in the work directory, which the workers
+ * read; together with its fingerprint (see {@link
+ * SearchCheckpoint#fingerprint}), the file identifies the hypergraph.
+ * Each worker is then fed one branch at a time by its own thread and
+ * streams the MHSes of the branch back through its standard output,
+ * so a worker which finishes early takes the next pending branch.
+ * <p>
+ * The workers are started with the Java runtime of this process and
+ * a class path holding only the classes of this package, which is
+ * all a worker needs: the file or directory they were loaded from,
+ * or, when they were loaded from an OSGi bundle such as a Cytoscape
+ * app, a jar of them written to the work directory.
+ * <p>
+ * Without a launch command, the worker command is run directly.
+ * Otherwise the launch command is split into words as a shell would
+ * (with quotes and backslashes) and run with the worker command line,
+ * every word quoted for a POSIX shell, as one more argument. With a
+ * launch command such as {@code ssh node2}, a worker runs on another
+ * machine, which must see the work directory, the Java runtime and
+ * the class path at the same paths; {@code sh -c} runs it locally
+ * through a shell.
+ **/
+final class RSWorkerPool
+    implements Closeable {
+    // How often to check for cancellation while waiting for workers
+    private static final long POLL_MILLISECONDS = 100;
+
+    private final File hypergraphFile;
+    private final List<Worker> workers = new ArrayList<>();
+
+    // Jar of the worker classes, if they had to be exported
+    private File classesJar;
+
+    /**
+     * Start a pool of workers.
+     *
+     * @param H  the hypergraph whose MHSes the workers should find
+     * @param maxCardinality  largest size MHS to find (0 to find all)
+     * @param numWorkers  number of worker processes
+     * @param numThreads  number of threads per worker (0 for all
+     * cores)
+     * @param launcher  command to run the worker command line with
+     * (empty or null to run the workers directly)
+     * @param workDirectory  directory for the hypergraph file (null
+     * for the system temporary directory)
+     **/
+    RSWorkerPool (HypergraphStore H,
+                  int maxCardinality,
+                  int numWorkers,
+                  int numThreads,
+                  String launcher,
+                  File workDirectory)
+        throws IOException {
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        if (numWorkers < 1) {
+            throw new IllegalArgumentException("Worker count must be positive.");
+        }
+
+        if (numThreads < 0) {
+            throw new IllegalArgumentException("Thread count cannot be negative.");
+        }
+
+        hypergraphFile = File.createTempFile("hypergraph", ".bin", workDirectory);
+        hypergraphFile.deleteOnExit();
+
+        try {
+            BinaryHypergraphFile.write(H, hypergraphFile);
+
+            List<String> workerCommand = new ArrayList<>();
+            workerCommand.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+            workerCommand.add("-cp");
+            workerCommand.add(workerClasspath(workDirectory));
+            workerCommand.add(RSWorker.class.getName());
+            workerCommand.add(hypergraphFile.getAbsolutePath());
+            workerCommand.add(Integer.toString(maxCardinality));
+            workerCommand.add(Integer.toString(numThreads));
+            workerCommand.add(Long.toString(SearchCheckpoint.fingerprint(H)));
+
+            List<String> command = (launcher == null) ? new ArrayList<>() : splitWords(launcher);
+            if (command.isEmpty()) {
+                command = workerCommand;
+            } else {
+                StringJoiner commandLine = new StringJoiner(" ");
+                for (String word: workerCommand) {
+                    commandLine.add(shellQuote(word));
+                }
+                command.add(commandLine.toString());
+            }
+
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            for (int i = 0; i < numWorkers; i++) {
+                workers.add(new Worker(builder.start()));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Search some branches of RS in the workers.
+     * <p>
+     * Returns once every branch has been searched or the search has
+     * been stopped. A stopped search kills the workers, which cannot
+     * be used again.
+     *
+     * @param branches  the candidate hitting sets of the branches
+     * @param control  to receive the MHSes
+     **/
+    void search (Collection<BitSet> branches,
+                 SearchControl control) {
+        Queue<BitSet> pending = new ConcurrentLinkedQueue<>(branches);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        ExecutorService feeders = Executors.newFixedThreadPool(workers.size());
+        for (Worker worker: workers) {
+            feeders.execute(() -> {
+                    try {
+                        BitSet S;
+                        while (!control.shouldStop() && ((S = pending.poll()) != null)) {
+                            worker.search(S, control);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // A killed worker fails to answer
+                        if (!control.shouldStop()) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }
+                });
+        }
+        feeders.shutdown();
+
+        try {
+            while (!feeders.awaitTermination(POLL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                if (control.shouldStop() || (failure.get() != null)) {
+                    // The feeders may be waiting for silent workers
+                    for (Worker worker: workers) {
+                        worker.kill();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Worker worker: workers) {
+                worker.kill();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Worker process failed", failure.get());
+        }
+    }
+
+    /**
+     * Stop the workers and delete the hypergraph file.
+     **/
+    @Override
+    public void close () {
+        for (Worker worker: workers) {
+            worker.finish();
+        }
+
+        hypergraphFile.delete();
+        if (classesJar != null) {
+            classesJar.delete();
+        }
+    }
+
+    /**
+     * Return the class path of the workers: the file or directory the
+     * classes of this package were loaded from, or a jar of them
+     * exported from their OSGi bundle.
+     *
+     * @param workDirectory  directory for the jar (null for the
+     * system temporary directory)
+     **/
+    private String workerClasspath (File workDirectory)
+        throws IOException {
+        CodeSource source = RSWorker.class.getProtectionDomain().getCodeSource();
+        URL location = (source == null) ? null : source.getLocation();
+        if ((location != null) && "file".equals(location.getProtocol())) {
+            try {
+                return new File(location.toURI()).getPath();
+            } catch (URISyntaxException e) {
+                // Fall back on the bundle
+            }
+        }
+
+        Bundle bundle = FrameworkUtil.getBundle(RSWorker.class);
+        if (bundle == null) {
+            throw new IllegalStateException("Cannot locate the classes of the worker processes.");
+        }
+
+        String packagePath = RSWorker.class.getPackage().getName().replace('.', '/');
+        Enumeration<URL> entries = bundle.findEntries(packagePath, "*.class", false);
+        if (entries == null) {
+            throw new IllegalStateException("Cannot locate the classes of the worker processes.");
+        }
+
+        classesJar = File.createTempFile("worker", ".jar", workDirectory);
+        classesJar.deleteOnExit();
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(classesJar))) {
+            byte[] buffer = new byte[1 << 16];
+            while (entries.hasMoreElements()) {
+                URL entry = entries.nextElement();
+                String name = entry.getPath();
+                jar.putNextEntry(new JarEntry(name.substring(name.indexOf(packagePath))));
+                try (InputStream in = entry.openStream()) {
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        jar.write(buffer, 0, read);
+                    }
+                }
+                jar.closeEntry();
+            }
+        }
+
+        return classesJar.getPath();
+    }
+
+    /**
+     * Split a command into words as a POSIX shell would, honoring
+     * single quotes, double quotes and backslashes but not expanding
+     * anything.
+     *
+     * @param command  the command to split
+     **/
+    static List<String> splitWords (String command) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = null;
+        char quote = 0;
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                } else {
+                    word.append(c);
+                }
+            } else if ((c == '\\') && (i + 1 < command.length())
+                       && ((quote == 0) || "\"\\$`".indexOf(command.charAt(i + 1)) >= 0)) {
+                if (word == null) {
+                    word = new StringBuilder();
+                }
+                word.append(command.charAt(++i));
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                } else {
+                    word.append(c);
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (word != null) {
+                    words.add(word.toString());
+                    word = null;
+                }
+            } else {
+                if (word == null) {
+                    word = new StringBuilder();
+                }
+                if ((c == '\'') || (c == '"')) {
+                    quote = c;
+                } else {
+                    word.append(c);
+                }
+            }
+        }
+
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated quote in command: " + command);
+        }
+
+        if (word != null) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Quote a word for a POSIX shell.
+     *
+     * @param word  the word to quote
+     **/
+    static String shellQuote (String word) {
+        return "'" + word.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * One worker process and the streams to and from it
+     **/
+    private static final class Worker {
+        private final Process process;
+        private final DataOutputStream toWorker;
+        private final DataInputStream fromWorker;
+
+        Worker (Process process) {
+            this.process = process;
+            toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream(), 1 << 16));
+        }
+
+        /**
+         * Search one branch, reporting its MHSes to a control.
+         *
+         * @param S  the candidate hitting set of the branch
+         * @param control  to receive the MHSes
+         **/
+        void search (BitSet S,
+                     SearchControl control)
+            throws IOException {
+            RSWorker.writeSet(toWorker, S);
+            toWorker.flush();
+
+            while (true) {
+                int size = fromWorker.readInt();
+                if (size == RSWorker.END_OF_BRANCH) {
+                    return;
+                }
+
+                if (size == RSWorker.END_OF_BRANCH_SIZE_LIMIT_REACHED) {
+                    control.noteSizeLimitReached();
+                    return;
+                }
+
+                // Once the search stops, the coordinator kills the
+                // worker, which ends this loop
+                control.report(RSWorker.readSet(fromWorker, size));
+            }
+        }
+
+        /**
+         * Ask the worker to exit and wait for it.
+         **/
+        void finish () {
+            try {
+                toWorker.writeInt(RSWorker.END_OF_BRANCH);
+                toWorker.close();
+                process.waitFor();
+            } catch (IOException e) {
+                // The worker has already exited
+                process.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+
+        /**
+         * Kill the worker.
+         **/
+        void kill () {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Uncovered edges of a hypergraph bucketed by their number of candidates
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * Tracks, for each edge e, its residual size: the number of candidate
+ * vertices (those which may still be added to the candidate hitting
+ * set) in e. The uncovered edges are kept in buckets by residual size,
+ * so an uncovered edge with the fewest candidates is found without
+ * scanning the edges.
+ * <p>
+ * Covering or uncovering an edge moves it out of or into its bucket,
+ * and adding or removing a candidate v moves each uncovered edge
+ * containing v one bucket up or down, so every update costs time in
+ * proportion to the number of edges it touches.
+ * <p>
+ * A tracker is not thread-safe; forked searches each need a {@link
+ * #copy}.
+ **/
+final class ResidualBuckets {
+    // The edges containing each vertex; shared between copies
+    private final int[][] edgesOf;
+
+    // Residual size of every edge, covered or not
+    private final int[] residual;
+
+    // Whether each edge is in a bucket (that is, uncovered), and the
+    // doubly-linked bucket lists (-1 for none)
+    private final boolean[] present;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] heads;
+
+    // No bucket below this is nonempty
+    private int minSize;
+
+    /**
+     * Bucket the uncovered edges of a hypergraph.
+     *
+     * @param H  the hypergraph
+     * @param uncov  the uncovered edges of H
+     * @param cand  the candidate vertices of H
+     **/
+    ResidualBuckets (HypergraphStore H,
+                     BitSet uncov,
+                     BitSet cand) {
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+        Objects.requireNonNull(uncov, "Uncovered edges cannot be null");
+        Objects.requireNonNull(cand, "Candidate vertices cannot be null");
+
+        int numEdges = H.numEdges();
+        int[] degrees = new int[H.numVerts()];
+        int largestEdge = 0;
+        residual = new int[numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            BitSet edge = H.edgeAsBitSet(e);
+            for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                degrees[v]++;
+            }
+
+            residual[e] = intersectionSize(edge, cand);
+            largestEdge = Math.max(largestEdge, edge.cardinality());
+        }
+
+        edgesOf = new int[degrees.length][];
+        for (int v = 0; v < degrees.length; v++) {
+            edgesOf[v] = new int[degrees[v]];
+            degrees[v] = 0;
+        }
+        for (int e = 0; e < numEdges; e++) {
+            BitSet edge = H.edgeAsBitSet(e);
+            for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                edgesOf[v][degrees[v]++] = e;
+            }
+        }
+
+        present = new boolean[numEdges];
+        next = new int[numEdges];
+        prev = new int[numEdges];
+        heads = new int[largestEdge + 1];
+        Arrays.fill(heads, -1);
+        minSize = heads.length;
+
+        for (int e = uncov.nextSetBit(0); e >= 0; e = uncov.nextSetBit(e+1)) {
+            insert(e);
+        }
+    }
+
+    private ResidualBuckets (ResidualBuckets other) {
+        this.edgesOf = other.edgesOf;
+        this.residual = other.residual.clone();
+        this.present = other.present.clone();
+        this.next = other.next.clone();
+        this.prev = other.prev.clone();
+        this.heads = other.heads.clone();
+        this.minSize = other.minSize;
+    }
+
+    /**
+     * Return an independent copy of this tracker.
+     **/
+    ResidualBuckets copy () {
+        return new ResidualBuckets(this);
+    }
+
+    /**
+     * Return an uncovered edge with the fewest candidates, or -1 if
+     * every edge is covered.
+     **/
+    int fewestCandidatesEdge () {
+        while ((minSize < heads.length) && (heads[minSize] < 0)) {
+            minSize++;
+        }
+
+        return (minSize < heads.length) ? heads[minSize] : -1;
+    }
+
+    /**
+     * Note that some edges have been covered.
+     *
+     * @param edges  the newly-covered edges
+     **/
+    void cover (BitSet edges) {
+        for (int e = edges.nextSetBit(0); e >= 0; e = edges.nextSetBit(e+1)) {
+            if (present[e]) {
+                remove(e);
+            }
+        }
+    }
+
+    /**
+     * Note that some edges are uncovered again.
+     *
+     * @param edges  the newly-uncovered edges
+     **/
+    void uncover (BitSet edges) {
+        for (int e = edges.nextSetBit(0); e >= 0; e = edges.nextSetBit(e+1)) {
+            if (!present[e]) {
+                insert(e);
+            }
+        }
+    }
+
+    /**
+     * Note that a vertex is no longer a candidate.
+     *
+     * @param v  the vertex
+     **/
+    void removeCandidate (int v) {
+        for (int e: edgesOf[v]) {
+            if (present[e]) {
+                remove(e);
+                residual[e]--;
+                insert(e);
+            } else {
+                residual[e]--;
+            }
+        }
+    }
+
+    /**
+     * Note that a vertex is a candidate again.
+     *
+     * @param v  the vertex
+     **/
+    void addCandidate (int v) {
+        for (int e: edgesOf[v]) {
+            if (present[e]) {
+                remove(e);
+                residual[e]++;
+                insert(e);
+            } else {
+                residual[e]++;
+            }
+        }
+    }
+
+    private void insert (int e) {
+        int size = residual[e];
+        next[e] = heads[size];
+        prev[e] = -1;
+        if (heads[size] >= 0) {
+            prev[heads[size]] = e;
+        }
+        heads[size] = e;
+        present[e] = true;
+
+        minSize = Math.min(minSize, size);
+    }
+
+    private void remove (int e) {
+        if (prev[e] >= 0) {
+            next[prev[e]] = next[e];
+        } else {
+            heads[residual[e]] = next[e];
+        }
+
+        if (next[e] >= 0) {
+            prev[next[e]] = prev[e];
+        }
+        present[e] = false;
+    }
+
+    private static int intersectionSize (BitSet left,
+                                         BitSet right) {
+        BitSet intersection = (BitSet) left.clone();
+        intersection.and(right);
+        return intersection.cardinality();
+    }
+}
@@ -10,7 +10,6 @@ package org.compsysmed.ocsana.internal.algorithms.mhs;
 
 import java.util.*;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.RecursiveAction;
 
 /**
@@ -19,14 +18,22 @@ import java.util.concurrent.RecursiveAction;
 
 abstract class SHDRecursiveTask
     extends RecursiveAction {
-    Hypergraph H;
-    Hypergraph T;
+    HypergraphStore H;
+    HypergraphStore T;
     BitSet S;
-    Hypergraph crit;
+    CritTable crit;
     BitSet uncov;
     Integer maxCardinality;
-    Integer maxCandidates;
-    ConcurrentLinkedQueue<BitSet> confirmedMHSes;
+    SearchControl control;
+
+    // Uncovered edges by number of candidates, if the task tracks them
+    ResidualBuckets buckets;
+
+    // Disjoint uncovered edges of S, if the size is bounded and they
+    // are known, and those of the child last checked by
+    // uncovNeedsMoreThan
+    EdgePacking packing;
+    EdgePacking childPacking;
 
     // Must provide compute()
 
@@ -43,19 +50,19 @@ abstract class SHDRecursiveTask
             throw new IllegalArgumentException("S already contains v.");
         }
 
-        if (!crit.get(v).isEmpty()) {
+        if (!crit.isEmpty(v)) {
             throw new IllegalArgumentException("crit[v] is not empty.");
         }
 
         // v is violating if any crit[w] is a subset of the edges hit
         // by v. Thus, we first find the vertices hit by v
         // (disregarding those which are uncovered).
-        BitSet testEdges = (BitSet) T.get(v).clone();
+        BitSet testEdges = T.edgeAsBitSet(v);
         testEdges.andNot(uncov);
 
         // Then we check whether any crit[w] is a subset.
         for (int w = S.nextSetBit(0); w >= 0; w = S.nextSetBit(w+1)) {
-            if (crit.get(w).isEmpty()) {
+            if (crit.isEmpty(w)) {
                 throw new IllegalArgumentException("Empty crit[" + w + "]!");
             }
 
@@ -83,18 +90,11 @@ abstract class SHDRecursiveTask
             throw new IllegalArgumentException("S already contains v.");
         }
 
-        if (!crit.get(v).isEmpty()) {
+        if (!crit.isEmpty(v)) {
             throw new IllegalArgumentException("crit[v] is not empty.");
         }
 
-        // v is critical for edges it hits which were previously uncovered
-        BitSet vHitEdges = T.get(v);
-        BitSet vNewCrit = (BitSet) vHitEdges.clone();
-        vNewCrit.and(uncov);
-        crit.set(v, vNewCrit);
-
-        // Anything hit by v is no longer uncovered
-        uncov.andNot(vHitEdges);
+        BitSet vHitEdges = T.edgeAsBitSet(v);
 
         // Hypergraph to record what changed in crit[]
         Map<Integer, BitSet> critMark = new HashMap<>();
@@ -106,7 +106,22 @@ abstract class SHDRecursiveTask
             wCritMark.and(vHitEdges);
             critMark.put(w, wCritMark);
 
-            crit.get(w).andNot(vHitEdges);
+            // Leave rows v does not touch shared with any forks
+            if (!wCritMark.isEmpty()) {
+                crit.mutableRow(w).andNot(vHitEdges);
+            }
+        }
+
+        // v is critical for edges it hits which were previously
+        // uncovered (vHitEdges is our own copy, so we reuse it)
+        BitSet vNewCrit = vHitEdges;
+        vNewCrit.and(uncov);
+        crit.set(v, vNewCrit);
+
+        // Anything hit by v is no longer uncovered
+        uncov.andNot(vNewCrit);
+        if (buckets != null) {
+            buckets.cover(vNewCrit);
         }
 
         return critMark;
@@ -134,19 +149,113 @@ abstract class SHDRecursiveTask
 
         // If v was critical for any edges, they are now uncovered
         uncov.or(crit.get(v));
+        if (buckets != null) {
+            buckets.uncover(crit.get(v));
+        }
 
         // v is no longer critical for any edge
-        crit.get(v).clear();
+        crit.clear(v);
 
         // Restore all other crit vertices using critMark
         for (int w = S.nextSetBit(0); w >= 0; w = S.nextSetBit(w+1)) {
             if (!critMark.containsKey(w)) {
                 throw new IllegalArgumentException("w is not in critMark.");
             }
-            crit.get(w).or(critMark.get(w));
+
+            BitSet wCritMark = critMark.get(w);
+            if (!wCritMark.isEmpty()) {
+                crit.mutableRow(w).or(wCritMark);
+            }
         }
     };
 
+    /**
+     * Determine whether covering the uncovered edges needs more than
+     * a given number of further vertices.
+     *
+     * Greedily collects pairwise disjoint uncovered edges, each of
+     * which needs its own vertex, stopping once there are too many.
+     * Called with the newest vertex of S already added, it starts
+     * from {@link #packing}, the packing of S without that vertex:
+     * the vertex lies in at most one of its edges, so if it lies in
+     * none the packing is still greedy and is reused as it is, and
+     * otherwise the rest of it is extended. The result is left in
+     * {@link #childPacking} for the child task.
+     *
+     * @param budget  the number of vertices which may still be added
+     **/
+    protected Boolean uncovNeedsMoreThan(int budget) {
+        if (packing != null) {
+            int kept = 0;
+            for (int e: packing.edges) {
+                if (uncov.get(e)) {
+                    kept++;
+                }
+            }
+
+            if (kept == packing.edges.length) {
+                childPacking = packing;
+                return childPacking.edges.length > budget;
+            }
+        }
+
+        int[] edges = new int[budget + 1];
+        int size = 0;
+        BitSet blocked = new BitSet(H.numEdges());
+        if (packing != null) {
+            for (int e: packing.edges) {
+                if (uncov.get(e)) {
+                    edges[size++] = e;
+                    block(blocked, e);
+                }
+            }
+        }
+
+        // Extend with uncovered edges meeting none of the packing
+        for (int e = uncov.nextSetBit(0); (e >= 0) && (size <= budget); e = uncov.nextSetBit(e+1)) {
+            if (!blocked.get(e)) {
+                if (size == edges.length) {
+                    childPacking = null;
+                    return true;
+                }
+
+                edges[size++] = e;
+                block(blocked, e);
+            }
+        }
+
+        childPacking = new EdgePacking(Arrays.copyOf(edges, size), blocked);
+        return size > budget;
+    };
+
+    /**
+     * Add the edges meeting a given edge (including itself) to a set
+     * of edges.
+     **/
+    private void block (BitSet blocked,
+                        int e) {
+        BitSet edge = H.edgeAsBitSet(e);
+        for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+            blocked.or(T.edgeAsBitSet(v));
+        }
+    }
+
+    /**
+     * Pairwise disjoint uncovered edges of a candidate hitting set,
+     * chosen greedily, and the edges meeting them. Never modified,
+     * so tasks share it freely.
+     **/
+    static final class EdgePacking {
+        final int[] edges;
+        final BitSet blocked;
+
+        EdgePacking (int[] edges,
+                     BitSet blocked) {
+            this.edges = edges;
+            this.blocked = blocked;
+        }
+    }
+
     /**
      * Helper RecursiveTask to wait for all computations
      **/
@@ -0,0 +1,214 @@
+/**
+ * Saved state of an interrupted MHS search
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The state of an RS search which has been paused: the MHSes found so
+ * far and the branches not yet searched.
+ * <p>
+ * A branch of RS is determined by its candidate hitting set S, since
+ * the critical edges of each vertex of S and the uncovered edges can
+ * be recomputed from S, so only S is saved. Every MHS not in the
+ * checkpoint is found by searching exactly one of the branches.
+ * <p>
+ * All values are big-endian. A file consists of
+ * <ol>
+ * <li>a header: the magic number {@code "OCCP"}, the format version,
+ * the vertex count and the edge count of the hypergraph and the size
+ * bound of the search (one {@code int} each), and a fingerprint of the
+ * edges of the hypergraph (one {@code long});</li>
+ * <li>the number of MHSes (one {@code int}), then each MHS as its size
+ * followed by its vertices in increasing order ({@code int}s);</li>
+ * <li>the number of branches, then the candidate hitting set of each
+ * branch, in the same way.</li>
+ * </ol>
+ * A checkpoint is written to a temporary file which then replaces the
+ * old one, so a search killed while writing leaves the previous
+ * checkpoint intact.
+ **/
+final class SearchCheckpoint {
+    // "OCCP" in ASCII
+    static final int MAGIC = 0x4F434350;
+    static final int VERSION = 1;
+
+    private final List<BitSet> MHSes;
+    private final List<BitSet> pendingBranches;
+
+    /**
+     * Construct a checkpoint.
+     *
+     * @param MHSes  the MHSes found so far
+     * @param pendingBranches  the candidate hitting sets of the
+     * branches not yet searched
+     **/
+    SearchCheckpoint (List<BitSet> MHSes,
+                      List<BitSet> pendingBranches) {
+        this.MHSes = Objects.requireNonNull(MHSes, "MHSes cannot be null");
+        this.pendingBranches = Objects.requireNonNull(pendingBranches, "Pending branches cannot be null");
+    }
+
+    /**
+     * Return the MHSes found before the checkpoint.
+     **/
+    List<BitSet> MHSes () {
+        return MHSes;
+    }
+
+    /**
+     * Return the candidate hitting sets of the branches not yet
+     * searched.
+     **/
+    List<BitSet> pendingBranches () {
+        return pendingBranches;
+    }
+
+    /**
+     * Write this checkpoint.
+     *
+     * @param file  the file to write
+     * @param H  the hypergraph being searched
+     * @param maxCardinality  the size bound of the search (0 for none)
+     **/
+    void write (File file,
+                HypergraphStore H,
+                int maxCardinality)
+        throws IOException {
+        Objects.requireNonNull(file, "File cannot be null");
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        Path target = file.getAbsoluteFile().toPath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out =
+                 new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(H.numVerts());
+                out.writeInt(H.numEdges());
+                out.writeInt(maxCardinality);
+                out.writeLong(fingerprint(H));
+
+                writeSets(out, MHSes);
+                writeSets(out, pendingBranches);
+            }
+
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Read the checkpoint of a search.
+     *
+     * @param file  the file to read
+     * @param H  the hypergraph being searched
+     * @param maxCardinality  the size bound of the search (0 for none)
+     * @return the checkpoint, or null if the file does not exist
+     * @throws IllegalArgumentException if the file holds the
+     * checkpoint of a different search
+     **/
+    static SearchCheckpoint read (File file,
+                                  HypergraphStore H,
+                                  int maxCardinality)
+        throws IOException {
+        Objects.requireNonNull(file, "File cannot be null");
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in =
+             new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("File " + file + " is not a search checkpoint.");
+            }
+
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported search checkpoint version " + version + ".");
+            }
+
+            if ((in.readInt() != H.numVerts())
+                || (in.readInt() != H.numEdges())
+                || (in.readInt() != maxCardinality)
+                || (in.readLong() != fingerprint(H))) {
+                throw new IllegalArgumentException("Checkpoint " + file + " was written by a different search.");
+            }
+
+            List<BitSet> MHSes = readSets(in, H.numVerts());
+            List<BitSet> pendingBranches = readSets(in, H.numVerts());
+            return new SearchCheckpoint(MHSes, pendingBranches);
+        }
+    }
+
+    /**
+     * Return a hash of the edges of a hypergraph, in order.
+     *
+     * @param H  the hypergraph
+     **/
+    static long fingerprint (HypergraphStore H) {
+        long result = 17;
+        int numE = H.numEdges();
+        for (int e = 0; e < numE; e++) {
+            BitSet edge = H.edgeAsBitSet(e);
+            for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                result = 31 * result + v;
+            }
+
+            // Mark the end of the edge
+            result = 31 * result - 1;
+        }
+        return result;
+    }
+
+    private static void writeSets (DataOutputStream out,
+                                   List<BitSet> sets)
+        throws IOException {
+        out.writeInt(sets.size());
+        for (BitSet set: sets) {
+            out.writeInt(set.cardinality());
+            for (int v = set.nextSetBit(0); v >= 0; v = set.nextSetBit(v+1)) {
+                out.writeInt(v);
+            }
+        }
+    }
+
+    private static List<BitSet> readSets (DataInputStream in,
+                                          int numVerts)
+        throws IOException {
+        int numSets = in.readInt();
+        List<BitSet> result = new ArrayList<>(numSets);
+        for (int i = 0; i < numSets; i++) {
+            int size = in.readInt();
+            BitSet set = new BitSet(numVerts);
+            for (int j = 0; j < size; j++) {
+                int v = in.readInt();
+                if ((v < 0) || (v >= numVerts)) {
+                    throw new IllegalArgumentException("Vertex " + v + " out of range for hypergraph with " + numVerts + " vertices.");
+                }
+                set.set(v);
+            }
+            result.add(set);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,369 @@
+/**
+ * Shared state for stopping an MHS search early
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collects the MHSes reported by the workers of a search and tells
+ * them when to stop.
+ * <p>
+ * Each MHS is passed to a consumer, one at a time. The search stops
+ * once the consumer asks it to, once a given number of MHSes have
+ * been reported, or once it is canceled. Workers check {@link
+ * #shouldStop} between steps, so they finish shortly after, and no
+ * MHS reaches the consumer after it stops.
+ * <p>
+ * A control collecting the best MHSes by score also tells workers
+ * which branches cannot improve on them.
+ * <p>
+ * A search of a renumbered copy of a hypergraph reports to a control
+ * which translates its MHSes back and passes them, and everything else
+ * it learns, on to the control of the original search.
+ * <p>
+ * An SHD search also notes the branches at its root, and each branch
+ * which it leaves unfinished because it was stopped, so the control
+ * can tell how much of the search was done.
+ **/
+final class SearchControl {
+    private final MHSConsumer<? super BitSet> consumer;
+    private final long maxResults;
+    private final BooleanSupplier canceled;
+    private final TopKTransversals topK;
+    private final SearchControl parent;
+
+    private long numReported = 0;
+    private volatile boolean stopped = false;
+    private volatile boolean sizeLimitReached = false;
+
+    // The branches at the root of the search, by the vertex each adds
+    // first, and those left unfinished when it stopped
+    private final BitSet rootBranches = new BitSet();
+    private final BitSet unfinishedRootBranches = new BitSet();
+
+    /**
+     * Construct a control for a search.
+     *
+     * @param consumer  to receive the MHSes
+     * @param maxResults  number of MHSes after which to stop (0 for
+     * no bound)
+     * @param canceled  returns true if the search should stop
+     **/
+    SearchControl (MHSConsumer<? super BitSet> consumer,
+                   long maxResults,
+                   BooleanSupplier canceled) {
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        this.consumer = consumer;
+
+        if (maxResults < 0) {
+            throw new IllegalArgumentException("Result bound cannot be negative.");
+        }
+        this.maxResults = maxResults;
+
+        Objects.requireNonNull(canceled, "Cancellation test cannot be null");
+        this.canceled = canceled;
+
+        this.topK = null;
+        this.parent = null;
+    }
+
+    /**
+     * Construct a control which stops only when canceled.
+     *
+     * @param consumer  to receive the MHSes
+     * @param canceled  returns true if the search should stop
+     **/
+    SearchControl (MHSConsumer<? super BitSet> consumer,
+                   BooleanSupplier canceled) {
+        this(consumer, 0, canceled);
+    }
+
+    /**
+     * Construct a control which keeps the best MHSes by score.
+     *
+     * @param topK  to keep the best MHSes
+     * @param canceled  returns true if the search should stop
+     **/
+    SearchControl (TopKTransversals topK,
+                   BooleanSupplier canceled) {
+        Objects.requireNonNull(topK, "Top MHS collection cannot be null");
+        this.consumer = topK::offer;
+        this.maxResults = 0;
+        this.topK = topK;
+
+        Objects.requireNonNull(canceled, "Cancellation test cannot be null");
+        this.canceled = canceled;
+
+        this.parent = null;
+    }
+
+    /**
+     * Construct a control for a search of a renumbered copy of a
+     * hypergraph.
+     *
+     * @param parent  the control of the search of the original
+     * hypergraph, which must not keep the best MHSes by score
+     * @param translate  converts an MHS of the copy to the original
+     * numbering
+     **/
+    SearchControl (SearchControl parent,
+                   UnaryOperator<BitSet> translate) {
+        Objects.requireNonNull(parent, "Parent control cannot be null");
+        Objects.requireNonNull(translate, "Translation cannot be null");
+
+        if (parent.keepsTopK()) {
+            throw new IllegalArgumentException("Cannot translate a search for the best MHSes.");
+        }
+
+        this.consumer = mhs -> parent.report(translate.apply(mhs));
+        this.maxResults = 0;
+        this.canceled = parent::shouldStop;
+        this.topK = null;
+        this.parent = parent;
+    }
+
+    /**
+     * Determine whether this control keeps only the best MHSes by
+     * score.
+     **/
+    boolean keepsTopK () {
+        return topK != null;
+    }
+
+    /**
+     * Determine whether the search should stop.
+     **/
+    boolean shouldStop () {
+        return stopped || canceled.getAsBoolean();
+    }
+
+    /**
+     * Determine whether a branch of the search may find an MHS worth
+     * reporting (always true unless keeping the best MHSes).
+     *
+     * @param S  the candidate hitting set of the branch
+     * @param uncov  the edges it leaves uncovered
+     * @param remainingBudget  how many more vertices it may add (0 if
+     * unbounded)
+     **/
+    boolean mayImprove (BitSet S,
+                        BitSet uncov,
+                        int remainingBudget) {
+        return (topK == null) || topK.mayImprove(S, uncov, remainingBudget);
+    }
+
+    /**
+     * Determine whether a branch of a packed search may find an MHS
+     * worth reporting (always true unless keeping the best MHSes).
+     *
+     * @param S  the vertices of the candidate hitting set of the
+     * branch, in its first depth entries
+     * @param depth  the size of the candidate hitting set
+     * @param uncov  the words of the set of edges it leaves uncovered
+     * @param remainingBudget  how many more vertices it may add (0 if
+     * unbounded)
+     **/
+    boolean mayImprove (int[] S,
+                        int depth,
+                        long[] uncov,
+                        int remainingBudget) {
+        return (topK == null) || topK.mayImprove(S, depth, uncov, remainingBudget);
+    }
+
+    /**
+     * Report an MHS.
+     *
+     * @param mhs  the MHS, which the caller must not modify afterward
+     * @return true if the search should continue
+     **/
+    boolean report (BitSet mhs) {
+        if (stopped) {
+            return false;
+        }
+
+        synchronized (this) {
+            if (stopped) {
+                return false;
+            }
+
+            numReported++;
+            if (!consumer.accept(mhs)) {
+                stopped = true;
+            } else if ((maxResults > 0) && (numReported >= maxResults)) {
+                stopped = true;
+            }
+        }
+
+        return !stopped;
+    }
+
+    /**
+     * Report each MHS in a collection until the search should stop.
+     *
+     * @param MHSes  the MHSes, which the caller must not modify
+     * afterward
+     * @return true if the search should continue
+     **/
+    boolean reportAll (Iterable<BitSet> MHSes) {
+        for (BitSet mhs: MHSes) {
+            if (shouldStop() || !report(mhs)) {
+                return false;
+            }
+        }
+
+        return !shouldStop();
+    }
+
+    /**
+     * Tell the consumer that every MHS of a given size has been
+     * reported.
+     *
+     * @param size  the size
+     **/
+    synchronized void sizeComplete (int size) {
+        if (parent != null) {
+            parent.sizeComplete(size);
+        } else {
+            consumer.sizeComplete(size);
+        }
+    }
+
+    /**
+     * Note that a branch was abandoned because its candidate hitting
+     * set reached the size bound, so larger MHSes may exist.
+     **/
+    void noteSizeLimitReached () {
+        if (!sizeLimitReached) {
+            sizeLimitReached = true;
+
+            if (parent != null) {
+                parent.noteSizeLimitReached();
+            }
+        }
+    }
+
+    /**
+     * Determine whether any branch was abandoned because of the size
+     * bound.
+     **/
+    boolean sizeLimitReached () {
+        return sizeLimitReached;
+    }
+
+    /**
+     * Note the branches at the root of the search.
+     *
+     * @param vertices  the first vertex of each branch
+     **/
+    synchronized void noteRootBranches (BitSet vertices) {
+        rootBranches.or(vertices);
+
+        if (parent != null) {
+            parent.noteRootBranches(vertices);
+        }
+    }
+
+    /**
+     * Note that some branches at the root of the search were left
+     * unfinished.
+     *
+     * @param vertices  the first vertex of each branch
+     **/
+    synchronized void noteUnfinishedRootBranches (BitSet vertices) {
+        unfinishedRootBranches.or(vertices);
+
+        if (parent != null) {
+            parent.noteUnfinishedRootBranches(vertices);
+        }
+    }
+
+    /**
+     * Note that a branch at the root of the search was left
+     * unfinished.
+     *
+     * @param vertex  the first vertex of the branch
+     **/
+    synchronized void noteUnfinishedRootBranch (int vertex) {
+        unfinishedRootBranches.set(vertex);
+
+        if (parent != null) {
+            parent.noteUnfinishedRootBranch(vertex);
+        }
+    }
+
+    /**
+     * Forget the root branches noted so far, for a stopped search
+     * which cannot tell which of them it finished.
+     **/
+    synchronized void forgetRootBranches () {
+        rootBranches.clear();
+        unfinishedRootBranches.clear();
+
+        if (parent != null) {
+            parent.forgetRootBranches();
+        }
+    }
+
+    /**
+     * Take on the root branches noted by the control of another search
+     * of the same hypergraph, replacing those noted here.
+     *
+     * @param other  the other control
+     **/
+    void copyRootBranches (SearchControl other) {
+        BitSet otherRootBranches;
+        BitSet otherUnfinishedRootBranches;
+        synchronized (other) {
+            otherRootBranches = (BitSet) other.rootBranches.clone();
+            otherUnfinishedRootBranches = (BitSet) other.unfinishedRootBranches.clone();
+        }
+
+        synchronized (this) {
+            rootBranches.clear();
+            rootBranches.or(otherRootBranches);
+            unfinishedRootBranches.clear();
+            unfinishedRootBranches.or(otherUnfinishedRootBranches);
+        }
+    }
+
+    /**
+     * Return the fraction of the branches at the root of the search
+     * which were searched to the end.
+     * <p>
+     * This is 1 for a search which was not stopped, and 0 for a
+     * stopped search which noted no branches.
+     **/
+    synchronized double fractionExplored () {
+        if (!shouldStop()) {
+            return 1.0;
+        }
+
+        int numBranches = rootBranches.cardinality();
+        if (numBranches == 0) {
+            return 0.0;
+        }
+
+        BitSet unfinished = (BitSet) unfinishedRootBranches.clone();
+        unfinished.and(rootBranches);
+        return (double) (numBranches - unfinished.cardinality()) / numBranches;
+    }
+
+    /**
+     * Return the number of MHSes passed to the consumer so far.
+     **/
+    synchronized long numReported () {
+        return numReported;
+    }
+}
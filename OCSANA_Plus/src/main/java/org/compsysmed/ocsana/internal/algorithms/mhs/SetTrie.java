@@ -0,0 +1,294 @@
+/**
+ * Set-trie index answering subset and superset queries
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+
+/**
+ * Index of a family of vertex sets supporting fast subset and
+ * superset queries.
+ * <p>
+ * Each stored set is a root-to-node path of its vertices in
+ * increasing order, so sets sharing a prefix share nodes (see Savnik,
+ * "Index data structure for fast subset and superset queries", 2013).
+ * A query walks only the branches labelled by vertices it can still
+ * use, instead of comparing against every stored set.
+ * <p>
+ * NOTE: this class is not thread safe for concurrent modification,
+ * but any number of threads may query it once it is no longer being
+ * modified.
+ **/
+public class SetTrie {
+    private static final int[] NO_KEYS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+    private int size = 0;
+
+    /**
+     * Construct an empty {@code SetTrie}.
+     **/
+    public SetTrie () {}
+
+    /**
+     * Return the number of distinct sets stored.
+     **/
+    public int size () {
+        return size;
+    }
+
+    /**
+     * Return true if no sets are stored.
+     **/
+    public boolean isEmpty () {
+        return size == 0;
+    }
+
+    /**
+     * Store a set.
+     *
+     * @param set  the set to store
+     * @return true if the set was not already stored
+     **/
+    public boolean add (BitSet set) {
+        Node node = root;
+        for (int v = set.nextSetBit(0); v >= 0; v = set.nextSetBit(v+1)) {
+            node = node.childOrCreate(v);
+        }
+
+        if (node.isEnd) {
+            return false;
+        }
+
+        node.isEnd = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove a set.
+     *
+     * @param set  the set to remove
+     * @return true if the set was stored
+     **/
+    public boolean remove (BitSet set) {
+        int[] keys = toSortedArray(set);
+        if (!remove(root, keys, 0)) {
+            return false;
+        }
+
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove the path keys[index:] below node, pruning nodes which no
+     * longer lead to a stored set.
+     **/
+    private boolean remove (Node node, int[] keys, int index) {
+        if (index == keys.length) {
+            if (!node.isEnd) {
+                return false;
+            }
+
+            node.isEnd = false;
+            return true;
+        }
+
+        Node child = node.child(keys[index]);
+        if (child == null || !remove(child, keys, index + 1)) {
+            return false;
+        }
+
+        if (!child.isEnd && child.numChildren == 0) {
+            node.removeChild(keys[index]);
+        }
+
+        return true;
+    }
+
+    /**
+     * Test whether a set is stored.
+     *
+     * @param set  the set to look up
+     **/
+    public boolean contains (BitSet set) {
+        Node node = root;
+        for (int v = set.nextSetBit(0); v >= 0 && node != null; v = set.nextSetBit(v+1)) {
+            node = node.child(v);
+        }
+
+        return node != null && node.isEnd;
+    }
+
+    /**
+     * Test whether some stored set is a subset of a given set.
+     * <p>
+     * A stored set equal to the given set counts as a subset.
+     *
+     * @param set  the set to test
+     **/
+    public boolean containsSubsetOf (BitSet set) {
+        return containsSubsetOf(root, toSortedArray(set), 0);
+    }
+
+    private boolean containsSubsetOf (Node node,
+                                      int[] keys,
+                                      int index) {
+        if (node.isEnd) {
+            return true;
+        }
+
+        for (int i = index; i < keys.length; i++) {
+            Node child = node.child(keys[i]);
+            if (child != null && containsSubsetOf(child, keys, i + 1)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Test whether some stored set is a proper subset of a given set.
+     *
+     * @param set  the set to test
+     **/
+    public boolean containsProperSubsetOf (BitSet set) {
+        int[] keys = toSortedArray(set);
+        return containsSubsetOfSizeBelow(root, keys, 0, 0, keys.length);
+    }
+
+    private boolean containsSubsetOfSizeBelow (Node node,
+                                               int[] keys,
+                                               int index,
+                                               int depth,
+                                               int maxSize) {
+        if (node.isEnd && depth < maxSize) {
+            return true;
+        }
+
+        if (depth + 1 >= maxSize) {
+            // Any deeper stored set would be too large
+            return false;
+        }
+
+        for (int i = index; i < keys.length; i++) {
+            Node child = node.child(keys[i]);
+            if (child != null && containsSubsetOfSizeBelow(child, keys, i + 1, depth + 1, maxSize)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Test whether some stored set is a superset of a given set.
+     * <p>
+     * A stored set equal to the given set counts as a superset.
+     *
+     * @param set  the set to test
+     **/
+    public boolean containsSupersetOf (BitSet set) {
+        return containsSupersetOf(root, toSortedArray(set), 0);
+    }
+
+    private boolean containsSupersetOf (Node node,
+                                        int[] keys,
+                                        int index) {
+        // Every node lies on the path to some stored set, so once all
+        // of the keys are matched we have found a superset
+        if (index == keys.length) {
+            return node.isEnd || node.numChildren > 0;
+        }
+
+        int target = keys[index];
+        for (int c = 0; c < node.numChildren; c++) {
+            int key = node.keys[c];
+            if (key > target) {
+                // Children are sorted, so no later child can match
+                break;
+            }
+
+            int nextIndex = (key == target) ? index + 1 : index;
+            if (containsSupersetOf(node.children[c], keys, nextIndex)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return the set bits of a {@code BitSet} in increasing order.
+     **/
+    static int[] toSortedArray (BitSet set) {
+        int[] result = new int[set.cardinality()];
+        int i = 0;
+        for (int v = set.nextSetBit(0); v >= 0; v = set.nextSetBit(v+1)) {
+            result[i++] = v;
+        }
+        return result;
+    }
+
+    /**
+     * Trie node with children kept in sorted parallel arrays
+     **/
+    private static class Node {
+        int[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        int numChildren = 0;
+        boolean isEnd = false;
+
+        Node child (int key) {
+            int c = Arrays.binarySearch(keys, 0, numChildren, key);
+            return (c >= 0) ? children[c] : null;
+        }
+
+        Node childOrCreate (int key) {
+            int c = Arrays.binarySearch(keys, 0, numChildren, key);
+            if (c >= 0) {
+                return children[c];
+            }
+
+            int insertAt = -(c + 1);
+            if (numChildren == keys.length) {
+                int newCapacity = Math.max(2, 2 * numChildren);
+                keys = Arrays.copyOf(keys, newCapacity);
+                children = Arrays.copyOf(children, newCapacity);
+            }
+
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, numChildren - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, numChildren - insertAt);
+
+            Node child = new Node();
+            keys[insertAt] = key;
+            children[insertAt] = child;
+            numChildren++;
+            return child;
+        }
+
+        void removeChild (int key) {
+            int c = Arrays.binarySearch(keys, 0, numChildren, key);
+            if (c < 0) {
+                return;
+            }
+
+            System.arraycopy(keys, c + 1, keys, c, numChildren - c - 1);
+            System.arraycopy(children, c + 1, children, c, numChildren - c - 1);
+            numChildren--;
+            children[numChildren] = null;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Bounded collection of the best-scoring MHSes found by a search
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ *
+ * This software is licensed under the Artistic License 2.0, see the
+ * LICENSE file or
+ * http://www.opensource.org/licenses/artistic-license-2.0.php for
+ * details
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// Java imports
+import java.util.*;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Keeps the k highest-scoring MHSes offered to it, where the score of
+ * a set is the sum of the scores of its vertices, and bounds the best
+ * score a partial search branch can still reach.
+ * <p>
+ * A branch with candidate hitting set S adds at most one vertex per
+ * uncovered edge, since each added vertex needs a private edge among
+ * them, and no uncovered edge meets S. So its MHSes score at most
+ * score(S) plus the sum of the largest per-edge maximum vertex scores
+ * over the uncovered edges, taking no more edges than its remaining
+ * size budget. A branch whose bound cannot beat the worst of k kept
+ * MHSes can be skipped.
+ * <p>
+ * {@link #offer} must not be called concurrently (a {@link
+ * SearchControl} serializes it); the bounds may be queried from any
+ * thread.
+ **/
+final class TopKTransversals {
+    private final int k;
+    private final double[] vertexScores;
+
+    // Largest positive vertex score in each edge, and the edges in
+    // decreasing order of it
+    private final double[] edgeMaxScores;
+    private final int[] edgesByMaxScore;
+
+    // The kept MHSes, worst first
+    private final PriorityQueue<ScoredSet> best;
+
+    // Score an MHS must exceed to be kept (-infinity until k are kept)
+    private volatile double threshold = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Prepare to collect MHSes of a hypergraph.
+     *
+     * @param H  the hypergraph whose MHSes will be offered
+     * @param vertexScore  the score of each vertex of H
+     * @param k  the number of MHSes to keep
+     **/
+    TopKTransversals (HypergraphStore H,
+                      IntToDoubleFunction vertexScore,
+                      int k) {
+        Objects.requireNonNull(H, "Hypergraph cannot be null");
+        Objects.requireNonNull(vertexScore, "Vertex score function cannot be null");
+
+        if (k <= 0) {
+            throw new IllegalArgumentException("Number of MHSes to keep must be positive.");
+        }
+        this.k = k;
+
+        vertexScores = new double[H.numVerts()];
+        for (int v = 0; v < vertexScores.length; v++) {
+            vertexScores[v] = vertexScore.applyAsDouble(v);
+        }
+
+        edgeMaxScores = new double[H.numEdges()];
+        for (int e = 0; e < edgeMaxScores.length; e++) {
+            BitSet edge = H.edgeAsBitSet(e);
+            for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                edgeMaxScores[e] = Math.max(edgeMaxScores[e], vertexScores[v]);
+            }
+        }
+
+        edgesByMaxScore = new int[edgeMaxScores.length];
+        Integer[] order = new Integer[edgeMaxScores.length];
+        for (int e = 0; e < order.length; e++) {
+            order[e] = e;
+        }
+        Arrays.sort(order, (left, right) -> Double.compare(edgeMaxScores[right], edgeMaxScores[left]));
+        for (int i = 0; i < order.length; i++) {
+            edgesByMaxScore[i] = order[i];
+        }
+
+        best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(ScoredSet::score));
+    }
+
+    /**
+     * Return the score of a set of vertices.
+     **/
+    double score (BitSet S) {
+        double result = 0d;
+        for (int v = S.nextSetBit(0); v >= 0; v = S.nextSetBit(v+1)) {
+            result += vertexScores[v];
+        }
+        return result;
+    }
+
+    /**
+     * Offer an MHS, keeping it if it is among the best k so far.
+     *
+     * @param mhs  the MHS
+     * @return true, so the search continues
+     **/
+    boolean offer (BitSet mhs) {
+        double score = score(mhs);
+        if (score <= threshold) {
+            return true;
+        }
+
+        best.add(new ScoredSet(mhs, score));
+        if (best.size() > k) {
+            best.poll();
+        }
+
+        if (best.size() == k) {
+            threshold = best.peek().score();
+        }
+
+        return true;
+    }
+
+    /**
+     * Determine whether a branch of the search may still find an MHS
+     * to keep.
+     *
+     * @param S  the candidate hitting set of the branch
+     * @param uncov  the edges it leaves uncovered
+     * @param remainingBudget  how many more vertices it may add (0 if
+     * unbounded)
+     **/
+    boolean mayImprove (BitSet S,
+                        BitSet uncov,
+                        int remainingBudget) {
+        double limit = threshold;
+        if (limit == Double.NEGATIVE_INFINITY) {
+            return true;
+        }
+
+        int levels = (remainingBudget > 0) ? remainingBudget : Integer.MAX_VALUE;
+        double bound = score(S);
+        for (int i = 0; (i < edgesByMaxScore.length) && (levels > 0) && (bound <= limit); i++) {
+            int e = edgesByMaxScore[i];
+            if (edgeMaxScores[e] <= 0d) {
+                break;
+            }
+
+            if (uncov.get(e)) {
+                bound += edgeMaxScores[e];
+                levels--;
+            }
+        }
+
+        return bound > limit;
+    }
+
+    /**
+     * Determine whether a branch of a packed search may still find an
+     * MHS to keep.
+     *
+     * @param S  the vertices of the candidate hitting set of the
+     * branch, in its first depth entries
+     * @param depth  the size of the candidate hitting set
+     * @param uncov  the words of the set of edges it leaves uncovered
+     * @param remainingBudget  how many more vertices it may add (0 if
+     * unbounded)
+     **/
+    boolean mayImprove (int[] S,
+                        int depth,
+                        long[] uncov,
+                        int remainingBudget) {
+        double limit = threshold;
+        if (limit == Double.NEGATIVE_INFINITY) {
+            return true;
+        }
+
+        int levels = (remainingBudget > 0) ? remainingBudget : Integer.MAX_VALUE;
+        double bound = 0d;
+        for (int p = 0; p < depth; p++) {
+            bound += vertexScores[S[p]];
+        }
+
+        for (int i = 0; (i < edgesByMaxScore.length) && (levels > 0) && (bound <= limit); i++) {
+            int e = edgesByMaxScore[i];
+            if (edgeMaxScores[e] <= 0d) {
+                break;
+            }
+
+            if ((uncov[e >>> 6] & (1L << e)) != 0) {
+                bound += edgeMaxScores[e];
+                levels--;
+            }
+        }
+
+        return bound > limit;
+    }
+
+    /**
+     * Return the kept MHSes, best first.
+     **/
+    List<BitSet> results () {
+        List<ScoredSet> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(ScoredSet::score).reversed());
+
+        List<BitSet> result = new ArrayList<>(sorted.size());
+        for (ScoredSet scoredSet: sorted) {
+            result.add(scoredSet.set());
+        }
+        return result;
+    }
+
+    private static final class ScoredSet {
+        private final BitSet set;
+        private final double score;
+
+        ScoredSet (BitSet set,
+                   double score) {
+            this.set = set;
+            this.score = score;
+        }
+
+        BitSet set () {
+            return set;
+        }
+
+        double score () {
+            return score;
+        }
+    }
+}
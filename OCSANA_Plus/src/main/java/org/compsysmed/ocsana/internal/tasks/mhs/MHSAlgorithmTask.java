@@ -22,6 +22,10 @@ import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyEdge;
 
 // OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.AbstractMHSAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.AbstractStreamingMHSAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.MHSConsumer;
+
 import org.compsysmed.ocsana.internal.tasks.AbstractOCSANATask;
 import org.compsysmed.ocsana.internal.tasks.OCSANAStep;
 import org.compsysmed.ocsana.internal.tasks.runner.RunnerTask;
@@ -33,6 +37,9 @@ import org.compsysmed.ocsana.internal.util.results.CombinationOfInterventions;
 public class MHSAlgorithmTask extends AbstractOCSANATask {
     private static final OCSANAStep algStep = OCSANAStep.FIND_MHSES;
 
+    // Number of CIs between progress messages while streaming
+    private static final int STATUS_INTERVAL = 10000;
+
     private final RunnerTask runnerTask;
     private final ContextBundle contextBundle;
     private final ResultsBundle resultsBundle;
@@ -62,50 +69,70 @@ public class MHSAlgorithmTask extends AbstractOCSANATask {
 
         Objects.requireNonNull(resultsBundle.getPathsToTargets(), "Paths to targets not set.");
 
-        taskMonitor.setStatusMessage(String.format("Converting %d paths to node sets.", resultsBundle.getPathsToTargets().size()));
-        Long preConversionTime = System.nanoTime();
-        List<Set<CyNode>> nodeSets = new ArrayList<>();
         Set<CyNode> sourceNodes = contextBundle.getSourceNodes();
         Set<CyNode> targetNodes = contextBundle.getTargetNodes();
-        
-        for (List<CyEdge> path: resultsBundle.getPathsToTargets()) {
-            Set<CyNode> nodes = new HashSet<>();
-
-            // Scan every edge in the path, adding its nodes as
-            // appropriate
-            for (int i = 0; i <= path.size() - 1; i++) {
-                CyEdge edge = path.get(i);
-                // Since we're using a Set, we don't have to worry
-                // about multiple addition, so we'll just go ahead and
-                // add the source and target every time
-                if (contextBundle.getIncludeEndpointsInCIs() ||
-                    (!sourceNodes.contains(edge.getSource()) && !targetNodes.contains(edge.getSource()))) {
-                    nodes.add(edge.getSource());
-                }
 
-              
-                if (
-                    (!sourceNodes.contains(edge.getTarget()) && !targetNodes.contains(edge.getTarget()))) {
-                    nodes.add(edge.getTarget());
+        Collection<Set<CyNode>> nodeSets;
+        if (contextBundle.getMHSAlgorithm().storesHypergraphOffHeap()) {
+            // Keep only the paths on the heap; the algorithm writes
+            // each node set straight into its off-heap rows
+            nodeSets = viewNodeSetsOfPaths(resultsBundle.getPathsToTargets(), sourceNodes, targetNodes);
+        } else {
+            taskMonitor.setStatusMessage(String.format("Converting %d paths to node sets.", resultsBundle.getPathsToTargets().size()));
+            Long preConversionTime = System.nanoTime();
+            List<Set<CyNode>> convertedNodeSets = new ArrayList<>();
+            for (List<CyEdge> path: resultsBundle.getPathsToTargets()) {
+                Set<CyNode> nodes = nodesOfPath(path, sourceNodes, targetNodes);
+                if (!nodes.isEmpty()) {
+                    convertedNodeSets.add(nodes);
                 }
             }
+            nodeSets = convertedNodeSets;
+            Long postConversionTime = System.nanoTime();
 
-            if (!nodes.isEmpty()) {
-                nodeSets.add(nodes);
-            }
+            Double conversionTime = (postConversionTime - preConversionTime) / 1E9;
+            taskMonitor.setStatusMessage(String.format("Converted paths in %f s.", conversionTime));
         }
-        Long postConversionTime = System.nanoTime();
-
-        Double conversionTime = (postConversionTime - preConversionTime) / 1E9;
-        taskMonitor.setStatusMessage(String.format("Converted paths in %f s.", conversionTime));
 
         taskMonitor.setStatusMessage(String.format("Finding minimal combinations of interventions (algorithm: %s).", contextBundle.getMHSAlgorithm().shortName()));
         
         Long preMHSTime = System.nanoTime();
-        Collection<Set<CyNode>> MHSes = contextBundle.getMHSAlgorithm().MHSes(nodeSets);
-        if (MHSes != null) {
-          resultsBundle.setCIs(MHSes.stream().map(mhs -> new CombinationOfInterventions(mhs, targetNodes, contextBundle.getNodeHandler()::getNodeName, contextBundle.getNodeHandler()::getNodeID, resultsBundle.getOCSANAScores().OCSANA(mhs),resultsBundle.getOCSANAScores().EFFECT_ON_TARGETS(mhs),resultsBundle.getOCSANAScores().SIDE_EFFECTS(mhs))).collect(Collectors.toList()));
-          //THE LINE ABOVE IS GIVING AN EXCEPTION. I have already checked that MHSes is not null.
+        AbstractMHSAlgorithm mhsAlgorithm = contextBundle.getMHSAlgorithm();
+        for (Map.Entry<String, String> ignored: mhsAlgorithm.ignoredOptions().entrySet()) {
+            taskMonitor.showMessage(TaskMonitor.Level.WARN, String.format("\"%s\" has no effect because \"%s\" is on.", ignored.getKey(), ignored.getValue()));
+        }
+        mhsAlgorithm.startTimeBudget();
+        if (mhsAlgorithm instanceof AbstractStreamingMHSAlgorithm) {
+            // Score each CI as soon as it is found
+            List<CombinationOfInterventions> CIs = new ArrayList<>();
+            ((AbstractStreamingMHSAlgorithm) mhsAlgorithm).streamMHSes(nodeSets, new MHSConsumer<Set<CyNode>>() {
+                    @Override
+                    public boolean accept (Set<CyNode> mhs) {
+                        CIs.add(combinationOfInterventions(mhs, targetNodes));
+                        if (CIs.size() % STATUS_INTERVAL == 0) {
+                            taskMonitor.setStatusMessage(String.format("Found %d minimal CIs so far.", CIs.size()));
+                        }
+                        return !cancelled;
+                    }
+
+                    @Override
+                    public void sizeComplete (int size) {
+                        // Publish the finished sizes while the search
+                        // moves on to larger CIs
+                        resultsBundle.setCIs(new ArrayList<>(CIs));
+                        resultsBundle.setMHSSizeComplete(size);
+                        resultsBundle.setMHSExecutionSeconds((System.nanoTime() - preMHSTime) / 1E9);
+                        runnerTask.presentPartialResults();
+                        taskMonitor.setStatusMessage(String.format("Found all minimal CIs of size at most %d (%d CIs).", size, CIs.size()));
+                    }
+                }, 0);
+            resultsBundle.setCIs(CIs);
+            resultsBundle.setMHSFindingFinished();
+        } else {
+            Collection<Set<CyNode>> MHSes = mhsAlgorithm.MHSes(nodeSets);
+            if (MHSes != null) {
+              resultsBundle.setCIs(MHSes.stream().map(mhs -> combinationOfInterventions(mhs, targetNodes)).collect(Collectors.toList()));
+            }
         }
         
         Long postMHSTime = System.nanoTime();
@@ -115,6 +142,127 @@ public class MHSAlgorithmTask extends AbstractOCSANATask {
         taskMonitor.showMessage(TaskMonitor.Level.INFO, String.format("Found %d minimal CIs in %f s.", resultsBundle.getCIs().size(), mhsTime));
 
         resultsBundle.setMHSExecutionSeconds(mhsTime);
+
+        resultsBundle.setMHSFractionExplored(mhsAlgorithm.fractionExplored());
+        if (mhsAlgorithm.timeBudgetExpired()) {
+            taskMonitor.showMessage(TaskMonitor.Level.WARN, String.format("Time budget ran out with %.1f%% of the search explored; the CIs found are partial.", 100 * mhsAlgorithm.fractionExplored()));
+        }
+
+        if (mhsAlgorithm.certifyResults && !cancelled) {
+            if (mhsAlgorithm.boundsMHSSize()) {
+                taskMonitor.showMessage(TaskMonitor.Level.WARN, "Cannot verify that all minimal CIs were found when the CI size is bounded; turn off \"Bound CI size\" to verify them.");
+            } else {
+                certifyCIs(taskMonitor, mhsAlgorithm, nodeSets, targetNodes);
+            }
+        }
+    }
+
+    /**
+     * Return the nodes of a path which may be part of a CI
+     **/
+    private Set<CyNode> nodesOfPath (List<CyEdge> path,
+                                     Set<CyNode> sourceNodes,
+                                     Set<CyNode> targetNodes) {
+        Set<CyNode> nodes = new HashSet<>();
+
+        // Scan every edge in the path, adding its nodes as
+        // appropriate
+        for (int i = 0; i <= path.size() - 1; i++) {
+            CyEdge edge = path.get(i);
+            // Since we're using a Set, we don't have to worry
+            // about multiple addition, so we'll just go ahead and
+            // add the source and target every time
+            if (contextBundle.getIncludeEndpointsInCIs() ||
+                (!sourceNodes.contains(edge.getSource()) && !targetNodes.contains(edge.getSource()))) {
+                nodes.add(edge.getSource());
+            }
+
+            if (
+                (!sourceNodes.contains(edge.getTarget()) && !targetNodes.contains(edge.getTarget()))) {
+                nodes.add(edge.getTarget());
+            }
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Return a view of the non-empty node sets of some paths
+     *
+     * Each node set is computed only when the iteration reaches it,
+     * so only one is on the heap at a time.
+     **/
+    private Collection<Set<CyNode>> viewNodeSetsOfPaths (Collection<List<CyEdge>> paths,
+                                                         Set<CyNode> sourceNodes,
+                                                         Set<CyNode> targetNodes) {
+        return new AbstractCollection<Set<CyNode>>() {
+            private int size = -1;
+
+            @Override
+            public Iterator<Set<CyNode>> iterator () {
+                return paths.stream().map(path -> nodesOfPath(path, sourceNodes, targetNodes)).filter(nodes -> !nodes.isEmpty()).iterator();
+            }
+
+            @Override
+            public int size () {
+                if (size < 0) {
+                    size = (int) paths.stream().filter(path -> !nodesOfPath(path, sourceNodes, targetNodes).isEmpty()).count();
+                }
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Check that the CIs found are all the minimal CIs, adding the
+     * missing ones if the algorithm asks for it
+     **/
+    private void certifyCIs (TaskMonitor taskMonitor,
+                             AbstractMHSAlgorithm mhsAlgorithm,
+                             Collection<Set<CyNode>> nodeSets,
+                             Set<CyNode> targetNodes) {
+        taskMonitor.setStatusMessage("Checking that all minimal CIs were found.");
+
+        Long preCheckTime = System.nanoTime();
+        List<CombinationOfInterventions> CIs = new ArrayList<>(resultsBundle.getCIs());
+        int numFound = CIs.size();
+        List<Set<CyNode>> ciNodeSets = CIs.stream().map(CombinationOfInterventions::getNodes).collect(Collectors.toList());
+
+        boolean complete = mhsAlgorithm.certifyMHSes(nodeSets, ciNodeSets, mhs -> {
+                CombinationOfInterventions ci = combinationOfInterventions(mhs, targetNodes);
+                if (!mhsAlgorithm.completeResults) {
+                    taskMonitor.showMessage(TaskMonitor.Level.WARN, String.format("Not all minimal CIs were found; for example, %s is missing.", ci.interventionNodesString()));
+                    return false;
+                }
+
+                CIs.add(ci);
+                if ((CIs.size() - numFound) % STATUS_INTERVAL == 0) {
+                    taskMonitor.setStatusMessage(String.format("Added %d missing minimal CIs so far.", CIs.size() - numFound));
+                }
+                return !cancelled;
+            });
+        Long postCheckTime = System.nanoTime();
+
+        Double checkTime = (postCheckTime - preCheckTime) / 1E9;
+
+        if (CIs.size() > numFound) {
+            resultsBundle.setCIs(CIs);
+        }
+
+        if (complete) {
+            resultsBundle.setMHSFractionExplored(1.0);
+            taskMonitor.showMessage(TaskMonitor.Level.INFO, String.format("Verified that all %d minimal CIs were found (%d added) in %f s.", CIs.size(), CIs.size() - numFound, checkTime));
+        } else if (mhsAlgorithm.completeResults) {
+            taskMonitor.showMessage(TaskMonitor.Level.WARN, String.format("Stopped adding missing CIs after %d in %f s.", CIs.size() - numFound, checkTime));
+        }
+    }
+
+    /**
+     * Construct a scored CI from an MHS
+     **/
+    private CombinationOfInterventions combinationOfInterventions (Set<CyNode> mhs,
+                                                                  Set<CyNode> targetNodes) {
+        return new CombinationOfInterventions(mhs, targetNodes, contextBundle.getNodeHandler()::getNodeName, contextBundle.getNodeHandler()::getNodeID, resultsBundle.getOCSANAScores().OCSANA(mhs), resultsBundle.getOCSANAScores().EFFECT_ON_TARGETS(mhs), resultsBundle.getOCSANAScores().SIDE_EFFECTS(mhs));
     }
 
     @Override
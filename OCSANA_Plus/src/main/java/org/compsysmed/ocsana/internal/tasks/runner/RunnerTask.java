@@ -14,6 +14,8 @@ package org.compsysmed.ocsana.internal.tasks.runner;
 // Java imports
 import java.util.*;
 
+import javax.swing.SwingUtilities;
+
 // Cytoscape imports
 import org.cytoscape.task.AbstractNetworkTask;
 import org.cytoscape.work.FinishStatus;
@@ -131,6 +133,17 @@ public class RunnerTask
         taskManager.execute(presentResultsTaskFactory.createTaskIterator(), this);
     }
 
+    /**
+     * Show the results found so far in the results panel while the
+     * run continues
+     * <p>
+     * May be called from any thread; the panel is updated on the
+     * event dispatch thread.
+     **/
+    public void presentPartialResults () {
+        SwingUtilities.invokeLater(() -> resultsPanel.update(contextBundle, resultsBundle));
+    }
+
     private void spawnCleanupTask () {
         // Flag that the results are clean
         hasCleanResults = true;
@@ -75,8 +75,18 @@ public class MHSSubpanel
         algSelectionPanel.add(new JLabel("Algorithm:"));
 
         List<AbstractMHSAlgorithm> algorithms = new ArrayList<>();
-        
-        algorithms.add(new RSAlgorithm());
+
+        AutoMHSAlgorithm autoAlgorithm = new AutoMHSAlgorithm(contextBundleBuilder.getNetwork());
+        contextBundleBuilder.getOCSANAAlgorithm().addListener(autoAlgorithm);
+        algorithms.add(autoAlgorithm);
+
+        RSAlgorithm rsAlgorithm = new RSAlgorithm();
+        contextBundleBuilder.getOCSANAAlgorithm().addListener(rsAlgorithm);
+        algorithms.add(rsAlgorithm);
+
+        MMCSAlgorithm mmcsAlgorithm = new MMCSAlgorithm();
+        contextBundleBuilder.getOCSANAAlgorithm().addListener(mmcsAlgorithm);
+        algorithms.add(mmcsAlgorithm);
         algorithms.add(new BergeAlgorithm());
 
         OCSANAGreedyAlgorithm greedyAlgorithm = new OCSANAGreedyAlgorithm(contextBundleBuilder.getNetwork());
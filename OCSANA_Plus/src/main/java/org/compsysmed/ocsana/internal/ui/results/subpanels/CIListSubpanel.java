@@ -63,6 +63,11 @@ public class CIListSubpanel
 
             setLayout(new BorderLayout());
             String mhsText = String.format("Found %d optimal CIs in %f s.", resultsBundle.getCIs().size(), resultsBundle.getMHSExecutionSeconds());
+            if (resultsBundle.MHSFindingIsInProgress()) {
+                mhsText = String.format("Found %d optimal CIs of size at most %d in %f s (still searching for larger CIs).", resultsBundle.getCIs().size(), resultsBundle.getMHSSizeComplete(), resultsBundle.getMHSExecutionSeconds());
+            } else if (!resultsBundle.MHSResultsAreComplete()) {
+                mhsText += String.format(" (partial: %.1f%% of the search explored)", 100 * resultsBundle.getMHSFractionExplored());
+            }
             add(new JLabel(mhsText), BorderLayout.PAGE_START);
             add(mhsScrollPane, BorderLayout.CENTER);
         }
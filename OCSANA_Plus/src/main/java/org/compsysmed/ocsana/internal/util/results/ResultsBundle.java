@@ -41,6 +41,8 @@ public class ResultsBundle {
     private Collection<CombinationOfInterventions> CIs;
     private Double mhsExecutionSeconds;
     private Boolean mhsFindingCanceled = false;
+    private Double mhsFractionExplored = 1.0;
+    private Integer mhsSizeComplete;
 
     
    
@@ -139,4 +141,34 @@ public class ResultsBundle {
         mhsFindingCanceled = true;
     }
 
+    public Double getMHSFractionExplored () {
+        return mhsFractionExplored;
+    }
+
+    public void setMHSFractionExplored (Double mhsFractionExplored) {
+        Objects.requireNonNull(mhsFractionExplored, "Fraction of MHS search explored cannot be null");
+        this.mhsFractionExplored = mhsFractionExplored;
+    }
+
+    public Boolean MHSResultsAreComplete () {
+        return mhsFractionExplored >= 1.0;
+    }
+
+    public Integer getMHSSizeComplete () {
+        return mhsSizeComplete;
+    }
+
+    public void setMHSSizeComplete (Integer mhsSizeComplete) {
+        Objects.requireNonNull(mhsSizeComplete, "Completed CI size cannot be null");
+        this.mhsSizeComplete = mhsSizeComplete;
+    }
+
+    public Boolean MHSFindingIsInProgress () {
+        return mhsSizeComplete != null;
+    }
+
+    public void setMHSFindingFinished () {
+        mhsSizeComplete = null;
+    }
+
 }
@@ -17,11 +17,15 @@ import java.io.*;
 // OCSANA imports
 import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
 import org.compsysmed.ocsana.internal.algorithms.mhs.BergeAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
+
+import org.compsysmed.ocsana.internal.helpers.HypergraphFixtures;
 
 public class BergeAlgorithmTest {
     BergeAlgorithm algFull;
     BergeAlgorithm algCutoff;
     Hypergraph smallHypergraph;
+    Hypergraph sparseHypergraph;
 
     @Before
     public void setUp () {
@@ -39,6 +43,8 @@ public class BergeAlgorithmTest {
         smallHypergraphEdges.add(Arrays.asList(2, 3, 4));
         smallHypergraphEdges.add(Arrays.asList(1, 3));
         smallHypergraph = new Hypergraph(smallHypergraphEdges);
+
+        sparseHypergraph = HypergraphFixtures.sparseHypergraph();
     }
 
     @After
@@ -50,6 +56,7 @@ public class BergeAlgorithmTest {
         algCutoff = null;
 
         smallHypergraph = null;
+        sparseHypergraph = null;
     }
 
     @Test
@@ -62,6 +69,32 @@ public class BergeAlgorithmTest {
         }
     }
 
+    @Test
+    public void transversalsShouldMatchRS () {
+        RSAlgorithm rs = new RSAlgorithm();
+        rs.useMaxCardinality = false;
+        Set<BitSet> all = new HashSet<>(rs.transversalHypergraph(sparseHypergraph));
+
+        Hypergraph T = algFull.transversalHypergraph(sparseHypergraph);
+        assertEquals("Transversals", all, new HashSet<>(T));
+        assertEquals("Transversal count", all.size(), T.numEdges());
+
+        for (Integer bound: Arrays.asList(6, 7, 8)) {
+            Set<BitSet> expected = new HashSet<>();
+            for (BitSet transversal: all) {
+                if (transversal.cardinality() <= bound) {
+                    expected.add(transversal);
+                }
+            }
+
+            algCutoff.maxCardinalityBInt.setValue(bound);
+            Hypergraph bounded = algCutoff.transversalHypergraph(sparseHypergraph);
+
+            assertEquals("Transversals (bound " + bound + ")", expected, new HashSet<>(bounded));
+            assertEquals("Transversal count (bound " + bound + ")", expected.size(), bounded.numEdges());
+        }
+    }
+
     @Test
     public void hugeHypergraphCutoffTransversalShouldWork ()
         throws FileNotFoundException, IOException, NumberFormatException {
@@ -0,0 +1,82 @@
+/**
+ * Test cases for the BinaryHypergraphFile class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.BinaryHypergraphFile;
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.PackedHypergraph;
+
+public class BinaryHypergraphFileTest {
+    Hypergraph smallHypergraph;
+    File tempFile;
+
+    @Before
+    public void setUp ()
+        throws IOException {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(1, 2, 5));
+        edges.add(Arrays.asList(2, 3, 4));
+        edges.add(Arrays.asList(1, 3));
+        edges.add(Arrays.asList(70, 130));
+        smallHypergraph = new Hypergraph(edges);
+
+        tempFile = File.createTempFile("hypergraph", ".bin");
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        tempFile.delete();
+        tempFile = null;
+
+        smallHypergraph = null;
+    }
+
+    @Test
+    public void roundTripShouldPreserveEdges ()
+        throws IOException {
+        BinaryHypergraphFile.write(smallHypergraph, tempFile);
+        assertTrue("Binary header", BinaryHypergraphFile.isBinaryHypergraphFile(tempFile));
+
+        PackedHypergraph H = BinaryHypergraphFile.read(tempFile);
+        assertEquals("Vertex count", smallHypergraph.numVerts(), H.numVerts());
+        assertEquals("Edges", smallHypergraph, H.toHypergraph());
+    }
+
+    @Test
+    public void textFilesShouldNotBeBinary ()
+        throws IOException {
+        smallHypergraph.writeToFile(tempFile.getPath());
+        assertFalse("Text file", BinaryHypergraphFile.isBinaryHypergraphFile(tempFile));
+        assertEquals("Text round trip", smallHypergraph, new Hypergraph(tempFile));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedFileShouldBeRejected ()
+        throws IOException {
+        BinaryHypergraphFile.write(smallHypergraph, tempFile);
+
+        try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        BinaryHypergraphFile.read(tempFile);
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Test cases for the BucketedSetStore class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.BucketedSetStore;
+
+public class BucketedSetStoreTest {
+    BucketedSetStore store;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        store = new BucketedSetStore();
+        store.add(bitSet(1, 2));
+        store.add(bitSet(3));
+        store.add(bitSet(2, 4, 5));
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        store = null;
+    }
+
+    @Test
+    public void addShouldIgnoreDuplicates () {
+        assertFalse("Duplicate added", store.add(bitSet(1, 2)));
+        assertTrue("New set added", store.add(bitSet(1, 5)));
+        assertEquals("Size", 4, store.size());
+    }
+
+    @Test
+    public void properSubsetsShouldBeFound () {
+        assertTrue("Subset of size 2", store.containsProperSubsetOf(bitSet(1, 2, 6)));
+        assertTrue("Subset of size 1", store.containsProperSubsetOf(bitSet(0, 3)));
+        assertFalse("Equal set", store.containsProperSubsetOf(bitSet(2, 4, 5)));
+        assertFalse("No subset", store.containsProperSubsetOf(bitSet(1, 4, 5)));
+    }
+
+    @Test
+    public void removedSetsShouldNotBeFound () {
+        assertTrue("Removed", store.remove(bitSet(3)));
+        assertFalse("Removed twice", store.remove(bitSet(3)));
+        assertFalse("Never stored", store.remove(bitSet(0, 1, 2, 3, 4, 5, 6)));
+
+        assertFalse("Subset removed", store.containsProperSubsetOf(bitSet(0, 3)));
+        assertEquals("Size", 2, store.size());
+    }
+
+    private static BitSet bitSet (int... vertices) {
+        BitSet result = new BitSet();
+        for (int v: vertices) {
+            result.set(v);
+        }
+        return result;
+    }
+}
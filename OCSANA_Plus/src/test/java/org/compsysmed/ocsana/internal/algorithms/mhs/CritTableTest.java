@@ -0,0 +1,82 @@
+/**
+ * Test cases for the CritTable class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.CritTable;
+
+public class CritTableTest {
+    CritTable crit;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        crit = new CritTable();
+
+        BitSet row = new BitSet();
+        row.set(1);
+        row.set(4);
+        crit.set(2, row);
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        crit = null;
+    }
+
+    @Test
+    public void absentRowsShouldBeEmpty () {
+        assertTrue("Absent row", crit.isEmpty(0));
+        assertTrue("Absent row contents", crit.get(0).isEmpty());
+        assertFalse("Present row", crit.isEmpty(2));
+
+        crit.clear(2);
+        assertTrue("Cleared row", crit.isEmpty(2));
+    }
+
+    @Test
+    public void forksShouldNotSeeEachOthersChanges () {
+        CritTable child = crit.fork();
+
+        child.mutableRow(2).clear(1);
+        crit.mutableRow(2).set(7);
+        child.mutableRow(3).set(0);
+
+        BitSet parentRow = new BitSet();
+        parentRow.set(1);
+        parentRow.set(4);
+        parentRow.set(7);
+        assertEquals("Parent row", parentRow, crit.get(2));
+        assertTrue("Parent new row", crit.isEmpty(3));
+
+        BitSet childRow = new BitSet();
+        childRow.set(4);
+        assertEquals("Child row", childRow, child.get(2));
+        assertFalse("Child new row", child.isEmpty(3));
+    }
+
+    @Test
+    public void unchangedRowsShouldBeShared () {
+        CritTable child = crit.fork();
+
+        assertSame("Shared row", crit.get(2), child.get(2));
+
+        child.mutableRow(2).set(9);
+        assertNotSame("Copied row", crit.get(2), child.get(2));
+    }
+}
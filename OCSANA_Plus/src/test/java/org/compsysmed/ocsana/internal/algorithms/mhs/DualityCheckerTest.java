@@ -0,0 +1,132 @@
+/**
+ * Test cases for the DualityChecker class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.DualityChecker;
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
+
+import org.compsysmed.ocsana.internal.helpers.HypergraphFixtures;
+
+public class DualityCheckerTest {
+    Hypergraph smallHypergraph;
+    Hypergraph mediumHypergraph;
+    RSAlgorithm algFull;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        List<List<Integer>> smallHypergraphEdges = new ArrayList<>();
+        smallHypergraphEdges.add(Arrays.asList(1, 2, 5));
+        smallHypergraphEdges.add(Arrays.asList(2, 3, 4));
+        smallHypergraphEdges.add(Arrays.asList(1, 3));
+        smallHypergraph = new Hypergraph(smallHypergraphEdges);
+
+        mediumHypergraph = HypergraphFixtures.mediumHypergraph();
+
+        algFull = new RSAlgorithm();
+        algFull.useMaxCardinality = false;
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        smallHypergraph = null;
+        mediumHypergraph = null;
+        algFull = null;
+    }
+
+    @Test
+    public void allTransversalsShouldBeComplete () {
+        for (Hypergraph H: Arrays.asList(smallHypergraph, mediumHypergraph)) {
+            Hypergraph T = algFull.transversalHypergraph(H);
+            DualityChecker checker = new DualityChecker(H);
+
+            assertTrue("Complete", checker.isComplete(T));
+            assertNull("Missing transversal", checker.missingTransversal(T));
+        }
+    }
+
+    @Test
+    public void missingTransversalShouldBeFound () {
+        Hypergraph T = algFull.transversalHypergraph(smallHypergraph);
+        DualityChecker checker = new DualityChecker(smallHypergraph);
+
+        for (int i = 0; i < T.numEdges(); i++) {
+            List<BitSet> partial = new ArrayList<>(T);
+            BitSet removed = partial.remove(i);
+
+            assertFalse("Complete without " + removed, checker.isComplete(partial));
+            assertEquals("Missing transversal", removed, checker.missingTransversal(partial));
+        }
+
+        assertNotNull("Missing transversal of no MHSes", checker.missingTransversal(Collections.emptyList()));
+    }
+
+    @Test
+    public void completionShouldFindEveryMissingTransversal () {
+        Hypergraph T = algFull.transversalHypergraph(mediumHypergraph);
+        DualityChecker checker = new DualityChecker(mediumHypergraph);
+
+        List<BitSet> partial = new ArrayList<>();
+        for (int i = 0; i < T.numEdges(); i += 3) {
+            partial.add(T.get(i));
+        }
+
+        List<BitSet> added = new ArrayList<>();
+        assertTrue("Completed", checker.complete(partial, added::add, () -> false));
+
+        assertEquals("Transversal count", T.numEdges(), partial.size() + added.size());
+        Set<BitSet> completed = new HashSet<>(partial);
+        completed.addAll(added);
+        assertEquals("Transversals", new HashSet<>(T), completed);
+    }
+
+    @Test
+    public void completionShouldStopWhenConsumerAsks () {
+        DualityChecker checker = new DualityChecker(mediumHypergraph);
+
+        List<BitSet> added = new ArrayList<>();
+        assertFalse("Completed", checker.complete(Collections.emptyList(), mhs -> {
+                    added.add(mhs);
+                    return added.size() < 3;
+                }, () -> false));
+        assertEquals("Added count", 3, added.size());
+
+        for (BitSet mhs: added) {
+            assertTrue("Transversal condition", mediumHypergraph.isTransversedBy(mhs));
+        }
+    }
+
+    @Test
+    public void emptyHypergraphShouldHaveEmptyTransversal () {
+        DualityChecker checker = new DualityChecker(new Hypergraph());
+
+        assertEquals("Missing transversal", new BitSet(), checker.missingTransversal(Collections.emptyList()));
+        assertTrue("Complete", checker.isComplete(Collections.singletonList(new BitSet())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonMinimalTransversalShouldBeRejected () {
+        BitSet S = new BitSet();
+        S.set(1);
+        S.set(2);
+        S.set(3);
+        new DualityChecker(smallHypergraph).isComplete(Collections.singletonList(S));
+    }
+}
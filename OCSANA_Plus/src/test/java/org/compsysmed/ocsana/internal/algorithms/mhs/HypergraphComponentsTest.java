@@ -0,0 +1,81 @@
+/**
+ * Test cases for the HypergraphComponents class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.HypergraphComponents;
+import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
+
+public class HypergraphComponentsTest {
+    Hypergraph splitHypergraph;
+    RSAlgorithm rs;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+
+        // Components {0, 1, 2}, {3, 4, 5} and {6}
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(0, 1));
+        edges.add(Arrays.asList(1, 2));
+        edges.add(Arrays.asList(3, 5));
+        edges.add(Arrays.asList(4, 5));
+        edges.add(Arrays.asList(6));
+        splitHypergraph = new Hypergraph(edges);
+
+        rs = new RSAlgorithm();
+        rs.useMaxCardinality = false;
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        splitHypergraph = null;
+        rs = null;
+    }
+
+    @Test
+    public void componentsShouldBeFound () {
+        HypergraphComponents components = new HypergraphComponents(splitHypergraph);
+
+        assertEquals("Component count", 3, components.numComponents());
+        assertArrayEquals("First component", new int[] {0, 1, 2}, components.componentVertices(0));
+        assertArrayEquals("Second component", new int[] {3, 4, 5}, components.componentVertices(1));
+        assertEquals("Second component edges", 2, components.component(1).numEdges());
+    }
+
+    @Test
+    public void productShouldMatchDirectSearch () {
+        HypergraphComponents components = new HypergraphComponents(splitHypergraph);
+
+        Collection<BitSet> product = components.transversals(rs::transversalHypergraph, 0);
+        Set<BitSet> direct = new HashSet<>(rs.transversalHypergraph(splitHypergraph));
+        assertEquals("MHSes", direct, new HashSet<>(product));
+        assertEquals("Product size", direct.size(), product.size());
+    }
+
+    @Test
+    public void productShouldRespectCardinalityBound () {
+        HypergraphComponents components = new HypergraphComponents(splitHypergraph);
+
+        // Only {1, 5, 6} has at most three vertices
+        Collection<BitSet> product = components.transversals(rs::transversalHypergraph, 3);
+        assertEquals("Bounded size", 1, product.size());
+        assertEquals("Bounded MHS", BitSet.valueOf(new long[] {(1L << 1) | (1L << 5) | (1L << 6)}), product.iterator().next());
+    }
+}
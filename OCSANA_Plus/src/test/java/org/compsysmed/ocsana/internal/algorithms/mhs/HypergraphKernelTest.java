@@ -0,0 +1,79 @@
+/**
+ * Test cases for the HypergraphKernel class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.HypergraphKernel;
+import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
+
+public class HypergraphKernelTest {
+    Hypergraph chainHypergraph;
+    RSAlgorithm rs;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+
+        // Two paths sharing a linear chain 1-2-3, plus a forced vertex 7
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(0, 1, 2, 3, 4));
+        edges.add(Arrays.asList(1, 2, 3, 5, 6));
+        edges.add(Arrays.asList(0, 5));
+        edges.add(Arrays.asList(7));
+        chainHypergraph = new Hypergraph(edges);
+
+        rs = new RSAlgorithm();
+        rs.useMaxCardinality = false;
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        chainHypergraph = null;
+        rs = null;
+    }
+
+    @Test
+    public void twinsAndForcedVerticesShouldBeCollapsed () {
+        HypergraphKernel kernel = new HypergraphKernel(chainHypergraph);
+
+        assertEquals("Forced vertices", BitSet.valueOf(new long[] {1L << 7}), kernel.forcedVertices());
+        assertEquals("Reduced edges", 3, kernel.reducedHypergraph().numEdges());
+
+        // Classes: {0}, {1, 2, 3}, {4}, {5}, {6}
+        assertEquals("Class count", 5, kernel.numClasses());
+        assertArrayEquals("Chain class", new int[] {1, 2, 3}, kernel.vertexClass(1));
+    }
+
+    @Test
+    public void expansionShouldMatchDirectSearch () {
+        HypergraphKernel kernel = new HypergraphKernel(chainHypergraph);
+        Hypergraph classTransversals = rs.transversalHypergraph(kernel.reducedHypergraph());
+
+        Set<BitSet> expanded = new HashSet<>(kernel.expand(classTransversals));
+        Set<BitSet> direct = new HashSet<>(rs.transversalHypergraph(chainHypergraph));
+        assertEquals("MHSes", direct, expanded);
+        assertEquals("Expansion size", direct.size(), kernel.expand(classTransversals).size());
+    }
+
+    @Test
+    public void edgelessHypergraphShouldHaveNoTransversals () {
+        HypergraphKernel kernel = new HypergraphKernel(new Hypergraph(4));
+        assertTrue("No MHSes", kernel.expand(Collections.singletonList(new BitSet())).isEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Test cases for the HypergraphProfile and AutoMHSAlgorithm classes
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Mockito imports
+import static org.mockito.Mockito.*;
+
+// Java imports
+import java.util.*;
+
+// Cytoscape imports
+import org.cytoscape.model.CyNetwork;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.AutoMHSAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.BergeAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.HypergraphProfile;
+import org.compsysmed.ocsana.internal.algorithms.mhs.OCSANAGreedyAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
+
+import org.compsysmed.ocsana.internal.util.results.OCSANAScores;
+
+public class HypergraphProfileTest {
+    Hypergraph smallHypergraph;
+    Hypergraph largeHypergraph;
+    Hypergraph wideHypergraph;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(0, 1, 2));
+        edges.add(Arrays.asList(1, 3));
+        edges.add(Arrays.asList(4, 5));
+        smallHypergraph = new Hypergraph(edges);
+
+        // Disjoint pairs {2i, 2i + 1}, which have 2^n MHSes
+        List<List<Integer>> pairs = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            pairs.add(Arrays.asList(2*i, 2*i + 1));
+        }
+        largeHypergraph = new Hypergraph(pairs);
+
+        // Eight disjoint edges of eight vertices, which have 8^8 MHSes
+        List<List<Integer>> octets = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            List<Integer> octet = new ArrayList<>();
+            for (int j = 0; j < 8; j++) {
+                octet.add(8*i + j);
+            }
+            octets.add(octet);
+        }
+        wideHypergraph = new Hypergraph(octets);
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        smallHypergraph = null;
+        largeHypergraph = null;
+        wideHypergraph = null;
+    }
+
+    @Test
+    public void statisticsShouldBeCorrect () {
+        HypergraphProfile profile = new HypergraphProfile(smallHypergraph);
+
+        assertArrayEquals("Edge sizes", new int[] {0, 0, 2, 1}, profile.edgeSizeHistogram());
+        assertArrayEquals("Vertex degrees", new int[] {1, 2, 1, 1, 1, 1}, profile.vertexDegrees());
+        assertArrayEquals("Degree histogram", new int[] {0, 5, 1}, profile.vertexDegreeHistogram());
+        assertEquals("Components", 2, profile.numComponents());
+        assertEquals("Density", 7d / 18d, profile.density(), 1e-12);
+    }
+
+    @Test
+    public void transversalEstimateShouldBeExactOnSmallInputs () {
+        HypergraphProfile profile = new HypergraphProfile(smallHypergraph);
+
+        // MHSes: {1, 4}, {1, 5}, {0, 3, 4}, {0, 3, 5}, {2, 3, 4}, {2, 3, 5}
+        assertEquals("Estimate", 6d, profile.estimateNumTransversals(200, 1L), 1d);
+    }
+
+    @Test
+    public void transversalEstimateShouldReachLargeCounts () {
+        assertEquals("Pairs", Math.pow(2, 40), new HypergraphProfile(largeHypergraph).estimateNumTransversals(64, 0L), 0d);
+        assertEquals("Octets", Math.pow(8, 8), new HypergraphProfile(wideHypergraph).estimateNumTransversals(64, 0L), 0d);
+    }
+
+    @Test
+    public void autoShouldPreferBergeOnlyForFewEdges () {
+        AutoMHSAlgorithm auto = new AutoMHSAlgorithm(mock(CyNetwork.class));
+
+        assertTrue("Small input", auto.chooseAlgorithm(new HypergraphProfile(smallHypergraph)) instanceof BergeAlgorithm);
+        assertTrue("Large input", auto.chooseAlgorithm(new HypergraphProfile(largeHypergraph)) instanceof RSAlgorithm);
+    }
+
+    @Test
+    public void autoShouldPreferGreedyForManyTransversals () {
+        CyNetwork network = mock(CyNetwork.class);
+        OCSANAScores scores = mock(OCSANAScores.class);
+        when(scores.getNetwork()).thenReturn(network);
+
+        AutoMHSAlgorithm auto = new AutoMHSAlgorithm(network);
+        auto.allowGreedy = true;
+        auto.receiveScores(scores);
+
+        assertTrue("Many MHSes", auto.chooseAlgorithm(new HypergraphProfile(wideHypergraph)) instanceof OCSANAGreedyAlgorithm);
+        assertTrue("Few MHSes", auto.chooseAlgorithm(new HypergraphProfile(smallHypergraph)) instanceof BergeAlgorithm);
+
+        auto.allowGreedy = false;
+        assertTrue("Greedy not allowed", auto.chooseAlgorithm(new HypergraphProfile(wideHypergraph)) instanceof BergeAlgorithm);
+    }
+}
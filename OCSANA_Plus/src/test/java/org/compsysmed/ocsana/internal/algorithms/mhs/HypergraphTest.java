@@ -14,6 +14,8 @@ import static org.junit.Assert.*;
 import java.util.*;
 import java.io.*;
 
+import java.util.concurrent.ForkJoinPool;
+
 // OCSANA imports
 import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
 
@@ -50,6 +52,29 @@ public class HypergraphTest {
         assertEquals("Edge count (minimized)", 3, example.minimization().numEdges());
     }
 
+    @Test
+    public void parallelMinimizationShouldMatchSequential () {
+        Random rng = new Random(2016);
+        Hypergraph H = new Hypergraph();
+        for (int i = 0; i < 5000; i++) {
+            BitSet edge = new BitSet();
+            int size = 1 + rng.nextInt(6);
+            for (int j = 0; j < size; j++) {
+                edge.set(rng.nextInt(60));
+            }
+            H.add(edge);
+        }
+        H.updateNumVerts();
+
+        Hypergraph sequential = H.minimization();
+
+        for (int numThreads: Arrays.asList(1, 2, 4)) {
+            Hypergraph parallel = new Hypergraph(H);
+            parallel.minimize(new ForkJoinPool(numThreads));
+            assertEquals("Parallel minimization (" + numThreads + " threads)", sequential, parallel);
+        }
+    }
+
     @Test
     public void fileConstructorShouldWork ()
         throws FileNotFoundException, IOException, NumberFormatException {
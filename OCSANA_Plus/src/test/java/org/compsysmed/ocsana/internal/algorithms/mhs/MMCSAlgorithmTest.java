@@ -15,22 +15,25 @@ import java.util.*;
 import java.io.*;
 
 // OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.ForkPolicy;
 import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
-import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.MMCSAlgorithm;
+
+import org.compsysmed.ocsana.internal.helpers.HypergraphFixtures;
 
 public class MMCSAlgorithmTest {
-    RSAlgorithm algFull;
-    RSAlgorithm algCutoff;
+    MMCSAlgorithm algFull;
+    MMCSAlgorithm algCutoff;
     Hypergraph smallHypergraph;
 
     @Before
     public void setUp () {
         // Set up the test environment here
         // In particular, initialize any shared variables
-        algFull = new RSAlgorithm();
+        algFull = new MMCSAlgorithm();
         algFull.useMaxCardinality = false;
 
-        algCutoff = new RSAlgorithm();
+        algCutoff = new MMCSAlgorithm();
         algCutoff.useMaxCardinality = true;
         algCutoff.maxCardinalityBInt.setValue(6);
 
@@ -62,6 +65,21 @@ public class MMCSAlgorithmTest {
         }
     }
 
+    @Test
+    public void forkPoliciesShouldFindSameTransversals () {
+        Hypergraph H = HypergraphFixtures.mediumHypergraph();
+        Hypergraph expected = algFull.transversalHypergraph(H);
+        assertEquals("Transversal count", 321, expected.numEdges());
+
+        for (ForkPolicy.Kind kind: ForkPolicy.Kind.values()) {
+            algFull.forkPolicy.setSelectedValue(kind);
+            Hypergraph T = algFull.transversalHypergraph(H);
+
+            assertEquals("Transversals (" + kind + ")", new HashSet<>(expected), new HashSet<>(T));
+            assertEquals("Transversal count (" + kind + ")", expected.numEdges(), T.numEdges());
+        }
+    }
+
     @Test
     public void hugeHypergraphCutoffTransversalShouldWork ()
         throws FileNotFoundException, IOException, NumberFormatException {
@@ -25,7 +25,9 @@ import org.cytoscape.model.CyEdge;
 // OCSANA imports
 import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
 import org.compsysmed.ocsana.internal.algorithms.mhs.OCSANAGreedyAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
 
+import org.compsysmed.ocsana.internal.helpers.HypergraphFixtures;
 import org.compsysmed.ocsana.internal.helpers.SIFFileConverter;
 
 import org.compsysmed.ocsana.internal.util.results.OCSANAScores;
@@ -37,6 +39,7 @@ public class OCSANAGreedyAlgorithmTest {
     OCSANAGreedyAlgorithm algCutoff;
 
     Collection<Set<CyNode>> sets;
+    Hypergraph sparseHypergraph;
 
     @Before
     public void setUp ()
@@ -86,6 +89,8 @@ public class OCSANAGreedyAlgorithmTest {
         set3.add(A);
         set3.add(D);
         sets.add(set3);
+
+        sparseHypergraph = HypergraphFixtures.sparseHypergraph();
     }
 
     @After
@@ -99,6 +104,7 @@ public class OCSANAGreedyAlgorithmTest {
         toyNetwork = null;
 
         sets = null;
+        sparseHypergraph = null;
     }
 
     @Test
@@ -111,6 +117,35 @@ public class OCSANAGreedyAlgorithmTest {
         }
     }
 
+    @Test
+    public void scoredEnumerationShouldMatchRS () {
+        RSAlgorithm rs = new RSAlgorithm();
+        rs.useMaxCardinality = false;
+        Set<BitSet> expected = new HashSet<>(rs.transversalHypergraph(sparseHypergraph));
+
+        // Ties and distinct scores exercise the rank order
+        Hypergraph T = algFull.transversalHypergraph(sparseHypergraph, v -> v % 4);
+
+        assertEquals("MHSes", expected, new HashSet<>(T));
+        assertEquals("MHS count", expected.size(), T.numEdges());
+    }
+
+    @Test
+    public void threadCountShouldNotChangeResults () {
+        // Bound the candidates so the bound falls inside a level
+        algFull.useMaxCandidates = true;
+        algFull.maxMegaCandidates = 12000 / 1e6;
+
+        algFull.configureThreads = true;
+        algFull.numThreads.setValue(1);
+        Hypergraph sequential = algFull.transversalHypergraph(sparseHypergraph, v -> v % 4);
+
+        algFull.numThreads.setValue(Runtime.getRuntime().availableProcessors());
+        Hypergraph parallel = algFull.transversalHypergraph(sparseHypergraph, v -> v % 4);
+
+        assertEquals("MHSes", new ArrayList<>(sequential), new ArrayList<>(parallel));
+    }
+
     @Test
     public void cutoffEnumerationShouldWork () {
         Collection<Set<CyNode>> MHSes = algCutoff.MHSes(sets);
@@ -0,0 +1,105 @@
+/**
+ * Test cases for the OffHeapHypergraph class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.BinaryHypergraphFile;
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.OffHeapHypergraph;
+
+public class OffHeapHypergraphTest {
+    Hypergraph smallHypergraph;
+    OffHeapHypergraph directHypergraph;
+    OffHeapHypergraph mappedHypergraph;
+
+    @Before
+    public void setUp ()
+        throws IOException {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(1, 2, 5));
+        edges.add(Arrays.asList(2, 3, 4));
+        edges.add(Arrays.asList(1, 3));
+        edges.add(Arrays.asList(1, 2, 3, 5));
+        edges.add(Arrays.asList(70, 130));
+        smallHypergraph = new Hypergraph(edges);
+
+        directHypergraph = new OffHeapHypergraph(smallHypergraph.numVerts(), 1);
+        mappedHypergraph = OffHeapHypergraph.withTemporaryFile(smallHypergraph.numVerts(), 1);
+        for (BitSet edge: smallHypergraph) {
+            directHypergraph.addEdge(edge);
+            mappedHypergraph.addEdge(edge);
+        }
+    }
+
+    @After
+    public void tearDown ()
+        throws IOException {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        directHypergraph.close();
+        directHypergraph = null;
+
+        mappedHypergraph.close();
+        mappedHypergraph = null;
+
+        smallHypergraph = null;
+    }
+
+    @Test
+    public void edgesShouldMatchHypergraph () {
+        assertEquals("Direct edges", smallHypergraph, directHypergraph.toHypergraph());
+        assertEquals("Mapped edges", smallHypergraph, mappedHypergraph.toHypergraph());
+        assertTrue("Mapped storage", mappedHypergraph.isFileBacked());
+    }
+
+    @Test
+    public void transposeShouldMatchHypergraph ()
+        throws IOException {
+        try (OffHeapHypergraph directTranspose = directHypergraph.transpose();
+             OffHeapHypergraph mappedTranspose = mappedHypergraph.transpose()) {
+            assertEquals("Direct transpose", smallHypergraph.transpose(), directTranspose.toHypergraph());
+            assertEquals("Mapped transpose", smallHypergraph.transpose(), mappedTranspose.toHypergraph());
+            assertTrue("Mapped transpose storage", mappedTranspose.isFileBacked());
+        }
+    }
+
+    @Test
+    public void minimizationShouldMatchHypergraph ()
+        throws IOException {
+        try (OffHeapHypergraph directMinimal = directHypergraph.minimization();
+             OffHeapHypergraph mappedMinimal = mappedHypergraph.minimization()) {
+            Hypergraph expected = smallHypergraph.minimization();
+            assertEquals("Direct minimization", new HashSet<>(expected), new HashSet<>(directMinimal.toHypergraph()));
+            assertEquals("Mapped minimization", new HashSet<>(expected), new HashSet<>(mappedMinimal.toHypergraph()));
+        }
+    }
+
+    @Test
+    public void binaryFileShouldReadOffHeap ()
+        throws IOException {
+        File binaryFile = File.createTempFile("hypergraph", ".bin");
+        try {
+            BinaryHypergraphFile.write(smallHypergraph, binaryFile);
+            try (OffHeapHypergraph H = OffHeapHypergraph.read(binaryFile, null)) {
+                assertEquals("Edges", smallHypergraph, H.toHypergraph());
+            }
+        } finally {
+            binaryFile.delete();
+        }
+    }
+}
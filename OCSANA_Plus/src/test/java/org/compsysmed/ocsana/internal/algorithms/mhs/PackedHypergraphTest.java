@@ -0,0 +1,108 @@
+/**
+ * Test cases for the PackedHypergraph class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.PackedHypergraph;
+
+public class PackedHypergraphTest {
+    Hypergraph smallHypergraph;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(1, 2, 5));
+        edges.add(Arrays.asList(2, 3, 4));
+        edges.add(Arrays.asList(1, 3));
+        edges.add(Arrays.asList(70, 130));
+        smallHypergraph = new Hypergraph(edges);
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        smallHypergraph = null;
+    }
+
+    @Test
+    public void copyConstructorShouldPreserveEdges () {
+        PackedHypergraph packed = new PackedHypergraph(smallHypergraph);
+
+        assertEquals("Vertex count", smallHypergraph.numVerts(), packed.numVerts());
+        assertEquals("Edge count", smallHypergraph.numEdges(), packed.numEdges());
+
+        for (int e = 0; e < smallHypergraph.numEdges(); e++) {
+            assertEquals("Edge " + e, smallHypergraph.get(e), packed.edgeAsBitSet(e));
+            assertEquals("Cardinality of edge " + e, smallHypergraph.get(e).cardinality(), packed.edgeCardinality(e));
+        }
+    }
+
+    @Test
+    public void transposeShouldMatchHypergraph () {
+        PackedHypergraph packed = new PackedHypergraph(smallHypergraph);
+
+        assertEquals("Transpose", smallHypergraph.transpose(), packed.transpose().toHypergraph());
+    }
+
+    @Test
+    public void transversalTestsShouldMatchHypergraph () {
+        PackedHypergraph packed = new PackedHypergraph(smallHypergraph);
+
+        BitSet hitting = new BitSet();
+        hitting.set(2);
+        hitting.set(3);
+        hitting.set(130);
+
+        BitSet missing = new BitSet();
+        missing.set(1);
+        missing.set(4);
+
+        assertTrue("Hitting set", packed.isTransversedBy(hitting));
+        assertFalse("Non-hitting set", packed.isTransversedBy(missing));
+        assertEquals("Unhit vertices", smallHypergraph.get(3), packed.verticesOfEdgesMissing(missing));
+    }
+
+    @Test
+    public void edgeTestsShouldMatchHypergraph () {
+        PackedHypergraph packed = new PackedHypergraph(smallHypergraph);
+
+        BitSet S = new BitSet();
+        S.set(1);
+        S.set(2);
+        S.set(5);
+        S.set(130);
+
+        for (int e = 0; e < smallHypergraph.numEdges(); e++) {
+            assertEquals("Intersection with edge " + e, smallHypergraph.edgeIntersects(e, S), packed.edgeIntersects(e, S));
+            assertEquals("Containment of edge " + e, smallHypergraph.edgeIsSubsetOf(e, S), packed.edgeIsSubsetOf(e, S));
+        }
+    }
+
+    @Test
+    public void addEdgeShouldRejectOutOfRangeVertices () {
+        PackedHypergraph packed = new PackedHypergraph(4);
+
+        try {
+            packed.addEdge(new int[] {1, 4});
+            fail("Out-of-range vertex should be rejected");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}
@@ -14,14 +14,31 @@ import static org.junit.Assert.*;
 import java.util.*;
 import java.io.*;
 
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cytoscape imports
+import org.cytoscape.model.NetworkTestSupport;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+
 // OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.ForkPolicy;
 import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.HypergraphOrdering;
+import org.compsysmed.ocsana.internal.algorithms.mhs.MHSConsumer;
 import org.compsysmed.ocsana.internal.algorithms.mhs.RSAlgorithm;
+import org.compsysmed.ocsana.internal.algorithms.mhs.RSWorkerPool;
+
+import org.compsysmed.ocsana.internal.helpers.HypergraphFixtures;
 
 public class RSAlgorithmTest {
     RSAlgorithm algFull;
     RSAlgorithm algCutoff;
     Hypergraph smallHypergraph;
+    Hypergraph mediumHypergraph;
+    Hypergraph sparseHypergraph;
 
     @Before
     public void setUp () {
@@ -39,6 +56,9 @@ public class RSAlgorithmTest {
         smallHypergraphEdges.add(Arrays.asList(2, 3, 4));
         smallHypergraphEdges.add(Arrays.asList(1, 3));
         smallHypergraph = new Hypergraph(smallHypergraphEdges);
+
+        mediumHypergraph = HypergraphFixtures.mediumHypergraph();
+        sparseHypergraph = HypergraphFixtures.sparseHypergraph();
     }
 
     @After
@@ -50,6 +70,8 @@ public class RSAlgorithmTest {
         algCutoff = null;
 
         smallHypergraph = null;
+        mediumHypergraph = null;
+        sparseHypergraph = null;
     }
 
     @Test
@@ -62,6 +84,445 @@ public class RSAlgorithmTest {
         }
     }
 
+    @Test
+    public void streamedTransversalsShouldMatchCollected () {
+        Hypergraph expected = algFull.transversalHypergraph(smallHypergraph);
+
+        for (Boolean reduce: Arrays.asList(false, true)) {
+            algFull.reduceHypergraph = reduce;
+
+            List<BitSet> streamed = new ArrayList<>();
+            long count = algFull.streamTransversals(smallHypergraph, streamed::add, 0);
+
+            assertEquals("Reported count", streamed.size(), count);
+            assertEquals("Transversals", new HashSet<>(expected), new HashSet<>(streamed));
+        }
+    }
+
+    @Test
+    public void streamingShouldStopAtResultCap () {
+        List<BitSet> streamed = new ArrayList<>();
+        long count = algFull.streamTransversals(smallHypergraph, streamed::add, 2);
+
+        assertEquals("Reported count", 2, count);
+        assertEquals("Transversal count", 2, streamed.size());
+    }
+
+    @Test
+    public void streamingShouldStopWhenConsumerAsks () {
+        List<BitSet> streamed = new ArrayList<>();
+        long count = algFull.streamTransversals(smallHypergraph, mhs -> {
+            streamed.add(mhs);
+            return streamed.size() < 3;
+        }, 0);
+
+        assertEquals("Reported count", 3, count);
+        assertEquals("Transversal count", 3, streamed.size());
+    }
+
+    @Test
+    public void searchBySizeShouldReportSmallestFirst () {
+        Hypergraph expected = algFull.transversalHypergraph(mediumHypergraph);
+
+        algFull.searchBySize = true;
+        List<BitSet> streamed = new ArrayList<>();
+        List<Integer> completedSizes = new ArrayList<>();
+        algFull.streamTransversals(mediumHypergraph, new MHSConsumer<BitSet>() {
+                @Override
+                public boolean accept (BitSet mhs) {
+                    // Every smaller MHS must already have been reported
+                    assertFalse("Size already complete", completedSizes.contains(mhs.cardinality()));
+                    streamed.add(mhs);
+                    return true;
+                }
+
+                @Override
+                public void sizeComplete (int size) {
+                    // Every MHS of this size must be in hand before
+                    // any larger one is reported
+                    long expectedCount = expected.stream().filter(mhs -> mhs.cardinality() <= size).count();
+                    assertEquals("MHSes of size at most " + size, expectedCount, streamed.size());
+                    completedSizes.add(size);
+                }
+            }, 0);
+
+        assertEquals("Transversals", new HashSet<>(expected), new HashSet<>(streamed));
+        assertEquals("Transversal count", expected.numEdges(), streamed.size());
+
+        for (int i = 1; i < streamed.size(); i++) {
+            assertTrue("Size order", streamed.get(i-1).cardinality() <= streamed.get(i).cardinality());
+        }
+
+        int largest = streamed.get(streamed.size() - 1).cardinality();
+        for (int size = 1; size < largest; size++) {
+            assertTrue("Completed size " + size, completedSizes.contains(size));
+        }
+    }
+
+    @Test
+    public void topTransversalsShouldHaveHighestScores () {
+        // MHSes {1, 2}, {1, 3}, {1, 4}, {2, 3}, {3, 5}, scored by
+        // the sum of their vertices
+        BitSet best = new BitSet();
+        best.set(3);
+        best.set(5);
+
+        assertEquals("Best transversal", Collections.singletonList(best), algFull.topTransversals(smallHypergraph, v -> v, 1));
+
+        List<Double> scores = new ArrayList<>();
+        for (BitSet transversal: algFull.topTransversals(smallHypergraph, v -> v, 3)) {
+            scores.add(transversal.stream().asDoubleStream().sum());
+        }
+        assertEquals("Best scores", Arrays.asList(8d, 5d, 5d), scores);
+    }
+
+    @Test
+    public void preallocatedSearchShouldMatchLegacySearch () {
+        List<List<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            edges.add(Arrays.asList(i % 7, (3*i + 1) % 11, (5*i + 2) % 13, 70 + i % 3));
+        }
+        Hypergraph H = new Hypergraph(edges);
+        H.minimize();
+
+        algFull.preallocateSearchState = true;
+        Hypergraph preallocated = algFull.transversalHypergraph(H);
+
+        algFull.preallocateSearchState = false;
+        Hypergraph legacy = algFull.transversalHypergraph(H);
+
+        assertEquals("Transversals", new HashSet<>(legacy), new HashSet<>(preallocated));
+        assertEquals("Transversal count", legacy.numEdges(), preallocated.numEdges());
+    }
+
+    @Test
+    public void boundedSearchShouldFindSmallTransversals () {
+        Set<BitSet> all = new HashSet<>(algFull.transversalHypergraph(sparseHypergraph));
+
+        for (Integer bound: Arrays.asList(6, 7, 8)) {
+            Set<BitSet> expected = new HashSet<>();
+            for (BitSet transversal: all) {
+                if (transversal.cardinality() <= bound) {
+                    expected.add(transversal);
+                }
+            }
+
+            algCutoff.maxCardinalityBInt.setValue(bound);
+            for (Boolean preallocate: Arrays.asList(true, false)) {
+                algCutoff.preallocateSearchState = preallocate;
+                Hypergraph T = algCutoff.transversalHypergraph(sparseHypergraph);
+
+                assertEquals("Transversals (bound " + bound + ")", expected, new HashSet<>(T));
+                assertEquals("Transversal count (bound " + bound + ")", expected.size(), T.numEdges());
+            }
+        }
+    }
+
+    @Test
+    public void fewestCandidateBranchingShouldFindSameTransversals () {
+        Hypergraph expected = algFull.transversalHypergraph(mediumHypergraph);
+
+        algFull.branchOnFewestCandidates = true;
+        Hypergraph T = algFull.transversalHypergraph(mediumHypergraph);
+
+        assertEquals("Transversals", new HashSet<>(expected), new HashSet<>(T));
+        assertEquals("Transversal count", expected.numEdges(), T.numEdges());
+    }
+
+    @Test
+    public void orderingsShouldFindSameTransversals () {
+        Hypergraph expected = algFull.transversalHypergraph(mediumHypergraph);
+
+        for (HypergraphOrdering.EdgeOrder edgeOrder: HypergraphOrdering.EdgeOrder.values()) {
+            algFull.edgeOrder.setSelectedValue(edgeOrder);
+            for (HypergraphOrdering.VertexOrder vertexOrder: HypergraphOrdering.VertexOrder.values()) {
+                algFull.vertexOrder.setSelectedValue(vertexOrder);
+
+                List<BitSet> streamed = new ArrayList<>();
+                algFull.streamTransversals(mediumHypergraph, streamed::add, 0);
+
+                assertEquals("Transversals (" + edgeOrder + ", " + vertexOrder + ")", new HashSet<>(expected), new HashSet<>(streamed));
+                assertEquals("Transversal count (" + edgeOrder + ", " + vertexOrder + ")", expected.numEdges(), streamed.size());
+            }
+        }
+    }
+
+    @Test
+    public void forkPoliciesShouldFindSameTransversals () {
+        Hypergraph expected = algFull.transversalHypergraph(mediumHypergraph);
+
+        for (Boolean preallocate: Arrays.asList(true, false)) {
+            algFull.preallocateSearchState = preallocate;
+            for (ForkPolicy.Kind kind: ForkPolicy.Kind.values()) {
+                algFull.forkPolicy.setSelectedValue(kind);
+                Hypergraph T = algFull.transversalHypergraph(mediumHypergraph);
+
+                assertEquals("Transversals (" + kind + ")", new HashSet<>(expected), new HashSet<>(T));
+                assertEquals("Transversal count (" + kind + ")", expected.numEdges(), T.numEdges());
+            }
+        }
+    }
+
+    @Test
+    public void adaptivePolicyShouldUseMeasuredTaskSizes () {
+        ForkPolicy policy = ForkPolicy.of(ForkPolicy.Kind.ADAPTIVE, 0);
+
+        // A branch with one vertex left to add is too small to fork
+        assertFalse("Branch with one vertex left", policy.shouldFork(2, 10, 1, 3));
+
+        // An unmeasured unbounded branch may be large
+        assertTrue("Unmeasured branch", policy.shouldFork(2, 10, 0, 3));
+
+        // Small measured tasks stop forking at and just above their depth
+        policy.recordWork(2, 4000, 4);
+        assertFalse("Measured branch", policy.shouldFork(2, 10, 0, 3));
+        assertFalse("Branch above a measured depth", policy.shouldFork(1, 10, 0, 3));
+        assertTrue("Branch far above a measured depth", policy.shouldFork(0, 10, 0, 3));
+    }
+
+    @Test
+    public void checkpointedSearchShouldResume ()
+        throws IOException {
+        Hypergraph expected = algFull.transversalHypergraph(mediumHypergraph);
+
+        File checkpointFile = File.createTempFile("search", ".ckpt");
+        checkpointFile.delete();
+        algFull.useCheckpoint = true;
+        algFull.checkpointFile = checkpointFile;
+
+        try {
+            // Stop after a few MHSes, then resume until done
+            List<BitSet> found = new ArrayList<>();
+            int runs = 0;
+            do {
+                runs++;
+                found.clear();
+                int stopAt = 5 * runs;
+                algFull.streamTransversals(mediumHypergraph, mhs -> {
+                        found.add(mhs);
+                        return found.size() < stopAt;
+                    }, 0);
+
+                if (found.size() < expected.numEdges()) {
+                    assertTrue("Checkpoint written", checkpointFile.exists());
+                }
+            } while (checkpointFile.exists());
+
+            assertTrue("Search was interrupted", runs > 1);
+            assertEquals("Transversal count", expected.numEdges(), found.size());
+            assertEquals("Transversals", new HashSet<>(expected), new HashSet<>(found));
+        } finally {
+            checkpointFile.delete();
+        }
+    }
+
+    @Test
+    public void checkpointedSearchShouldResumeOnRebuiltNodeSets ()
+        throws IOException {
+        CyNetwork network = new NetworkTestSupport().getNetwork();
+        List<CyNode> nodes = new ArrayList<>();
+        for (int v = 0; v < mediumHypergraph.numVerts(); v++) {
+            nodes.add(network.addNode());
+        }
+
+        Collection<Set<CyNode>> expected = algFull.MHSes(nodeSetsOfHypergraph(mediumHypergraph, nodes, false));
+
+        File checkpointFile = File.createTempFile("search", ".ckpt");
+        checkpointFile.delete();
+        algFull.useCheckpoint = true;
+        algFull.checkpointFile = checkpointFile;
+
+        try {
+            List<Set<CyNode>> found = new ArrayList<>();
+            algFull.streamMHSes(nodeSetsOfHypergraph(mediumHypergraph, nodes, false), mhs -> {
+                    found.add(mhs);
+                    return found.size() < 5;
+                }, 0);
+            assertTrue("Checkpoint written", checkpointFile.exists());
+
+            // Resume on the same sets, rebuilt with their nodes
+            // iterating in the opposite order
+            Collection<Set<CyNode>> resumed = algFull.MHSes(nodeSetsOfHypergraph(mediumHypergraph, nodes, true));
+
+            assertFalse("Checkpoint removed", checkpointFile.exists());
+            assertEquals("Transversal count", expected.size(), resumed.size());
+            assertEquals("Transversals", new HashSet<>(expected), new HashSet<>(resumed));
+        } finally {
+            checkpointFile.delete();
+        }
+    }
+
+    @Test
+    public void workerSearchShouldMatchInProcessSearch () {
+        Hypergraph expected = algFull.transversalHypergraph(mediumHypergraph);
+
+        algFull.useWorkers = true;
+        algFull.numWorkers.setValue(2);
+        for (Integer size: Arrays.asList(1, 3)) {
+            algFull.splitSize.setValue(size);
+
+            List<BitSet> found = new ArrayList<>();
+            algFull.streamTransversals(mediumHypergraph, found::add, 0);
+
+            assertEquals("Transversal count (split at " + size + ")", expected.numEdges(), found.size());
+            assertEquals("Transversals (split at " + size + ")", new HashSet<>(expected), new HashSet<>(found));
+        }
+
+        List<BitSet> found = new ArrayList<>();
+        algFull.streamTransversals(mediumHypergraph, found::add, 7);
+        assertEquals("Stopped transversal count", 7, found.size());
+    }
+
+    @Test
+    public void launchedWorkersShouldHandlePathsWithSpaces ()
+        throws IOException {
+        Hypergraph expected = algFull.transversalHypergraph(mediumHypergraph);
+
+        File workDirectory = Files.createTempDirectory("work dir").toFile();
+        algFull.useWorkers = true;
+        algFull.splitSize.setValue(2);
+        algFull.workerLauncher = "sh -c";
+        algFull.workDirectory = workDirectory;
+
+        try {
+            List<BitSet> found = new ArrayList<>();
+            algFull.streamTransversals(mediumHypergraph, found::add, 0);
+
+            assertEquals("Transversal count", expected.numEdges(), found.size());
+            assertEquals("Transversals", new HashSet<>(expected), new HashSet<>(found));
+        } finally {
+            workDirectory.delete();
+        }
+    }
+
+    @Test
+    public void workerLauncherShouldSplitLikeAShell () {
+        assertEquals("Plain words", Arrays.asList("ssh", "node2"), RSWorkerPool.splitWords("  ssh   node2 "));
+        assertEquals("Quoted words", Arrays.asList("ssh", "-i", "my key", "it's", "a\\b"), RSWorkerPool.splitWords("ssh -i 'my key' \"it's\" a\\\\b"));
+        assertEquals("Shell quoting", "'it'\\''s'", RSWorkerPool.shellQuote("it's"));
+    }
+
+    @Test
+    public void overriddenOptionsShouldBeReported () {
+        assertTrue("Default options", algFull.ignoredOptions().isEmpty());
+
+        algFull.reduceHypergraph = true;
+        algFull.splitComponents = true;
+        assertTrue("Preprocessing alone", algFull.ignoredOptions().isEmpty());
+
+        algFull.searchBySize = true;
+        assertEquals("Search by size", Arrays.asList("Reduce hypergraph before search", "Solve independent components separately"), new ArrayList<>(algFull.ignoredOptions().keySet()));
+
+        algFull.useCheckpoint = true;
+        algFull.useWorkers = true;
+        Map<String, String> ignored = algFull.ignoredOptions();
+        assertEquals("Worker options", new HashSet<>(Arrays.asList("Save progress to a checkpoint file", "Report CIs in order of size", "Reduce hypergraph before search", "Solve independent components separately")), ignored.keySet());
+        for (String cause: ignored.values()) {
+            assertEquals("Overriding option", "Search in worker processes", cause);
+        }
+        assertTrue("Description", algFull.description().contains("ignored: "));
+
+        algFull.useTopK = true;
+        ignored = algFull.ignoredOptions();
+        assertEquals("Best CIs override workers", "Find only the best CIs", ignored.get("Search in worker processes"));
+        assertEquals("Best CIs override checkpoints", "Find only the best CIs", ignored.get("Save progress to a checkpoint file"));
+        assertEquals("Search by size overrides reduction", "Report CIs in order of size", ignored.get("Reduce hypergraph before search"));
+    }
+
+    @Test
+    public void finishedSearchShouldReportComplete () {
+        algFull.transversalHypergraph(smallHypergraph);
+
+        assertFalse("Time budget expired", algFull.timeBudgetExpired());
+        assertEquals("Fraction explored", 1.0, algFull.fractionExplored(), 0.0);
+        assertTrue("Results complete", algFull.resultsComplete());
+    }
+
+    @Test
+    public void stoppedSearchShouldReportPartialProgress () {
+        algFull.streamTransversals(mediumHypergraph, mhs -> true, 1);
+
+        assertFalse("Time budget expired", algFull.timeBudgetExpired());
+        assertTrue("Fraction explored", algFull.fractionExplored() < 1.0);
+        assertFalse("Results complete", algFull.resultsComplete());
+    }
+
+    @Test
+    public void expiredTimeBudgetShouldStopSearch ()
+        throws InterruptedException {
+        algFull.useTimeBudget = true;
+        algFull.timeBudgetSeconds.setValue(1);
+        algFull.startTimeBudget();
+        Thread.sleep(1100);
+
+        Hypergraph T = algFull.transversalHypergraph(smallHypergraph);
+
+        assertTrue("Time budget expired", algFull.timeBudgetExpired());
+        assertEquals("Transversal count", 0, T.numEdges());
+        assertEquals("Fraction explored", 0.0, algFull.fractionExplored(), 0.0);
+        assertFalse("Results complete", algFull.resultsComplete());
+
+        // A new run starts a new budget
+        algFull.startTimeBudget();
+        T = algFull.transversalHypergraph(smallHypergraph);
+        assertFalse("Time budget expired on rerun", algFull.timeBudgetExpired());
+        assertEquals("Transversal count on rerun", 5, T.numEdges());
+        assertTrue("Results complete on rerun", algFull.resultsComplete());
+    }
+
+    @Test
+    public void expiredTimeBudgetShouldCountFinishedComponents () {
+        // A single edge, then a copy of the medium hypergraph
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(0, 1));
+        for (BitSet edge: mediumHypergraph) {
+            List<Integer> shifted = new ArrayList<>();
+            edge.stream().forEach(v -> shifted.add(v + 2));
+            edges.add(shifted);
+        }
+        Hypergraph H = new Hypergraph(edges);
+
+        AtomicInteger checks = new AtomicInteger();
+        RSAlgorithm alg = new RSAlgorithm() {
+                @Override
+                public Boolean isCanceled () {
+                    // The first component needs only a few checks;
+                    // then the search stalls until the budget is spent
+                    while ((checks.incrementAndGet() > 100) && !super.isCanceled()) {
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return super.isCanceled();
+                }
+            };
+        alg.useMaxCardinality = false;
+        alg.reduceHypergraph = false;
+        alg.splitComponents = true;
+        alg.useTimeBudget = true;
+        alg.timeBudgetSeconds.setValue(1);
+        alg.startTimeBudget();
+
+        List<BitSet> found = new ArrayList<>();
+        alg.streamTransversals(H, found::add, 0);
+
+        assertTrue("Time budget expired", alg.timeBudgetExpired());
+        assertEquals("Fraction explored", 0.5, alg.fractionExplored(), 0.0);
+        assertFalse("Results complete", alg.resultsComplete());
+    }
+
+    @Test
+    public void unboundedSearchShouldBeCertified () {
+        assertTrue("Certified", algFull.certifyMHSes(Collections.emptyList(), Collections.singletonList(Collections.emptySet()), mhs -> true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void boundedSearchShouldNotBeCertified () {
+        algCutoff.certifyMHSes(Collections.emptyList(), Collections.singletonList(Collections.emptySet()), mhs -> true);
+    }
+
     @Test
     public void hugeHypergraphCutoffTransversalShouldWork ()
         throws FileNotFoundException, IOException, NumberFormatException {
@@ -77,4 +538,27 @@ public class RSAlgorithmTest {
             assertTrue("Transversal condition", H.isTransversedBy(transversal));
         }
     }
+
+    /**
+     * Return the edges of a hypergraph as sets of nodes, whose nodes
+     * iterate in increasing (or, if reversed, decreasing) order of
+     * vertex
+     **/
+    private static Collection<Set<CyNode>> nodeSetsOfHypergraph (Hypergraph H,
+                                                                List<CyNode> nodes,
+                                                                boolean reversed) {
+        List<Set<CyNode>> result = new ArrayList<>();
+        for (BitSet edge: H) {
+            List<CyNode> edgeNodes = new ArrayList<>();
+            for (int v = edge.nextSetBit(0); v >= 0; v = edge.nextSetBit(v+1)) {
+                edgeNodes.add(nodes.get(v));
+            }
+
+            if (reversed) {
+                Collections.reverse(edgeNodes);
+            }
+            result.add(new LinkedHashSet<>(edgeNodes));
+        }
+        return result;
+    }
 }
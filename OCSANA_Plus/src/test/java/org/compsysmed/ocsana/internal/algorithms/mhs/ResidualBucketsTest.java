@@ -0,0 +1,94 @@
+/**
+ * Test cases for the ResidualBuckets class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.ResidualBuckets;
+
+public class ResidualBucketsTest {
+    Hypergraph H;
+    ResidualBuckets buckets;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(0, 1, 2));
+        edges.add(Arrays.asList(2, 3));
+        edges.add(Arrays.asList(0, 3, 4, 5));
+        H = new Hypergraph(edges);
+
+        BitSet uncov = new BitSet();
+        uncov.set(0, 3);
+
+        BitSet cand = new BitSet();
+        cand.set(0, 6);
+
+        buckets = new ResidualBuckets(H, uncov, cand);
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        H = null;
+        buckets = null;
+    }
+
+    @Test
+    public void smallestEdgeShouldComeFirst () {
+        assertEquals("Fewest candidates", 1, buckets.fewestCandidatesEdge());
+    }
+
+    @Test
+    public void removingCandidatesShouldShrinkEdges () {
+        buckets.removeCandidate(0);
+        buckets.removeCandidate(1);
+        assertEquals("Fewest candidates", 0, buckets.fewestCandidatesEdge());
+
+        buckets.addCandidate(1);
+        buckets.addCandidate(0);
+        assertEquals("Restored candidates", 1, buckets.fewestCandidatesEdge());
+    }
+
+    @Test
+    public void coveredEdgesShouldBeSkipped () {
+        BitSet covered = new BitSet();
+        covered.set(1);
+        buckets.cover(covered);
+        assertEquals("Fewest candidates", 0, buckets.fewestCandidatesEdge());
+
+        covered.set(0);
+        covered.set(2);
+        buckets.cover(covered);
+        assertEquals("All covered", -1, buckets.fewestCandidatesEdge());
+
+        buckets.uncover(covered);
+        assertEquals("Uncovered again", 1, buckets.fewestCandidatesEdge());
+    }
+
+    @Test
+    public void copiesShouldBeIndependent () {
+        ResidualBuckets copy = buckets.copy();
+        copy.removeCandidate(0);
+        copy.removeCandidate(4);
+        copy.removeCandidate(5);
+
+        assertEquals("Copy", 2, copy.fewestCandidatesEdge());
+        assertEquals("Original", 1, buckets.fewestCandidatesEdge());
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Test cases for the SearchCheckpoint class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+import java.io.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+import org.compsysmed.ocsana.internal.algorithms.mhs.SearchCheckpoint;
+
+public class SearchCheckpointTest {
+    Hypergraph smallHypergraph;
+    File tempFile;
+
+    @Before
+    public void setUp ()
+        throws IOException {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(1, 2, 5));
+        edges.add(Arrays.asList(2, 3, 4));
+        edges.add(Arrays.asList(1, 3));
+        smallHypergraph = new Hypergraph(edges);
+
+        tempFile = File.createTempFile("search", ".ckpt");
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        tempFile.delete();
+        tempFile = null;
+
+        smallHypergraph = null;
+    }
+
+    @Test
+    public void checkpointShouldRoundTrip ()
+        throws IOException {
+        List<BitSet> MHSes = Arrays.asList(bitSet(1, 2), bitSet(2, 3));
+        List<BitSet> pendingBranches = Arrays.asList(bitSet(), bitSet(5));
+        new SearchCheckpoint(MHSes, pendingBranches).write(tempFile, smallHypergraph, 4);
+
+        SearchCheckpoint checkpoint = SearchCheckpoint.read(tempFile, smallHypergraph, 4);
+        assertEquals("MHSes", MHSes, checkpoint.MHSes());
+        assertEquals("Pending branches", pendingBranches, checkpoint.pendingBranches());
+    }
+
+    @Test
+    public void missingCheckpointShouldReadAsNull ()
+        throws IOException {
+        tempFile.delete();
+        assertNull("Missing checkpoint", SearchCheckpoint.read(tempFile, smallHypergraph, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkpointOfOtherSearchShouldBeRejected ()
+        throws IOException {
+        new SearchCheckpoint(Arrays.asList(bitSet(1, 2)), Arrays.asList(bitSet(3))).write(tempFile, smallHypergraph, 4);
+
+        // Same size as smallHypergraph, different edges
+        List<List<Integer>> edges = new ArrayList<>();
+        edges.add(Arrays.asList(1, 2, 5));
+        edges.add(Arrays.asList(2, 3, 4));
+        edges.add(Arrays.asList(1, 4));
+        SearchCheckpoint.read(tempFile, new Hypergraph(edges), 4);
+    }
+
+    private static BitSet bitSet (int... vertices) {
+        BitSet result = new BitSet();
+        for (int v: vertices) {
+            result.set(v);
+        }
+        return result;
+    }
+}
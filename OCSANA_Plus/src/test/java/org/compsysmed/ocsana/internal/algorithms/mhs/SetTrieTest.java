@@ -0,0 +1,80 @@
+/**
+ * Test cases for the SetTrie class
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.algorithms.mhs;
+
+// JUnit imports
+import org.junit.*;
+import static org.junit.Assert.*;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.SetTrie;
+
+public class SetTrieTest {
+    SetTrie trie;
+
+    @Before
+    public void setUp () {
+        // Set up the test environment here
+        // In particular, initialize any shared variables
+        trie = new SetTrie();
+        trie.add(setOf(1, 2, 5));
+        trie.add(setOf(2, 3, 4));
+        trie.add(setOf(1, 3));
+    }
+
+    @After
+    public void tearDown () {
+        // Tear down the test environment here
+        // In particular, null out any shared variables so the garbage
+        // collector can trash them
+        trie = null;
+    }
+
+    @Test
+    public void addShouldIgnoreDuplicates () {
+        assertFalse("Duplicate add", trie.add(setOf(1, 3)));
+        assertEquals("Size", 3, trie.size());
+    }
+
+    @Test
+    public void subsetQueriesShouldWork () {
+        assertTrue("Stored set is its own subset", trie.containsSubsetOf(setOf(1, 3)));
+        assertTrue("Proper superset of stored set", trie.containsSubsetOf(setOf(1, 2, 3, 6)));
+        assertFalse("No stored subset", trie.containsSubsetOf(setOf(1, 2, 4)));
+        assertFalse("Empty set", trie.containsSubsetOf(new BitSet()));
+    }
+
+    @Test
+    public void supersetQueriesShouldWork () {
+        assertTrue("Stored set is its own superset", trie.containsSupersetOf(setOf(2, 3, 4)));
+        assertTrue("Proper subset of stored set", trie.containsSupersetOf(setOf(2, 5)));
+        assertTrue("Empty set", trie.containsSupersetOf(new BitSet()));
+        assertFalse("No stored superset", trie.containsSupersetOf(setOf(3, 5)));
+    }
+
+    @Test
+    public void removeShouldForgetSets () {
+        assertTrue("Remove stored set", trie.remove(setOf(1, 3)));
+        assertFalse("Remove missing set", trie.remove(setOf(1, 3)));
+
+        assertFalse("Removed set is gone", trie.contains(setOf(1, 3)));
+        assertFalse("No stored subset after removal", trie.containsSubsetOf(setOf(1, 3, 6)));
+        assertTrue("Sibling sets survive", trie.contains(setOf(1, 2, 5)));
+        assertEquals("Size", 2, trie.size());
+    }
+
+    private static BitSet setOf (int... vertices) {
+        BitSet result = new BitSet();
+        for (int v: vertices) {
+            result.set(v);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Hypergraphs shared by the MHS algorithm tests
+ *
+ * Copyright Vera-Licona Research Group (C) 2016
+ **/
+
+package org.compsysmed.ocsana.internal.helpers;
+
+// Java imports
+import java.util.*;
+
+// OCSANA imports
+import org.compsysmed.ocsana.internal.algorithms.mhs.Hypergraph;
+
+/**
+ * Build the minimized test hypergraphs which are too large to write
+ * out by hand
+ **/
+public class HypergraphFixtures {
+    /**
+     * Return the minimization of 16 overlapping edges of four
+     * vertices, which has 321 MHSes of up to nine vertices
+     **/
+    public static Hypergraph mediumHypergraph () {
+        List<List<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            edges.add(Arrays.asList(i % 5, (3*i + 1) % 11, (7*i + 4) % 17, 40 + i % 4));
+        }
+
+        Hypergraph H = new Hypergraph(edges);
+        H.minimize();
+        return H;
+    }
+
+    /**
+     * Return the minimization of 20 overlapping edges of three
+     * vertices, which has 128 MHSes of up to nine vertices
+     **/
+    public static Hypergraph sparseHypergraph () {
+        List<List<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            edges.add(Arrays.asList(i % 9, (3*i + 1) % 13, (5*i + 2) % 17));
+        }
+
+        Hypergraph H = new Hypergraph(edges);
+        H.minimize();
+        return H;
+    }
+}